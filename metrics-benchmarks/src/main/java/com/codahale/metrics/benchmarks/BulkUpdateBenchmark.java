@@ -0,0 +1,134 @@
+package com.codahale.metrics.benchmarks;
+
+import com.codahale.metrics.ExponentiallyDecayingArrayReservoir;
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.LockFreeExponentiallyDecayingReservoir;
+import com.codahale.metrics.LockFreeSlidingWindowReservoir;
+import com.codahale.metrics.LogLinearBucketReservoir;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
+import com.codahale.metrics.SlidingWindowReservoir;
+import com.codahale.metrics.UniformReservoir;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares recording a batch of values into a {@link Histogram} one by one with recording it through
+ * {@link Histogram#update(long[], int, int)}. Both benchmarks record the whole batch per operation.
+ */
+@State(Scope.Benchmark)
+public class BulkUpdateBenchmark {
+
+    public enum ReservoirType {
+        UNIFORM {
+            @Override
+            Reservoir create() {
+                return new UniformReservoir();
+            }
+        },
+        SLIDING_WINDOW {
+            @Override
+            Reservoir create() {
+                return new SlidingWindowReservoir(1028);
+            }
+        },
+        LOCK_FREE_SLIDING_WINDOW {
+            @Override
+            Reservoir create() {
+                return new LockFreeSlidingWindowReservoir(1028);
+            }
+        },
+        SLIDING_TIME_WINDOW_ARRAY {
+            @Override
+            Reservoir create() {
+                return new SlidingTimeWindowArrayReservoir(200, TimeUnit.MILLISECONDS);
+            }
+        },
+        EXPONENTIALLY_DECAYING {
+            @Override
+            Reservoir create() {
+                return new ExponentiallyDecayingReservoir();
+            }
+        },
+        LOCK_FREE_EXPONENTIALLY_DECAYING {
+            @Override
+            Reservoir create() {
+                return LockFreeExponentiallyDecayingReservoir.builder().build();
+            }
+        },
+        EXPONENTIALLY_DECAYING_ARRAY {
+            @Override
+            Reservoir create() {
+                return ExponentiallyDecayingArrayReservoir.builder().build();
+            }
+        },
+        LOG_LINEAR_BUCKET {
+            @Override
+            Reservoir create() {
+                return new LogLinearBucketReservoir();
+            }
+        };
+
+        abstract Reservoir create();
+    }
+
+    @Param
+    private ReservoirType type;
+
+    @Param({"16", "256"})
+    private int batchSize;
+
+    private Histogram histogram;
+    private long[] values;
+
+    @Setup
+    public void setUp() {
+        histogram = new Histogram(type.create());
+        values = new long[batchSize];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = ThreadLocalRandom.current().nextLong(1_000, 1_000_000);
+        }
+    }
+
+    @Benchmark
+    public Object perValue() {
+        for (long value : values) {
+            histogram.update(value);
+        }
+        return histogram;
+    }
+
+    @Benchmark
+    public Object bulk() {
+        histogram.update(values, 0, values.length);
+        return histogram;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(".*" + BulkUpdateBenchmark.class.getSimpleName() + ".*")
+                .warmupIterations(3)
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(2))
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .mode(Mode.AverageTime)
+                .threads(4)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
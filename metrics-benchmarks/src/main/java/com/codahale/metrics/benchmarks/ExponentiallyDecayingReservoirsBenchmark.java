@@ -0,0 +1,126 @@
+package com.codahale.metrics.benchmarks;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.ExponentiallyDecayingArrayReservoir;
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.LockFreeExponentiallyDecayingReservoir;
+import com.codahale.metrics.Reservoir;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the allocation rate of the forward-decaying reservoirs when updating a full reservoir,
+ * taking snapshots and rescaling. Run with the {@link GCProfiler} to see {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Thread)
+public class ExponentiallyDecayingReservoirsBenchmark {
+
+    public enum ReservoirType {
+        EXPONENTIALLY_DECAYING {
+            @Override
+            Reservoir create(Clock clock) {
+                return new ExponentiallyDecayingReservoir(1028, 0.015, clock);
+            }
+        },
+        LOCK_FREE_EXPONENTIALLY_DECAYING {
+            @Override
+            Reservoir create(Clock clock) {
+                return LockFreeExponentiallyDecayingReservoir.builder().clock(clock).build();
+            }
+        },
+        EXPONENTIALLY_DECAYING_ARRAY {
+            @Override
+            Reservoir create(Clock clock) {
+                return ExponentiallyDecayingArrayReservoir.builder().clock(clock).build();
+            }
+        };
+
+        abstract Reservoir create(Clock clock);
+    }
+
+    /**
+     * A clock which moves forward by one hour on every other read, so every update of the reservoir
+     * observes a rescale.
+     */
+    private static final class RescalingClock extends Clock {
+        private long tick;
+        private boolean advance;
+
+        @Override
+        public long getTick() {
+            advance = !advance;
+            if (advance) {
+                tick += TimeUnit.HOURS.toNanos(1);
+            }
+            return tick;
+        }
+
+        @Override
+        public long getTime() {
+            return TimeUnit.NANOSECONDS.toMillis(tick);
+        }
+    }
+
+    @Param
+    private ReservoirType type;
+
+    private Reservoir reservoir;
+    private Reservoir rescaling;
+
+    // It's intentionally not declared as final to avoid constant folding
+    private long nextValue = 0xFBFBABBA;
+
+    @Setup
+    public void setUp() {
+        reservoir = type.create(Clock.defaultClock());
+        rescaling = type.create(new RescalingClock());
+        for (int i = 0; i < 10_000; i++) {
+            reservoir.update(i);
+            rescaling.update(i);
+        }
+    }
+
+    @Benchmark
+    public Object update() {
+        reservoir.update(nextValue);
+        return reservoir;
+    }
+
+    @Benchmark
+    public Object snapshot() {
+        return reservoir.getSnapshot();
+    }
+
+    @Benchmark
+    public Object updateWithRescale() {
+        rescaling.update(nextValue);
+        return rescaling;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(".*" + ExponentiallyDecayingReservoirsBenchmark.class.getSimpleName() + ".*")
+            .warmupIterations(5)
+            .measurementIterations(5)
+            .addProfiler(GCProfiler.class)
+            .measurementTime(TimeValue.seconds(3))
+            .timeUnit(TimeUnit.MICROSECONDS)
+            .mode(Mode.AverageTime)
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -1,7 +1,11 @@
 package com.codahale.metrics.benchmarks;
 
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.ExponentialMovingAverages;
 import com.codahale.metrics.Meter;
+import com.codahale.metrics.MovingAveragesTicker;
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.runner.Runner;
@@ -9,10 +13,14 @@ import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 
+import java.util.concurrent.TimeUnit;
+
 @State(Scope.Benchmark)
 public class MeterBenchmark {
 
     private final Meter meter = new Meter();
+    private final Meter tickedMeter =
+            new Meter(new ExponentialMovingAverages(), Clock.defaultClock(), MovingAveragesTicker.shared());
 
     // It's intentionally not declared as final to avoid constant folding
     private long nextValue = 0xFBFBABBA;
@@ -23,6 +31,51 @@ public class MeterBenchmark {
         return meter;
     }
 
+    @Benchmark
+    public Object perfMarkWithTicker() {
+        tickedMeter.mark(nextValue);
+        return tickedMeter;
+    }
+
+    @Benchmark
+    public double perfOneMinuteRate() {
+        return meter.getOneMinuteRate();
+    }
+
+    @Benchmark
+    public double perfOneMinuteRateWithTicker() {
+        return tickedMeter.getOneMinuteRate();
+    }
+
+    /**
+     * A meter whose clock jumps forward by {@code idleMinutes} before every mark, so each mark is the
+     * first one after an idle period and has to catch up the moving averages.
+     */
+    @State(Scope.Thread)
+    public static class IdleMeter {
+        @Param({"1", "10", "60"})
+        private long idleMinutes;
+
+        private final IdleClock clock = new IdleClock();
+        private final Meter meter = new Meter(clock);
+    }
+
+    private static final class IdleClock extends Clock {
+        private long tick;
+
+        @Override
+        public long getTick() {
+            return tick;
+        }
+    }
+
+    @Benchmark
+    public Object perfFirstMarkAfterIdle(IdleMeter idle) {
+        idle.clock.tick += TimeUnit.MINUTES.toNanos(idle.idleMinutes);
+        idle.meter.mark(nextValue);
+        return idle.meter;
+    }
+
     public static void main(String[] args) throws RunnerException {
         Options opt = new OptionsBuilder()
                 .include(".*" + MeterBenchmark.class.getSimpleName() + ".*")
@@ -0,0 +1,109 @@
+package com.codahale.metrics.benchmarks;
+
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what a {@link com.codahale.metrics.ScheduledReporter} pays to read a registry on every
+ * report, against the number of registered metrics.
+ */
+@State(Scope.Benchmark)
+public class MetricRegistryBenchmark {
+
+    @Param({"1000", "10000", "80000"})
+    private int metricCount;
+
+    private MetricRegistry registry;
+    private MetricFilter filter;
+
+    @Setup
+    public void setUp() {
+        registry = new MetricRegistry();
+        for (int i = 0; i < metricCount; i++) {
+            final String name = MetricRegistry.name("service" + (i % 100), "endpoint" + i);
+            switch (i % 5) {
+                case 0:
+                    registry.gauge(name, () -> () -> 1L);
+                    break;
+                case 1:
+                    registry.counter(name);
+                    break;
+                case 2:
+                    registry.histogram(name);
+                    break;
+                case 3:
+                    registry.meter(name);
+                    break;
+                default:
+                    registry.timer(name);
+                    break;
+            }
+        }
+        filter = MetricFilter.startsWith("service1.");
+    }
+
+    @Benchmark
+    public void readAllTypes(Blackhole blackhole) {
+        consume(blackhole, registry.getGauges(MetricFilter.ALL));
+        consume(blackhole, registry.getCounters(MetricFilter.ALL));
+        consume(blackhole, registry.getHistograms(MetricFilter.ALL));
+        consume(blackhole, registry.getMeters(MetricFilter.ALL));
+        consume(blackhole, registry.getTimers(MetricFilter.ALL));
+    }
+
+    @Benchmark
+    public void readAllTypesFiltered(Blackhole blackhole) {
+        consume(blackhole, registry.getGauges(filter));
+        consume(blackhole, registry.getCounters(filter));
+        consume(blackhole, registry.getHistograms(filter));
+        consume(blackhole, registry.getMeters(filter));
+        consume(blackhole, registry.getTimers(filter));
+    }
+
+    @Benchmark
+    public void readAllTypesUnderPrefix(Blackhole blackhole) {
+        consume(blackhole, registry.getGaugesUnder("service1"));
+        consume(blackhole, registry.getCountersUnder("service1"));
+        consume(blackhole, registry.getHistogramsUnder("service1"));
+        consume(blackhole, registry.getMetersUnder("service1"));
+        consume(blackhole, registry.getTimersUnder("service1"));
+    }
+
+    private static void consume(Blackhole blackhole, SortedMap<String, ?> metrics) {
+        for (Map.Entry<String, ?> entry : metrics.entrySet()) {
+            blackhole.consume(entry.getValue());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(".*" + MetricRegistryBenchmark.class.getSimpleName() + ".*")
+                .warmupIterations(3)
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(2))
+                .addProfiler(GCProfiler.class)
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .mode(Mode.AverageTime)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
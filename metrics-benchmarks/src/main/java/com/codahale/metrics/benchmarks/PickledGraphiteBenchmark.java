@@ -0,0 +1,120 @@
+package com.codahale.metrics.benchmarks;
+
+import com.codahale.metrics.graphite.PickledGraphite;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import javax.net.SocketFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Measures pickling and writing a report of timer-like metrics with the text protocol 0 and the
+ * binary protocol 2, to a socket which discards what it is sent.
+ */
+@State(Scope.Benchmark)
+public class PickledGraphiteBenchmark {
+
+    @Param({"0", "2"})
+    private int protocol;
+
+    private PickledGraphite graphite;
+    private String[] names;
+    private String[] values;
+
+    @Setup
+    public void setUp() throws IOException {
+        names = new String[1000];
+        values = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "web1.example.com.requests.endpoint" + (i / 15) + ".p" + (i % 15);
+            values[i] = String.format("%2.2f", i * 1.37);
+        }
+        graphite = new PickledGraphite(new InetSocketAddress(InetAddress.getLoopbackAddress(), 2004),
+                new DiscardingSocketFactory(), UTF_8, 100, protocol);
+        graphite.connect();
+    }
+
+    @Benchmark
+    public void report(Blackhole blackhole) throws IOException {
+        for (int i = 0; i < names.length; i++) {
+            graphite.send(names[i], values[i], 1_700_000_000L);
+        }
+        graphite.flush();
+        blackhole.consume(graphite.getFailures());
+    }
+
+    private static class DiscardingSocketFactory extends SocketFactory {
+        @Override
+        public Socket createSocket(String host, int port) {
+            return new DiscardingSocket();
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) {
+            return new DiscardingSocket();
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) {
+            return new DiscardingSocket();
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) {
+            return new DiscardingSocket();
+        }
+    }
+
+    private static class DiscardingSocket extends Socket {
+        private final OutputStream output = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+
+        @Override
+        public OutputStream getOutputStream() {
+            return output;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(".*" + PickledGraphiteBenchmark.class.getSimpleName() + ".*")
+                .warmupIterations(3)
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(2))
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .mode(Mode.AverageTime)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
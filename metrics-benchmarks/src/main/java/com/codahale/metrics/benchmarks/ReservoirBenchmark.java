@@ -1,7 +1,10 @@
 package com.codahale.metrics.benchmarks;
 
+import com.codahale.metrics.ExponentiallyDecayingArrayReservoir;
 import com.codahale.metrics.ExponentiallyDecayingReservoir;
 import com.codahale.metrics.LockFreeExponentiallyDecayingReservoir;
+import com.codahale.metrics.LockFreeSlidingWindowReservoir;
+import com.codahale.metrics.LogLinearBucketReservoir;
 import com.codahale.metrics.Reservoir;
 import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
 import com.codahale.metrics.SlidingTimeWindowReservoir;
@@ -26,9 +29,12 @@ public class ReservoirBenchmark {
     private final UniformReservoir uniform = new UniformReservoir();
     private final ExponentiallyDecayingReservoir exponential = new ExponentiallyDecayingReservoir();
     private final Reservoir lockFreeExponential = LockFreeExponentiallyDecayingReservoir.builder().build();
+    private final Reservoir arrayExponential = ExponentiallyDecayingArrayReservoir.builder().build();
     private final SlidingWindowReservoir sliding = new SlidingWindowReservoir(1000);
+    private final LockFreeSlidingWindowReservoir lockFreeSliding = new LockFreeSlidingWindowReservoir(1000);
     private final SlidingTimeWindowReservoir slidingTime = new SlidingTimeWindowReservoir(200, TimeUnit.MILLISECONDS);
     private final SlidingTimeWindowArrayReservoir arrTime = new SlidingTimeWindowArrayReservoir(200, TimeUnit.MILLISECONDS);
+    private final LogLinearBucketReservoir logLinear = new LogLinearBucketReservoir();
 
     // It's intentionally not declared as final to avoid constant folding
     private long nextValue = 0xFBFBABBA;
@@ -57,6 +63,12 @@ public class ReservoirBenchmark {
         return sliding;
     }
 
+    @Benchmark
+    public Object perfLockFreeSlidingWindowReservoir() {
+        lockFreeSliding.update(nextValue);
+        return lockFreeSliding;
+    }
+
     @Benchmark
     public Object perfSlidingTimeWindowReservoir() {
         slidingTime.update(nextValue);
@@ -69,6 +81,18 @@ public class ReservoirBenchmark {
         return lockFreeExponential;
     }
 
+    @Benchmark
+    public Object perfExponentiallyDecayingArrayReservoir() {
+        arrayExponential.update(nextValue);
+        return arrayExponential;
+    }
+
+    @Benchmark
+    public Object perfLogLinearBucketReservoir() {
+        logLinear.update(nextValue);
+        return logLinear;
+    }
+
     public static void main(String[] args) throws RunnerException {
         Options opt = new OptionsBuilder()
             .include(".*" + ReservoirBenchmark.class.getSimpleName() + ".*")
@@ -0,0 +1,110 @@
+package com.codahale.metrics.benchmarks;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.ScheduledReporter;
+import com.codahale.metrics.Timer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a report of a registry of full timers, whose snapshots are computed either while
+ * reporting, on the reporter's thread, or beforehand on a {@link ForkJoinPool}.
+ */
+@State(Scope.Benchmark)
+public class ScheduledReporterBenchmark {
+
+    @Param({"1000", "10000"})
+    private int timerCount;
+
+    @Param({"false", "true"})
+    private boolean parallel;
+
+    private ForkJoinPool pool;
+    private BlackholeReporter reporter;
+
+    @Setup
+    public void setUp() {
+        final MetricRegistry registry = new MetricRegistry();
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < timerCount; i++) {
+            final Timer timer = registry.timer("timer" + i);
+            for (int j = 0; j < 1028; j++) {
+                timer.update(random.nextLong(1_000_000), TimeUnit.NANOSECONDS);
+            }
+        }
+        reporter = new BlackholeReporter(registry);
+        if (parallel) {
+            pool = new ForkJoinPool();
+            reporter.setSnapshotPool(pool);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void report(Blackhole blackhole) {
+        reporter.blackhole = blackhole;
+        reporter.report();
+    }
+
+    private static class BlackholeReporter extends ScheduledReporter {
+        private Blackhole blackhole;
+
+        BlackholeReporter(MetricRegistry registry) {
+            super(registry, "benchmark", MetricFilter.ALL, TimeUnit.SECONDS, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public void report(SortedMap<String, Gauge> gauges,
+                           SortedMap<String, Counter> counters,
+                           SortedMap<String, Histogram> histograms,
+                           SortedMap<String, Meter> meters,
+                           SortedMap<String, Timer> timers) {
+            for (Timer timer : timers.values()) {
+                blackhole.consume(timer.getSnapshot().get99thPercentile());
+                blackhole.consume(timer.getOneMinuteRate());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(".*" + ScheduledReporterBenchmark.class.getSimpleName() + ".*")
+                .warmupIterations(3)
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(2))
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .mode(Mode.AverageTime)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
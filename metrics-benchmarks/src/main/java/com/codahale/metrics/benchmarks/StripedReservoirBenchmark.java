@@ -0,0 +1,78 @@
+package com.codahale.metrics.benchmarks;
+
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
+import com.codahale.metrics.StripedReservoir;
+import com.codahale.metrics.UniformReservoir;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how update throughput of the contended reservoirs scales with the number of writer threads,
+ * with and without striping. Run {@link #main(String[])} to execute every benchmark with 1, 2, 4, ...
+ * threads up to the number of available processors.
+ */
+@State(Scope.Benchmark)
+public class StripedReservoirBenchmark {
+
+    private final Reservoir uniform = new UniformReservoir();
+    private final Reservoir stripedUniform = new StripedReservoir(UniformReservoir::new);
+    private final Reservoir arrTime = new SlidingTimeWindowArrayReservoir(200, TimeUnit.MILLISECONDS);
+    private final Reservoir stripedArrTime =
+            new StripedReservoir(() -> new SlidingTimeWindowArrayReservoir(200, TimeUnit.MILLISECONDS));
+
+    // It's intentionally not declared as final to avoid constant folding
+    private long nextValue = 0xFBFBABBA;
+
+    @Benchmark
+    public Object perfUniformReservoir() {
+        uniform.update(nextValue);
+        return uniform;
+    }
+
+    @Benchmark
+    public Object perfStripedUniformReservoir() {
+        stripedUniform.update(nextValue);
+        return stripedUniform;
+    }
+
+    @Benchmark
+    public Object perfSlidingTimeWindowArrayReservoir() {
+        arrTime.update(nextValue);
+        return arrTime;
+    }
+
+    @Benchmark
+    public Object perfStripedSlidingTimeWindowArrayReservoir() {
+        stripedArrTime.update(nextValue);
+        return stripedArrTime;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        final int maxThreads = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            Options opt = new OptionsBuilder()
+                .include(".*" + StripedReservoirBenchmark.class.getSimpleName() + ".*")
+                .warmupIterations(5)
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(3))
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .mode(Mode.Throughput)
+                .threads(threads)
+                .forks(1)
+                .build();
+
+            new Runner(opt).run();
+        }
+    }
+
+}
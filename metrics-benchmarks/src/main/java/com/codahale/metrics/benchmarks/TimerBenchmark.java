@@ -0,0 +1,77 @@
+package com.codahale.metrics.benchmarks;
+
+import com.codahale.metrics.LogLinearBucketReservoir;
+import com.codahale.metrics.Timer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.CompilerControl;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the allocation rate of the ways to time an event. Run with the {@link GCProfiler} to see
+ * {@code gc.alloc.rate.norm}; the context benchmarks are kept from being scalar replaced by passing
+ * the context through a non-inlined method, as happens when it crosses an async boundary.
+ */
+@State(Scope.Benchmark)
+public class TimerBenchmark {
+
+    // the reservoir does not allocate on update, so any allocation comes from the timing API itself
+    private final Timer timer = new Timer(new LogLinearBucketReservoir());
+
+    @State(Scope.Thread)
+    public static class LocalContext {
+        private Timer.ReusableContext context;
+
+        @Setup
+        public void setUp(TimerBenchmark benchmark) {
+            context = benchmark.timer.newReusableContext();
+        }
+    }
+
+    @Benchmark
+    public long perfContext() {
+        return escape(timer.time()).stop();
+    }
+
+    @Benchmark
+    public long perfStartStopNanos() {
+        final long start = timer.startNanos();
+        return timer.stopNanos(start);
+    }
+
+    @Benchmark
+    public long perfReusableContext(LocalContext local) {
+        return escape(local.context.start()).stop();
+    }
+
+    @CompilerControl(CompilerControl.Mode.DONT_INLINE)
+    private static <T> T escape(T context) {
+        return context;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(".*" + TimerBenchmark.class.getSimpleName() + ".*")
+            .warmupIterations(5)
+            .measurementIterations(5)
+            .addProfiler(GCProfiler.class)
+            .measurementTime(TimeValue.seconds(3))
+            .timeUnit(TimeUnit.NANOSECONDS)
+            .mode(Mode.AverageTime)
+            .threads(4)
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
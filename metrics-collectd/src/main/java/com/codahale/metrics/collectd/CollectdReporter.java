@@ -2,8 +2,10 @@ package com.codahale.metrics.collectd;
 
 import com.codahale.metrics.Clock;
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.DoubleGauge;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
+import com.codahale.metrics.LongGauge;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricAttribute;
 import com.codahale.metrics.MetricFilter;
@@ -253,7 +255,7 @@ public class CollectdReporter extends ScheduledReporter {
         }
     }
 
-    private void writeValue(MetaData.Builder metaData, MetricAttribute attribute, Number value) {
+    private void writeValue(MetaData.Builder metaData, MetricAttribute attribute, double value) {
         if (!getDisabledMetricAttributes().contains(attribute)) {
             write(metaData.typeInstance(attribute.getCode()).get(), value);
         }
@@ -267,7 +269,7 @@ public class CollectdReporter extends ScheduledReporter {
         writeValue(metaData, attribute, convertDuration(duration));
     }
 
-    private void write(MetaData metaData, Number value) {
+    private void write(MetaData metaData, double value) {
         try {
             writer.write(metaData, value);
         } catch (RuntimeException e) {
@@ -279,8 +281,12 @@ public class CollectdReporter extends ScheduledReporter {
 
     @SuppressWarnings("rawtypes")
     private void serializeGauge(MetaData.Builder metaData, Gauge metric) {
-        if (metric.getValue() instanceof Number) {
-            write(metaData.typeInstance("value").get(), (Number) metric.getValue());
+        if (metric instanceof LongGauge) {
+            write(metaData.typeInstance("value").get(), (double) ((LongGauge) metric).getLongValue());
+        } else if (metric instanceof DoubleGauge) {
+            write(metaData.typeInstance("value").get(), ((DoubleGauge) metric).getDoubleValue());
+        } else if (metric.getValue() instanceof Number) {
+            write(metaData.typeInstance("value").get(), ((Number) metric.getValue()).doubleValue());
         } else if (metric.getValue() instanceof Boolean) {
             write(metaData.typeInstance("value").get(), ((Boolean) metric.getValue()) ? 1 : 0);
         } else {
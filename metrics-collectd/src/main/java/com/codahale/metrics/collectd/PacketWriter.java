@@ -17,7 +17,6 @@ import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidParameterSpecException;
-import java.util.Arrays;
 
 class PacketWriter {
 
@@ -67,10 +66,10 @@ class PacketWriter {
         this.password = password != null ? password.getBytes(StandardCharsets.UTF_8) : null;
     }
 
-    void write(MetaData metaData, Number... values) throws BufferOverflowException, IOException {
+    void write(MetaData metaData, double value) throws BufferOverflowException, IOException {
         final ByteBuffer packet = ByteBuffer.allocate(BUFFER_SIZE);
         write(packet, metaData);
-        write(packet, values);
+        write(packet, value);
         packet.flip();
 
         switch (securityLevel) {
@@ -99,25 +98,15 @@ class PacketWriter {
         writeNumber(buffer, TYPE_INTERVAL, metaData.getPeriod());
     }
 
-    private void write(ByteBuffer buffer, Number... values) {
-        final int numValues = values.length;
-        final int length = HEADER_LEN + VALUE_COUNT_LEN + numValues * VALUE_LEN;
-        writeHeader(buffer, TYPE_VALUES, length);
-        buffer.putShort((short) numValues);
-        buffer.put(nCopies(numValues, DATA_TYPE_GAUGE));
+    private void write(ByteBuffer buffer, double value) {
+        writeHeader(buffer, TYPE_VALUES, HEADER_LEN + VALUE_COUNT_LEN + VALUE_LEN);
+        buffer.putShort((short) 1);
+        buffer.put(DATA_TYPE_GAUGE);
         buffer.order(ByteOrder.LITTLE_ENDIAN);
-        for (Number value : values) {
-            buffer.putDouble(value.doubleValue());
-        }
+        buffer.putDouble(value);
         buffer.order(ByteOrder.BIG_ENDIAN);
     }
 
-    private byte[] nCopies(int n, byte value) {
-        final byte[] array = new byte[n];
-        Arrays.fill(array, value);
-        return array;
-    }
-
     private void writeString(ByteBuffer buffer, int type, String val) {
         if (val == null || val.length() == 0) {
             return;
@@ -1,7 +1,9 @@
 package com.codahale.metrics.collectd;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.DoubleGauge;
 import com.codahale.metrics.Histogram;
+import com.codahale.metrics.LongGauge;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricAttribute;
 import com.codahale.metrics.MetricRegistry;
@@ -80,6 +82,27 @@ public class CollectdReporterTest {
         assertThat(nextValues(receiver)).containsExactly(value.doubleValue());
     }
 
+    @Test
+    public void reportsPrimitiveGauges() throws Exception {
+        reporter.report(
+                map("gauge", (LongGauge) () -> 42L),
+                map(),
+                map(),
+                map(),
+                map());
+
+        assertThat(nextValues(receiver)).containsExactly(42d);
+
+        reporter.report(
+                map("gauge", (DoubleGauge) () -> 0.125d),
+                map(),
+                map(),
+                map(),
+                map());
+
+        assertThat(nextValues(receiver)).containsExactly(0.125d);
+    }
+
     @Test
     public void reportsBooleanGauges() throws Exception {
         reporter.report(
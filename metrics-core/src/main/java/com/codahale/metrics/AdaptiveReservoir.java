@@ -0,0 +1,242 @@
+package com.codahale.metrics;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A reservoir which starts as a small buffer of the most recent values, and promotes itself to a
+ * full reservoir once it is updated often enough.
+ * <p>
+ * Most metrics of a large application, such as the timers of rarely used endpoints, are updated
+ * a few times per minute at most, yet every {@link ExponentiallyDecayingReservoir} keeps up to 1028
+ * samples, each in its own skip list node. Until it is promoted, an {@link AdaptiveReservoir} only
+ * keeps the last few values in a {@code long} array, which is only allocated on the first update,
+ * and its snapshots hold exactly these values. When more than a threshold of updates happen within
+ * a time window, it creates the full reservoir, replays the buffered values into it, and from then
+ * on delegates to it, so snapshots taken across the promotion still include the recent values.
+ * <p>
+ * Updates before the promotion are serialized by a lock, which is uncontended at the rates the
+ * buffer is meant for. After the promotion, the only overhead is reading a volatile field.
+ */
+public final class AdaptiveReservoir implements Reservoir {
+
+    private final int bufferSize;
+    private final int promotionThreshold;
+    private final long promotionWindowNanos;
+    private final Supplier<Reservoir> reservoirSupplier;
+    private final Clock clock;
+
+    private volatile Reservoir promoted;
+
+    // guarded by this until promoted
+    private long[] values;
+    private long count;
+    private long windowStart;
+    private int windowUpdates;
+
+    private AdaptiveReservoir(Builder builder) {
+        this.bufferSize = builder.bufferSize;
+        this.promotionThreshold = builder.promotionThreshold;
+        this.promotionWindowNanos = builder.promotionWindow.toNanos();
+        this.reservoirSupplier = builder.reservoirSupplier;
+        this.clock = builder.clock;
+        this.windowStart = clock.getTick();
+    }
+
+    // package private for the benefit of the unit test
+    boolean isPromoted() {
+        return promoted != null;
+    }
+
+    @Override
+    public int size() {
+        final Reservoir reservoir = promoted;
+        if (reservoir != null) {
+            return reservoir.size();
+        }
+        synchronized (this) {
+            return promoted != null ? promoted.size() : (int) Math.min(count, bufferSize);
+        }
+    }
+
+    @Override
+    public void update(long value) {
+        Reservoir reservoir = promoted;
+        if (reservoir == null) {
+            synchronized (this) {
+                reservoir = promoted;
+                if (reservoir == null) {
+                    record(value, clock.getTick());
+                    return;
+                }
+            }
+        }
+        reservoir.update(value);
+    }
+
+    @Override
+    public void update(long[] values, int offset, int length) {
+        BulkUpdates.checkBounds(values, offset, length);
+        Reservoir reservoir = promoted;
+        int recorded = 0;
+        if (reservoir == null) {
+            synchronized (this) {
+                final long now = clock.getTick();
+                while (recorded < length && promoted == null) {
+                    record(values[offset + recorded++], now);
+                }
+                reservoir = promoted;
+            }
+        }
+        if (recorded < length) {
+            reservoir.update(values, offset + recorded, length - recorded);
+        }
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        final Reservoir reservoir = promoted;
+        if (reservoir != null) {
+            return reservoir.getSnapshot();
+        }
+        final long[] copy;
+        synchronized (this) {
+            if (promoted != null) {
+                return promoted.getSnapshot();
+            }
+            copy = values == null ? new long[0] : Arrays.copyOf(values, (int) Math.min(count, bufferSize));
+        }
+        return new UniformSnapshot(copy);
+    }
+
+    @Override
+    public void reset() {
+        final Reservoir reservoir = promoted;
+        if (reservoir != null) {
+            // the reservoir stays promoted, as the rate which promoted it is likely to return
+            reservoir.reset();
+            return;
+        }
+        synchronized (this) {
+            if (promoted != null) {
+                promoted.reset();
+                return;
+            }
+            // the buffer is kept, as it would be allocated again by the next update
+            count = 0;
+            windowStart = clock.getTick();
+            windowUpdates = 0;
+        }
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        final long bytes = HeapEstimates.object(4 + 4 + 8 + 3 * HeapEstimates.REFERENCE + 8 + 8 + 4);
+        final Reservoir reservoir = promoted;
+        if (reservoir != null) {
+            return bytes + reservoir.estimateRetainedBytes();
+        }
+        synchronized (this) {
+            if (promoted != null) {
+                return bytes + promoted.estimateRetainedBytes();
+            }
+            return bytes + (values == null ? 0 : HeapEstimates.array(bufferSize, 8));
+        }
+    }
+
+    private void record(long value, long now) {
+        if (values == null) {
+            values = new long[bufferSize];
+        }
+        values[(int) (count++ % bufferSize)] = value;
+        if (now - windowStart >= promotionWindowNanos) {
+            windowStart = now;
+            windowUpdates = 0;
+        }
+        if (++windowUpdates >= promotionThreshold) {
+            promote();
+        }
+    }
+
+    private void promote() {
+        final Reservoir reservoir = reservoirSupplier.get();
+        // replay the buffered values from the oldest to the newest
+        final int size = (int) Math.min(count, bufferSize);
+        final int oldest = (int) ((count - size) % bufferSize);
+        reservoir.update(values, oldest, size - oldest);
+        reservoir.update(values, 0, oldest);
+        values = null;
+        promoted = reservoir;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * By default this buffers the last 16 values, and promotes itself to an
+     * {@link ExponentiallyDecayingReservoir} once it is updated 60 times within a minute.
+     */
+    public static final class Builder {
+        private static final int DEFAULT_BUFFER_SIZE = 16;
+        private static final int DEFAULT_PROMOTION_THRESHOLD = 60;
+        private static final Duration DEFAULT_PROMOTION_WINDOW = Duration.ofMinutes(1);
+
+        private int bufferSize = DEFAULT_BUFFER_SIZE;
+        private int promotionThreshold = DEFAULT_PROMOTION_THRESHOLD;
+        private Duration promotionWindow = DEFAULT_PROMOTION_WINDOW;
+        private Supplier<Reservoir> reservoirSupplier = ExponentiallyDecayingReservoir::new;
+        private Clock clock = Clock.defaultClock();
+
+        private Builder() {}
+
+        /**
+         * Number of recent values to keep until the reservoir is promoted.
+         */
+        public Builder bufferSize(int value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("AdaptiveReservoir buffer size must be positive: " + value);
+            }
+            this.bufferSize = value;
+            return this;
+        }
+
+        /**
+         * Number of updates within a time window which promote the reservoir.
+         */
+        public Builder promoteAfter(int updates, Duration window) {
+            if (updates <= 0) {
+                throw new IllegalArgumentException("AdaptiveReservoir promotion threshold must be positive: " + updates);
+            }
+            Objects.requireNonNull(window, "window is required");
+            if (window.isNegative() || window.isZero()) {
+                throw new IllegalArgumentException("AdaptiveReservoir promotion window must be positive: " + window);
+            }
+            this.promotionThreshold = updates;
+            this.promotionWindow = window;
+            return this;
+        }
+
+        /**
+         * Creates the full reservoir the reservoir is promoted to.
+         */
+        public Builder reservoir(Supplier<Reservoir> value) {
+            this.reservoirSupplier = Objects.requireNonNull(value, "reservoir is required");
+            return this;
+        }
+
+        /**
+         * Clock instance used to measure the update rate.
+         */
+        public Builder clock(Clock value) {
+            this.clock = Objects.requireNonNull(value, "clock is required");
+            return this;
+        }
+
+        public Reservoir build() {
+            return new AdaptiveReservoir(this);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.codahale.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A daemon thread which delivers the events of {@link MetricRegistry}s to their listeners, so that
+ * registering or removing a metric never runs listeners, such as the MBean registrations of a JMX
+ * reporter, on the caller's thread.
+ * <p>
+ * Events are queued and delivered in the order in which they happened, to the listeners which were
+ * registered at the time. Events queued while the thread was busy are delivered together through
+ * {@link MetricRegistryListener#onEvents(List)}. Exceptions thrown by listeners are logged.
+ *
+ * @see MetricRegistry#setListenerDispatcher(AsyncListenerDispatcher)
+ */
+public class AsyncListenerDispatcher implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncListenerDispatcher.class);
+    private static final AtomicInteger DISPATCHER_ID = new AtomicInteger();
+    private static final int DEFAULT_MAX_BATCH_SIZE = 1024;
+
+    private static final class Delivery {
+        final MetricRegistryListener[] listeners;
+        final List<MetricRegistryEvent> events;
+        final CountDownLatch delivered;
+
+        Delivery(MetricRegistryListener[] listeners, List<MetricRegistryEvent> events, CountDownLatch delivered) {
+            this.listeners = listeners;
+            this.events = events;
+            this.delivered = delivered;
+        }
+    }
+
+    private static final Delivery STOP = new Delivery(new MetricRegistryListener[0], Collections.emptyList(), null);
+
+    private final BlockingQueue<Delivery> queue = new LinkedBlockingQueue<>();
+    private final int maxBatchSize;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new {@link AsyncListenerDispatcher} which delivers up to 1024 queued events at once.
+     */
+    public AsyncListenerDispatcher() {
+        this(DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a new {@link AsyncListenerDispatcher}.
+     *
+     * @param maxBatchSize the maximum number of queued registry operations delivered at once
+     */
+    public AsyncListenerDispatcher(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.thread = new Thread(this::run, "metrics-listener-dispatcher-" + DISPATCHER_ID.incrementAndGet());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues events for delivery to the given listeners. Once the dispatcher is closed, the events
+     * are delivered on the caller's thread.
+     */
+    void dispatch(MetricRegistryListener[] listeners, List<MetricRegistryEvent> events) {
+        if (listeners.length == 0 || events.isEmpty()) {
+            return;
+        }
+        final Delivery delivery = new Delivery(listeners, events, null);
+        queue.add(delivery);
+        // if the thread may have stopped before seeing the delivery, take it back
+        if (closed && queue.remove(delivery)) {
+            notifyListeners(group(Collections.singletonList(delivery)));
+        }
+    }
+
+    /**
+     * Waits until the events queued so far have been delivered.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of {@code timeout}
+     * @return {@code true} if the events were delivered, {@code false} if the timeout elapsed first
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        final Delivery marker = new Delivery(new MetricRegistryListener[0], Collections.emptyList(), new CountDownLatch(1));
+        queue.add(marker);
+        if (closed && queue.remove(marker)) {
+            return true;
+        }
+        return marker.delivered.await(timeout, unit);
+    }
+
+    /**
+     * Delivers the events queued so far and stops the dispatcher thread. Later events are delivered
+     * on the thread which registers or removes metrics.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        queue.add(STOP);
+        if (Thread.currentThread() == thread) {
+            return;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        final List<Delivery> batch = new ArrayList<>();
+        boolean stopped = false;
+        while (!stopped) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, maxBatchSize - 1);
+            final List<Delivery> pending = new ArrayList<>();
+            for (Delivery delivery : batch) {
+                if (delivery == STOP) {
+                    stopped = true;
+                } else if (delivery.delivered != null) {
+                    notifyListeners(group(pending));
+                    pending.clear();
+                    delivery.delivered.countDown();
+                } else {
+                    pending.add(delivery);
+                }
+            }
+            notifyListeners(group(pending));
+            batch.clear();
+        }
+    }
+
+    private static Map<MetricRegistryListener, List<MetricRegistryEvent>> group(List<Delivery> deliveries) {
+        final Map<MetricRegistryListener, List<MetricRegistryEvent>> events = new LinkedHashMap<>();
+        for (Delivery delivery : deliveries) {
+            for (MetricRegistryListener listener : delivery.listeners) {
+                events.computeIfAbsent(listener, l -> new ArrayList<>()).addAll(delivery.events);
+            }
+        }
+        return events;
+    }
+
+    private static void notifyListeners(Map<MetricRegistryListener, List<MetricRegistryEvent>> events) {
+        for (Map.Entry<MetricRegistryListener, List<MetricRegistryEvent>> entry : events.entrySet()) {
+            try {
+                entry.getKey().onEvents(entry.getValue());
+            } catch (RuntimeException e) {
+                LOG.warn("Unable to notify listener {} of {} events", entry.getKey(), entry.getValue().size(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.codahale.metrics;
+
+/**
+ * Argument checks shared by the bulk {@code update(long[], int, int)} methods.
+ */
+final class BulkUpdates {
+
+    private BulkUpdates() {
+    }
+
+    static void checkBounds(long[] values, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > values.length - length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length
+                    + ") out of bounds for length " + values.length);
+        }
+    }
+}
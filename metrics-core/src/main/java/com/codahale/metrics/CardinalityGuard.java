@@ -0,0 +1,263 @@
+package com.codahale.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the metrics of a {@link MetricRegistry} to enforce its {@link CardinalityLimits}.
+ * <p>
+ * Each limited prefix has a queue of its evictable metrics in registration order, from which the
+ * least recently updated metric is picked with the second chance (or clock) algorithm: a metric
+ * whose count changed since it was last looked at is requeued, the first one which did not change
+ * is the victim. This approximates the least recently updated metric without touching anything
+ * when metrics are updated or looked up. Removed metrics are skipped when they come up in a queue, and
+ * swept out of it once they outnumber the metrics of the scope, so that removing a metric is O(1).
+ */
+final class CardinalityGuard {
+    // the queue of a scope is swept once it holds more removed metrics than this, and than live ones
+    static final int MIN_STALE_CANDIDATES = 64;
+
+    /**
+     * Returned by {@link #track(String, Metric)} when the registry as a whole is full.
+     */
+    static final Scope REGISTRY = new Scope("", Integer.MAX_VALUE);
+
+    static final class Scope {
+        final String prefix;
+        final int limit;
+        final AtomicInteger size = new AtomicInteger();
+        final Queue<Tracked> candidates = new ConcurrentLinkedQueue<>();
+        // an estimate of the removed metrics left in the queue
+        final AtomicInteger stale = new AtomicInteger();
+
+        Scope(String prefix, int limit) {
+            this.prefix = prefix;
+            this.limit = limit;
+        }
+
+        boolean contains(String name) {
+            return MetricIndex.isUnder(name, prefix);
+        }
+    }
+
+    static final class Tracked {
+        final String name;
+        final Metric metric;
+        final Scope scope;
+        volatile long lastCount;
+        volatile long lastUpdated;
+        volatile boolean untracked;
+
+        Tracked(String name, Metric metric, Scope scope, long now) {
+            this.name = name;
+            this.metric = metric;
+            this.scope = scope;
+            this.lastCount = metric instanceof Counting ? ((Counting) metric).getCount() : 0;
+            this.lastUpdated = now;
+        }
+
+        /**
+         * Returns whether the metric was updated since it was last looked at.
+         */
+        boolean refresh(long now) {
+            final long count = ((Counting) metric).getCount();
+            if (count != lastCount) {
+                lastCount = count;
+                lastUpdated = now;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private final CardinalityLimits limits;
+    private final Clock clock;
+    private final long expireAfterIdleNanos;
+    private final long sweepIntervalNanos;
+    private final AtomicLong nextSweep;
+    private final AtomicInteger size = new AtomicInteger();
+    private final Scope root;
+    // the most specific prefixes first
+    private final List<Scope> scopes;
+    private final ConcurrentMap<String, Tracked> tracked = new ConcurrentHashMap<>();
+
+    CardinalityGuard(CardinalityLimits limits) {
+        this.limits = limits;
+        this.clock = limits.getClock();
+        this.expireAfterIdleNanos = limits.getExpireAfterIdle() == null ? 0 : limits.getExpireAfterIdle().toNanos();
+        this.sweepIntervalNanos = Math.max(1, expireAfterIdleNanos / 2);
+        this.nextSweep = new AtomicLong(clock.getTick() + sweepIntervalNanos);
+        this.root = new Scope("", Integer.MAX_VALUE);
+        final List<Scope> scopes = new ArrayList<>();
+        for (Map.Entry<String, Integer> limit : limits.getPrefixLimits().entrySet()) {
+            scopes.add(new Scope(limit.getKey(), limit.getValue()));
+        }
+        scopes.sort(Comparator.comparingInt((Scope scope) -> scope.prefix.length()).reversed());
+        scopes.add(root);
+        this.scopes = Collections.unmodifiableList(scopes);
+    }
+
+    /**
+     * Counts a metric which is about to be registered.
+     *
+     * @return {@code null} if the metric fits in the limits, otherwise the scope which is full,
+     * {@link #REGISTRY} if it is the registry as a whole
+     */
+    Scope track(String name, Metric metric) {
+        final Scope scope = scopeOf(name);
+        if (size.incrementAndGet() > limits.getMaxMetrics()) {
+            size.decrementAndGet();
+            return REGISTRY;
+        }
+        if (scope.size.incrementAndGet() > scope.limit) {
+            scope.size.decrementAndGet();
+            size.decrementAndGet();
+            return scope;
+        }
+        final Tracked entry = new Tracked(name, metric, scope, clock.getTick());
+        if (tracked.putIfAbsent(name, entry) != null) {
+            // the name is taken, so registering the metric fails
+            release(scope);
+        } else if (metric instanceof Counting) {
+            scope.candidates.offer(entry);
+        }
+        return null;
+    }
+
+    /**
+     * Stops counting a metric which was removed, or could not be registered.
+     */
+    void untrack(String name, Metric metric) {
+        final Tracked entry = tracked.get(name);
+        if (entry != null && entry.metric == metric && tracked.remove(name, entry)) {
+            entry.untracked = true;
+            release(entry.scope);
+            if (metric instanceof Counting) {
+                discard(entry.scope);
+            }
+        }
+    }
+
+    /**
+     * Sweeps the removed metrics out of the queue of a scope once there are enough of them, as the
+     * queue is only polled when the scope is full and mustn't hold on to removed metrics meanwhile.
+     */
+    private static void discard(Scope scope) {
+        final int stale = scope.stale.incrementAndGet();
+        if (stale > MIN_STALE_CANDIDATES && stale > scope.size.get() && scope.stale.compareAndSet(stale, 0)) {
+            scope.candidates.removeIf(candidate -> candidate.untracked);
+        }
+    }
+
+    /**
+     * Picks a metric to evict to make room in a full scope, if the overflow policy allows it.
+     *
+     * @return the metric to evict, or null if the new metric has to be rejected
+     */
+    Tracked victim(String name, Scope full) {
+        if (limits.getOverflowPolicy() != CardinalityLimits.OverflowPolicy.EVICT_LEAST_RECENTLY_UPDATED) {
+            return null;
+        }
+        if (full != REGISTRY) {
+            return leastRecentlyUpdated(full);
+        }
+        final Tracked victim = leastRecentlyUpdated(scopeOf(name));
+        if (victim != null) {
+            return victim;
+        }
+        Scope largest = null;
+        for (Scope scope : scopes) {
+            if (largest == null || scope.size.get() > largest.size.get()) {
+                largest = scope;
+            }
+        }
+        return leastRecentlyUpdated(largest);
+    }
+
+    private Tracked leastRecentlyUpdated(Scope scope) {
+        final long now = clock.getTick();
+        int chances = scope.size.get();
+        Tracked entry;
+        while ((entry = scope.candidates.poll()) != null) {
+            if (entry.untracked) {
+                continue;
+            }
+            if (chances-- > 0 && entry.refresh(now)) {
+                scope.candidates.offer(entry);
+                continue;
+            }
+            return entry;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the metrics which have not been updated for longer than the idle expiration, if a
+     * sweep is due or forced.
+     */
+    List<Tracked> expired(boolean force) {
+        final List<Tracked> expired = new ArrayList<>();
+        if (expireAfterIdleNanos == 0) {
+            return expired;
+        }
+        final long now = clock.getTick();
+        final long next = nextSweep.get();
+        if (force) {
+            nextSweep.set(now + sweepIntervalNanos);
+        } else if (now - next < 0 || !nextSweep.compareAndSet(next, now + sweepIntervalNanos)) {
+            return expired;
+        }
+        for (Tracked entry : tracked.values()) {
+            if (entry.metric instanceof Counting && !entry.refresh(now)
+                    && now - entry.lastUpdated >= expireAfterIdleNanos) {
+                expired.add(entry);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Returns the name of the shared metric a rejected metric is replaced by.
+     */
+    String overflowName(String name, Metric metric) {
+        return MetricRegistry.name(scopeOf(name).prefix, limits.getOverflowName(), kind(metric));
+    }
+
+    Scope scopeOf(String name) {
+        for (Scope scope : scopes) {
+            if (scope.contains(name)) {
+                return scope;
+            }
+        }
+        return root;
+    }
+
+    private void release(Scope scope) {
+        scope.size.decrementAndGet();
+        size.decrementAndGet();
+    }
+
+    private static String kind(Metric metric) {
+        if (metric instanceof Gauge) {
+            return "gauge";
+        } else if (metric instanceof Counter) {
+            return "counter";
+        } else if (metric instanceof Histogram) {
+            return "histogram";
+        } else if (metric instanceof Meter) {
+            return "meter";
+        } else if (metric instanceof Timer) {
+            return "timer";
+        }
+        return "metric";
+    }
+}
@@ -0,0 +1,177 @@
+package com.codahale.metrics;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Limits on the number of metrics of a {@link MetricRegistry}, which protect it from names built from
+ * unbounded values, such as URLs, SQL statements or status codes sent by misbehaving clients.
+ * <p>
+ * A registry created with limits counts the metrics registered in it, in total and under each of
+ * the configured prefixes. A metric counts towards the most specific prefix its name starts with,
+ * e.g. {@code http.requests.get} counts towards {@code http.requests} rather than {@code http} if
+ * both prefixes are limited. When a limit is reached, new metrics are handled according to the
+ * {@link OverflowPolicy}. Metrics which are not updated for longer than
+ * {@link Builder#expireAfterIdle(Duration)} can also be removed.
+ * <p>
+ * Only {@link Counting} metrics (counters, histograms, meters and timers) are evicted. A metric is
+ * considered updated when its count changes, which the registry notices when it registers new
+ * metrics or when {@link MetricRegistry#evictIdleMetrics()} is called. Evicted metrics are removed
+ * like any other, so {@link MetricRegistryListener}s are notified of their removal.
+ *
+ * @see MetricRegistry#MetricRegistry(CardinalityLimits)
+ */
+public final class CardinalityLimits {
+
+    /**
+     * What a {@link MetricRegistry} does with a new metric which would exceed a limit.
+     */
+    public enum OverflowPolicy {
+        /**
+         * The metric is not registered. Metrics obtained from {@link MetricRegistry#counter(String)}
+         * and the like are replaced by a shared overflow metric of the same type, named after the
+         * limited prefix, {@link Builder#overflowName(String)} and the type of the metric, e.g.
+         * {@code http.overflow.meter}. Gauges, whose values can't be shared, and metrics passed to
+         * {@link MetricRegistry#register(String, Metric)} are returned as is, but not reported.
+         */
+        REJECT,
+
+        /**
+         * The least recently updated metric under the same limit is evicted to make room for the new
+         * one. If no metric can be evicted, the new metric is rejected as with {@link #REJECT}.
+         */
+        EVICT_LEAST_RECENTLY_UPDATED
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private final int maxMetrics;
+    private final Map<String, Integer> prefixLimits;
+    private final OverflowPolicy overflowPolicy;
+    private final String overflowName;
+    private final Duration expireAfterIdle;
+    private final Clock clock;
+
+    private CardinalityLimits(Builder builder) {
+        this.maxMetrics = builder.maxMetrics;
+        this.prefixLimits = Collections.unmodifiableMap(new LinkedHashMap<>(builder.prefixLimits));
+        this.overflowPolicy = builder.overflowPolicy;
+        this.overflowName = builder.overflowName;
+        this.expireAfterIdle = builder.expireAfterIdle;
+        this.clock = builder.clock;
+    }
+
+    int getMaxMetrics() {
+        return maxMetrics;
+    }
+
+    Map<String, Integer> getPrefixLimits() {
+        return prefixLimits;
+    }
+
+    OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    String getOverflowName() {
+        return overflowName;
+    }
+
+    Duration getExpireAfterIdle() {
+        return expireAfterIdle;
+    }
+
+    Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * By default there is no limit on the number of metrics, overflowing metrics are rejected into
+     * metrics named {@code overflow}, and metrics never expire.
+     */
+    public static final class Builder {
+        private int maxMetrics = Integer.MAX_VALUE;
+        private final Map<String, Integer> prefixLimits = new LinkedHashMap<>();
+        private OverflowPolicy overflowPolicy = OverflowPolicy.REJECT;
+        private String overflowName = "overflow";
+        private Duration expireAfterIdle;
+        private Clock clock = Clock.defaultClock();
+
+        private Builder() {}
+
+        /**
+         * Maximum number of metrics in the registry.
+         */
+        public Builder maxMetrics(int value) {
+            this.maxMetrics = checkLimit(value);
+            return this;
+        }
+
+        /**
+         * Maximum number of metrics whose names start with the given prefix, followed by a period or,
+         * for tagged {@link MetricName}s, a semicolon, and which are not under a more specific limited
+         * prefix.
+         */
+        public Builder maxMetrics(String prefix, int value) {
+            Objects.requireNonNull(prefix, "prefix is required");
+            if (prefix.isEmpty()) {
+                throw new IllegalArgumentException("prefix must not be empty");
+            }
+            prefixLimits.put(prefix, checkLimit(value));
+            return this;
+        }
+
+        /**
+         * What to do with new metrics which would exceed a limit.
+         */
+        public Builder overflowPolicy(OverflowPolicy value) {
+            this.overflowPolicy = Objects.requireNonNull(value, "overflowPolicy is required");
+            return this;
+        }
+
+        /**
+         * The name of the shared metrics which overflowing metrics are rejected into, under their
+         * prefix.
+         */
+        public Builder overflowName(String value) {
+            this.overflowName = Objects.requireNonNull(value, "overflowName is required");
+            return this;
+        }
+
+        /**
+         * Duration after which metrics which have not been updated are removed.
+         */
+        public Builder expireAfterIdle(Duration value) {
+            Objects.requireNonNull(value, "expireAfterIdle is required");
+            if (value.isNegative() || value.isZero()) {
+                throw new IllegalArgumentException("expireAfterIdle must be positive: " + value);
+            }
+            this.expireAfterIdle = value;
+            return this;
+        }
+
+        /**
+         * Clock instance used to tell when metrics were last updated.
+         */
+        public Builder clock(Clock value) {
+            this.clock = Objects.requireNonNull(value, "clock is required");
+            return this;
+        }
+
+        public CardinalityLimits build() {
+            return new CardinalityLimits(this);
+        }
+
+        private static int checkLimit(int value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Limit must be positive: " + value);
+            }
+            return value;
+        }
+    }
+}
@@ -70,6 +70,26 @@ class ChunkedAssociativeLongArray {
         return true;
     }
 
+    /**
+     * Appends a batch of values with consecutive keys, starting at {@code firstKey}.
+     */
+    synchronized boolean put(long firstKey, long[] values, int offset, int length) {
+        Chunk activeChunk = chunks.peekLast();
+        if (activeChunk != null && activeChunk.cursor != 0 && activeChunk.keys[activeChunk.cursor - 1] > firstKey) {
+            // key should be the same as last inserted or bigger
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (activeChunk == null || activeChunk.cursor - activeChunk.startIndex == activeChunk.chunkSize) {
+                // The last chunk doesn't exist or full
+                activeChunk = allocateChunk();
+                chunks.add(activeChunk);
+            }
+            activeChunk.append(firstKey + i, values[offset + i]);
+        }
+        return true;
+    }
+
     synchronized long[] values() {
         final int valuesSize = size();
         if (valuesSize == 0) {
@@ -95,6 +115,26 @@ class ChunkedAssociativeLongArray {
         return result;
     }
 
+    /**
+     * Estimates the bytes retained by the chunks in use. Cached chunks are only softly reachable,
+     * and are therefore not included.
+     */
+    synchronized long estimateRetainedBytes() {
+        long bytes = HeapEstimates.object(4 + 2 * HeapEstimates.REFERENCE) + arrayDeque(chunksCache.size())
+                + arrayDeque(chunks.size());
+        for (Chunk chunk : chunks) {
+            bytes += HeapEstimates.object(2 * HeapEstimates.REFERENCE + 3 * 4)
+                    + 2 * HeapEstimates.array(chunk.keys.length, 8);
+        }
+        return bytes;
+    }
+
+    private static long arrayDeque(int size) {
+        final int capacity = Math.max(16, Integer.highestOneBit(size) << 1);
+        return HeapEstimates.object(2 * HeapEstimates.REFERENCE + 2 * 4)
+                + HeapEstimates.array(capacity, HeapEstimates.REFERENCE);
+    }
+
     synchronized String out() {
         final StringBuilder builder = new StringBuilder();
         final Iterator<Chunk> iterator = chunks.iterator();
@@ -0,0 +1,141 @@
+package com.codahale.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A memory-compact triple of simple moving average rates (one, five and fifteen minutes rates) as
+ * needed by {@link Meter}.
+ * <p>
+ * The rates have the same semantics as the ones of {@link SlidingTimeWindowMovingAverages}: one
+ * bucket per second for the 15 minutes time window, every event in the window having the same
+ * weight. Instead of one {@link LongAdder} per bucket, the counts of completed seconds are kept in a
+ * single array of {@code long}s, and only the current second is accumulated in a striped
+ * {@link LongAdder}, which is folded into the array when the clock moves on to the next second.
+ * This keeps the footprint of a meter at a few kilobytes, regardless of how many threads mark it.
+ */
+public class CompactSlidingTimeWindowMovingAverages implements MovingAverages {
+
+    private static final long TICK_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    // package private for the benefit of the unit test
+    static final int NUMBER_OF_BUCKETS = (int) (TimeUnit.MINUTES.toNanos(15) / TICK_INTERVAL);
+
+    private final Clock clock;
+    private final long baseTick;
+    private final AtomicLong lastTick;
+
+    /**
+     * The counts of the completed seconds of the time window, indexed by second modulo the number
+     * of buckets
+     */
+    private final AtomicLongArray buckets;
+
+    /**
+     * The count of the current second, i.e. the one starting at lastTick
+     */
+    private final LongAdder current;
+
+    /**
+     * Creates a new {@link CompactSlidingTimeWindowMovingAverages}.
+     */
+    public CompactSlidingTimeWindowMovingAverages() {
+        this(Clock.defaultClock());
+    }
+
+    /**
+     * Creates a new {@link CompactSlidingTimeWindowMovingAverages}.
+     *
+     * @param clock the clock to use for the meter ticks
+     */
+    public CompactSlidingTimeWindowMovingAverages(Clock clock) {
+        this.clock = clock;
+        this.baseTick = clock.getTick();
+        this.lastTick = new AtomicLong(baseTick);
+        this.buckets = new AtomicLongArray(NUMBER_OF_BUCKETS);
+        this.current = new LongAdder();
+    }
+
+    @Override
+    public void update(long n) {
+        current.add(n);
+    }
+
+    @Override
+    public void tickIfNecessary() {
+        final long oldTick = lastTick.get();
+        final long newTick = clock.getTick();
+        final long age = newTick - oldTick;
+        if (age >= TICK_INTERVAL) {
+            // newLastTick is the lower border time of the second newTick falls into
+            final long newLastTick = newTick - age % TICK_INTERVAL;
+            if (lastTick.compareAndSet(oldTick, newLastTick)) {
+                advance(second(oldTick), second(newLastTick));
+            }
+        }
+    }
+
+    private void advance(long oldSecond, long newSecond) {
+        if (newSecond - oldSecond >= NUMBER_OF_BUCKETS) {
+            // nothing recorded so far is in the time window anymore
+            current.reset();
+            for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            return;
+        }
+        buckets.set(index(oldSecond), current.sumThenReset());
+        for (long second = oldSecond + 1; second < newSecond; second++) {
+            buckets.set(index(second), 0);
+        }
+    }
+
+    @Override
+    public double getM15Rate() {
+        return getMinuteRate(15);
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        current.reset();
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        return HeapEstimates.object(4 * HeapEstimates.REFERENCE + 8) + HeapEstimates.ATOMIC_LONG
+                + HeapEstimates.atomicLongArray(NUMBER_OF_BUCKETS) + HeapEstimates.LONG_ADDER;
+    }
+
+    @Override
+    public double getM5Rate() {
+        return getMinuteRate(5);
+    }
+
+    @Override
+    public double getM1Rate() {
+        return getMinuteRate(1);
+    }
+
+    private double getMinuteRate(int minutes) {
+        final long now = second(lastTick.get());
+        final long from = Math.max(0, now - TimeUnit.MINUTES.toSeconds(minutes) + 1);
+        long sum = current.sum();
+        for (long second = from; second < now; second++) {
+            sum += buckets.get(index(second));
+        }
+        return sum;
+    }
+
+    private long second(long tick) {
+        return (tick - baseTick) / TICK_INTERVAL;
+    }
+
+    private static int index(long second) {
+        return (int) (second % NUMBER_OF_BUCKETS);
+    }
+}
@@ -53,4 +53,17 @@ public class Counter implements Metric, Counting {
     public long getCount() {
         return count.sum();
     }
+
+    /**
+     * Sets the counter back to zero. Increments and decrements which happen concurrently with a
+     * reset may or may not be kept.
+     */
+    public void reset() {
+        count.reset();
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        return HeapEstimates.object(HeapEstimates.REFERENCE) + HeapEstimates.LONG_ADDER;
+    }
 }
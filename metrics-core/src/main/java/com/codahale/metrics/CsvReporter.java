@@ -317,7 +317,14 @@ public class CsvReporter extends ScheduledReporter {
     }
 
     private void reportGauge(long timestamp, String name, Gauge<?> gauge) {
-        report(timestamp, name, "value", "%s", gauge.getValue());
+        // same output as formatting the boxed value with %s
+        if (gauge instanceof LongGauge) {
+            report(timestamp, name, "value", "%s", Long.toString(((LongGauge) gauge).getLongValue()));
+        } else if (gauge instanceof DoubleGauge) {
+            report(timestamp, name, "value", "%s", Double.toString(((DoubleGauge) gauge).getDoubleValue()));
+        } else {
+            report(timestamp, name, "value", "%s", gauge.getValue());
+        }
     }
 
     private void report(long timestamp, String name, String header, String line, Object... values) {
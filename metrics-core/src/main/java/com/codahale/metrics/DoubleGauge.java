@@ -0,0 +1,28 @@
+package com.codahale.metrics;
+
+/**
+ * A {@link Gauge} of a primitive {@code double} value. Reporters which recognize it read the value
+ * with {@link #getDoubleValue()}, without boxing it. To instrument a cache's hit ratio, for example:<br>
+ * <pre><code>
+ * final DoubleGauge hitRatio = () -&gt; (double) hits.sum() / calls.sum();
+ * </code></pre>
+ */
+@FunctionalInterface
+public interface DoubleGauge extends Gauge<Double> {
+    /**
+     * Returns the metric's current value.
+     *
+     * @return the metric's current value
+     */
+    double getDoubleValue();
+
+    /**
+     * Returns the metric's current value, boxed.
+     *
+     * @return the metric's current value
+     */
+    @Override
+    default Double getValue() {
+        return getDoubleValue();
+    }
+}
@@ -89,19 +89,49 @@ public class EWMA {
         rate = Double.MIN_NORMAL;
     }
 
+    /**
+     * Returns the EWMA to the state it was created in, so that the next tick sets the rate to the
+     * instant rate rather than decaying towards it.
+     */
+    void clear() {
+        uncounted.reset();
+        rate = 0.0;
+        initialized = false;
+    }
+
     /**
      * Mark the passage of time and decay the current rate accordingly.
      */
     public void tick() {
+        tick(1);
+    }
+
+    /**
+     * Mark the passage of {@code n} intervals and decay the current rate accordingly. This has the
+     * same result as calling {@link #tick()} {@code n} times, but takes constant time: the first
+     * interval accounts for the uncounted values and every further one decays the rate by
+     * {@code (1 - alpha)}, so the remaining intervals are applied as a single power.
+     *
+     * @param n the number of elapsed intervals
+     */
+    public void tick(long n) {
+        if (n <= 0) {
+            return;
+        }
         final long count = uncounted.sumThenReset();
         final double instantRate = count / interval;
+        double newRate;
         if (initialized) {
             final double oldRate = this.rate;
-            rate = oldRate + (alpha * (instantRate - oldRate));
+            newRate = oldRate + (alpha * (instantRate - oldRate));
         } else {
-            rate = instantRate;
+            newRate = instantRate;
             initialized = true;
         }
+        if (n > 1) {
+            newRate *= Math.pow(1 - alpha, (double) (n - 1));
+        }
+        rate = newRate;
     }
 
     /**
@@ -18,6 +18,9 @@ public class ExponentialMovingAverages implements MovingAverages {
     private static final double maxTickZeroTarget = 0.0001;
     private static final int maxTicks;
     private static final long TICK_INTERVAL = TimeUnit.SECONDS.toNanos(5);
+    // the flag, the rate, the alpha and the interval of an EWMA, and its adder of uncounted events
+    private static final long EWMA_BYTES = HeapEstimates.object(1 + 8 + 8 + 8 + HeapEstimates.REFERENCE)
+            + HeapEstimates.LONG_ADDER;
 
     static
     {
@@ -78,12 +81,9 @@ public class ExponentialMovingAverages implements MovingAverages {
                 }
                 else
                 {
-                    for (long i = 0; i < requiredTicks; i++)
-                    {
-                        m1Rate.tick();
-                        m5Rate.tick();
-                        m15Rate.tick();
-                    }
+                    m1Rate.tick(requiredTicks);
+                    m5Rate.tick(requiredTicks);
+                    m15Rate.tick(requiredTicks);
                 }
             }
         }
@@ -103,4 +103,17 @@ public class ExponentialMovingAverages implements MovingAverages {
     public double getM15Rate() {
         return m15Rate.getRate(TimeUnit.SECONDS);
     }
+
+    @Override
+    public void reset() {
+        m1Rate.clear();
+        m5Rate.clear();
+        m15Rate.clear();
+        lastTick.set(clock.getTick());
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        return HeapEstimates.object(5 * HeapEstimates.REFERENCE) + 3 * EWMA_BYTES + HeapEstimates.ATOMIC_LONG;
+    }
 }
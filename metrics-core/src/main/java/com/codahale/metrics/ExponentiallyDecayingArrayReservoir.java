@@ -0,0 +1,297 @@
+package com.codahale.metrics;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An exponentially-decaying random reservoir of {@code long}s backed by primitive arrays. Uses
+ * Cormode et al's forward-decaying priority reservoir sampling method to produce a statistically
+ * representative sampling reservoir, exponentially biased towards newer entries.
+ *
+ * @see <a href="http://dimacs.rutgers.edu/~graham/pubs/papers/fwddecay.pdf">
+ * Cormode et al. Forward Decay: A Practical Time Decay Model for Streaming Systems. ICDE '09:
+ * Proceedings of the 2009 IEEE International Conference on Data Engineering (2009)</a>
+ *
+ * {@link ExponentiallyDecayingArrayReservoir} keeps the same samples as the
+ * {@link ExponentiallyDecayingReservoir}, but stores the priorities, values and weights in parallel
+ * arrays ordered as a binary min-heap on priority instead of a {@link java.util.concurrent.ConcurrentSkipListMap}.
+ * Accepting a sample replaces the root of the heap in place, rescaling multiplies the arrays in place
+ * (which preserves the heap order), and snapshots copy the arrays, so none of these allocate per sample.
+ * Updates and snapshots are serialized by a single lock which is held for {@code O(log n)} and
+ * {@code O(n)} respectively.
+ */
+public final class ExponentiallyDecayingArrayReservoir implements Reservoir {
+
+    private static final double SECONDS_PER_NANO = .000_000_001D;
+
+    private final double alphaNanos;
+    private final long rescaleThresholdNanos;
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final double[] priorities;
+    private final long[] values;
+    private final double[] weights;
+    private int count;
+    private long startTick;
+
+    private ExponentiallyDecayingArrayReservoir(int size, double alpha, Duration rescaleThreshold, Clock clock) {
+        // Scale alpha to nanoseconds
+        this.alphaNanos = alpha * SECONDS_PER_NANO;
+        this.rescaleThresholdNanos = rescaleThreshold.toNanos();
+        this.clock = clock;
+        this.priorities = new double[size];
+        this.values = new long[size];
+        this.weights = new double[size];
+        this.startTick = clock.getTick();
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void update(long value) {
+        final long now = clock.getTick();
+        final double random = ThreadLocalRandom.current().nextDouble();
+        lock.lock();
+        try {
+            rescaleIfNeeded(now);
+            final double itemWeight = Math.exp(alphaNanos * (now - startTick));
+            final double priority = itemWeight / random;
+            if (count < priorities.length) {
+                set(count, priority, value, itemWeight);
+                siftUp(count++);
+            } else if (priorities[0] < priority) {
+                set(0, priority, value, itemWeight);
+                siftDown(0);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void update(long[] values, int offset, int length) {
+        BulkUpdates.checkBounds(values, offset, length);
+        if (length == 0) {
+            return;
+        }
+        // the whole batch is recorded at the same instant, and therefore with the same weight
+        final long now = clock.getTick();
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        lock.lock();
+        try {
+            rescaleIfNeeded(now);
+            final double itemWeight = Math.exp(alphaNanos * (now - startTick));
+            for (int i = offset; i < offset + length; i++) {
+                final double priority = itemWeight / random.nextDouble();
+                if (count < priorities.length) {
+                    set(count, priority, values[i], itemWeight);
+                    siftUp(count++);
+                } else if (priorities[0] < priority) {
+                    set(0, priority, values[i], itemWeight);
+                    siftDown(0);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        final long now = clock.getTick();
+        final long[] valuesCopy;
+        final double[] weightsCopy;
+        lock.lock();
+        try {
+            rescaleIfNeeded(now);
+            valuesCopy = new long[count];
+            weightsCopy = new double[count];
+            System.arraycopy(values, 0, valuesCopy, 0, count);
+            System.arraycopy(weights, 0, weightsCopy, 0, count);
+        } finally {
+            lock.unlock();
+        }
+        return new WeightedSnapshot(valuesCopy, weightsCopy);
+    }
+
+    @Override
+    public void reset() {
+        final long now = clock.getTick();
+        lock.lock();
+        try {
+            count = 0;
+            startTick = now;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        return HeapEstimates.object(8 + 8 + 5 * HeapEstimates.REFERENCE + 4 + 8) + HeapEstimates.REENTRANT_LOCK
+                + 3 * HeapEstimates.array(priorities.length, 8);
+    }
+
+    private void rescaleIfNeeded(long now) {
+        if (now - startTick >= rescaleThresholdNanos) {
+            rescale(now);
+        }
+    }
+
+    /* "A common feature of the above techniques—indeed, the key technique that
+     * allows us to track the decayed weights efficiently—is that they maintain
+     * counts and other quantities based on g(ti − L), and only scale by g(t − L)
+     * at query time. But while g(ti −L)/g(t−L) is guaranteed to lie between zero
+     * and one, the intermediate values of g(ti − L) could become very large. For
+     * polynomial functions, these values should not grow too large, and should be
+     * effectively represented in practice by floating point values without loss of
+     * precision. For exponential functions, these values could grow quite large as
+     * new values of (ti − L) become large, and potentially exceed the capacity of
+     * common floating point types. However, since the values stored by the
+     * algorithms are linear combinations of g values (scaled sums), they can be
+     * rescaled relative to a new landmark. That is, by the analysis of exponential
+     * decay in Section III-A, the choice of L does not affect the final result. We
+     * can therefore multiply each value based on L by a factor of exp(−α(L′ − L)),
+     * and obtain the correct value as if we had instead computed relative to a new
+     * landmark L′ (and then use this new L′ at query time). This can be done with
+     * a linear pass over whatever data structure is being used."
+     */
+    private void rescale(long now) {
+        final double scalingFactor = Math.exp(-alphaNanos * (now - startTick));
+        startTick = now;
+        if (Double.compare(scalingFactor, 0) == 0) {
+            count = 0;
+            return;
+        }
+        // scaling every priority by the same factor keeps the heap ordered, only samples whose
+        // weight underflowed to zero have to be dropped
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            final double newWeight = weights[i] * scalingFactor;
+            if (Double.compare(newWeight, 0) != 0) {
+                set(kept++, priorities[i] * scalingFactor, values[i], newWeight);
+            }
+        }
+        if (kept != count) {
+            count = kept;
+            for (int i = (count >>> 1) - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+    }
+
+    private void set(int index, double priority, long value, double weight) {
+        priorities[index] = priority;
+        values[index] = value;
+        weights[index] = weight;
+    }
+
+    private void siftUp(int index) {
+        final double priority = priorities[index];
+        final long value = values[index];
+        final double weight = weights[index];
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            set(index, priorities[parent], values[parent], weights[parent]);
+            index = parent;
+        }
+        set(index, priority, value, weight);
+    }
+
+    private void siftDown(int index) {
+        final double priority = priorities[index];
+        final long value = values[index];
+        final double weight = weights[index];
+        final int half = count >>> 1;
+        while (index < half) {
+            int child = (index << 1) + 1;
+            final int right = child + 1;
+            if (right < count && priorities[right] < priorities[child]) {
+                child = right;
+            }
+            if (priority <= priorities[child]) {
+                break;
+            }
+            set(index, priorities[child], values[child], weights[child]);
+            index = child;
+        }
+        set(index, priority, value, weight);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * By default this uses a size of 1028 elements, which offers a 99.9%
+     * confidence level with a 5% margin of error assuming a normal distribution, and an alpha
+     * factor of 0.015, which heavily biases the reservoir to the past 5 minutes of measurements.
+     */
+    public static final class Builder {
+        private static final int DEFAULT_SIZE = 1028;
+        private static final double DEFAULT_ALPHA = 0.015D;
+        private static final Duration DEFAULT_RESCALE_THRESHOLD = Duration.ofHours(1);
+
+        private int size = DEFAULT_SIZE;
+        private double alpha = DEFAULT_ALPHA;
+        private Duration rescaleThreshold = DEFAULT_RESCALE_THRESHOLD;
+        private Clock clock = Clock.defaultClock();
+
+        private Builder() {}
+
+        /**
+         * Maximum number of samples to keep in the reservoir. Once this number is reached older samples are
+         * replaced (based on weight, with some amount of random jitter).
+         */
+        public Builder size(int value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(
+                        "ExponentiallyDecayingArrayReservoir size must be positive: " + value);
+            }
+            this.size = value;
+            return this;
+        }
+
+        /**
+         * Alpha is the exponential decay factor. Higher values bias results more heavily toward newer values.
+         */
+        public Builder alpha(double value) {
+            this.alpha = value;
+            return this;
+        }
+
+        /**
+         * Interval at which this reservoir is rescaled.
+         */
+        public Builder rescaleThreshold(Duration value) {
+            this.rescaleThreshold = Objects.requireNonNull(value, "rescaleThreshold is required");
+            return this;
+        }
+
+        /**
+         * Clock instance used for decay.
+         */
+        public Builder clock(Clock value) {
+            this.clock = Objects.requireNonNull(value, "clock is required");
+            return this;
+        }
+
+        public Reservoir build() {
+            return new ExponentiallyDecayingArrayReservoir(size, alpha, rescaleThreshold, clock);
+        }
+    }
+}
@@ -95,26 +95,50 @@ public class ExponentiallyDecayingReservoir implements Reservoir {
         lockForRegularUsage();
         try {
             final double itemWeight = weight(timestamp - startTime);
-            final WeightedSample sample = new WeightedSample(value, itemWeight);
             final double priority = itemWeight / ThreadLocalRandom.current().nextDouble();
+            addSample(value, itemWeight, priority, count.incrementAndGet());
+        } finally {
+            unlockForRegularUsage();
+        }
+    }
 
-            final long newCount = count.incrementAndGet();
-            if (newCount <= size || values.isEmpty()) {
-                values.put(priority, sample);
-            } else {
-                Double first = values.firstKey();
-                if (first < priority && values.putIfAbsent(priority, sample) == null) {
-                    // ensure we always remove an item
-                    while (values.remove(first) == null) {
-                        first = values.firstKey();
-                    }
-                }
+    @Override
+    public void update(long[] values, int offset, int length) {
+        BulkUpdates.checkBounds(values, offset, length);
+        if (length == 0) {
+            return;
+        }
+        // the whole batch is recorded at the same instant, and therefore with the same weight
+        final long timestamp = currentTimeInSeconds();
+        rescaleIfNeeded();
+        lockForRegularUsage();
+        try {
+            final double itemWeight = weight(timestamp - startTime);
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final long firstCount = count.getAndAdd(length) + 1;
+            for (int i = 0; i < length; i++) {
+                addSample(values[offset + i], itemWeight, itemWeight / random.nextDouble(), firstCount + i);
             }
         } finally {
             unlockForRegularUsage();
         }
     }
 
+    private void addSample(long value, double itemWeight, double priority, long newCount) {
+        final WeightedSample sample = new WeightedSample(value, itemWeight);
+        if (newCount <= size || values.isEmpty()) {
+            values.put(priority, sample);
+        } else {
+            Double first = values.firstKey();
+            if (first < priority && values.putIfAbsent(priority, sample) == null) {
+                // ensure we always remove an item
+                while (values.remove(first) == null) {
+                    first = values.firstKey();
+                }
+            }
+        }
+    }
+
     private void rescaleIfNeeded() {
         final long now = clock.getTick();
         final long lastScaleTickSnapshot = lastScaleTick.get();
@@ -134,6 +158,27 @@ public class ExponentiallyDecayingReservoir implements Reservoir {
         }
     }
 
+    @Override
+    public void reset() {
+        lockForRescale();
+        try {
+            values.clear();
+            count.set(0);
+            startTime = currentTimeInSeconds();
+            lastScaleTick.set(clock.getTick());
+        } finally {
+            unlockForRescale();
+        }
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        // every sample is a weighted sample keyed by its boxed priority
+        return HeapEstimates.object(6 * HeapEstimates.REFERENCE + 8 + 4 + 8)
+                + HeapEstimates.skipList(size(), HeapEstimates.BOXED_LONG + HeapEstimates.WEIGHTED_SAMPLE)
+                + HeapEstimates.REENTRANT_READ_WRITE_LOCK + 2 * HeapEstimates.ATOMIC_LONG;
+    }
+
     private long currentTimeInSeconds() {
         return TimeUnit.MILLISECONDS.toSeconds(clock.getTime());
     }
@@ -0,0 +1,236 @@
+package com.codahale.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Point-in-time copies of histograms, meters and timers, whose snapshots and rates are computed in
+ * parallel on a {@link ForkJoinPool}, so that a {@link ScheduledReporter} doesn't compute them one
+ * after the other on its own thread. The copies return the values their metric had when it was
+ * frozen, and can't be updated.
+ *
+ * @see ScheduledReporter#setSnapshotPool(ForkJoinPool)
+ */
+final class FrozenMetrics {
+    // below this number of metrics, a task freezes them itself rather than splitting them further
+    private static final int THRESHOLD = 16;
+
+    private final SortedMap<String, Histogram> histograms;
+    private final SortedMap<String, Meter> meters;
+    private final SortedMap<String, Timer> timers;
+
+    private FrozenMetrics(SortedMap<String, Histogram> histograms,
+                          SortedMap<String, Meter> meters,
+                          SortedMap<String, Timer> timers) {
+        this.histograms = histograms;
+        this.meters = meters;
+        this.timers = timers;
+    }
+
+    static FrozenMetrics freeze(SortedMap<String, Histogram> histograms,
+                                SortedMap<String, Meter> meters,
+                                SortedMap<String, Timer> timers,
+                                ForkJoinPool pool) {
+        // the three kinds are frozen by the same tasks, so the pool is kept busy whatever their mix
+        final Metric[] metrics = new Metric[histograms.size() + meters.size() + timers.size()];
+        int i = 0;
+        for (Metric metric : histograms.values()) {
+            metrics[i++] = metric;
+        }
+        for (Metric metric : meters.values()) {
+            metrics[i++] = metric;
+        }
+        for (Metric metric : timers.values()) {
+            metrics[i++] = metric;
+        }
+        final Metric[] frozen = new Metric[metrics.length];
+        pool.invoke(new FreezeTask(metrics, frozen, 0, metrics.length));
+
+        final int[] offset = {0};
+        return new FrozenMetrics(collect(histograms, frozen, offset),
+                collect(meters, frozen, offset),
+                collect(timers, frozen, offset));
+    }
+
+    SortedMap<String, Histogram> getHistograms() {
+        return histograms;
+    }
+
+    SortedMap<String, Meter> getMeters() {
+        return meters;
+    }
+
+    SortedMap<String, Timer> getTimers() {
+        return timers;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Metric> SortedMap<String, T> collect(SortedMap<String, T> metrics,
+                                                                   Metric[] frozen,
+                                                                   int[] offset) {
+        final TreeMap<String, T> collected = new TreeMap<>(metrics.comparator());
+        for (Map.Entry<String, T> entry : metrics.entrySet()) {
+            collected.put(entry.getKey(), (T) frozen[offset[0]++]);
+        }
+        return Collections.unmodifiableSortedMap(collected);
+    }
+
+    static Metric freeze(Metric metric) {
+        if (metric instanceof Timer) {
+            final Timer timer = (Timer) metric;
+            return new Timer(new FrozenMeter(timer),
+                    new FrozenHistogram(timer.getCount(), timer.getSnapshot()),
+                    Clock.defaultClock());
+        } else if (metric instanceof Meter) {
+            return new FrozenMeter((Meter) metric);
+        }
+        final Histogram histogram = (Histogram) metric;
+        return new FrozenHistogram(histogram.getCount(), histogram.getSnapshot());
+    }
+
+    private static final class FreezeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Metric[] metrics;
+        private final Metric[] frozen;
+        private final int from;
+        private final int to;
+
+        FreezeTask(Metric[] metrics, Metric[] frozen, int from, int to) {
+            this.metrics = metrics;
+            this.frozen = frozen;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    frozen[i] = freeze(metrics[i]);
+                }
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(new FreezeTask(metrics, frozen, from, middle), new FreezeTask(metrics, frozen, middle, to));
+        }
+    }
+
+    private static final class FrozenHistogram extends Histogram {
+        private final long count;
+
+        FrozenHistogram(long count, Snapshot snapshot) {
+            super(new FrozenReservoir(snapshot));
+            this.count = count;
+        }
+
+        @Override
+        public void update(int value) {
+            throw new UnsupportedOperationException("A frozen histogram can't be updated");
+        }
+
+        @Override
+        public void update(long value) {
+            throw new UnsupportedOperationException("A frozen histogram can't be updated");
+        }
+
+        @Override
+        public void update(long[] values, int offset, int length) {
+            throw new UnsupportedOperationException("A frozen histogram can't be updated");
+        }
+
+        @Override
+        public long getCount() {
+            return count;
+        }
+    }
+
+    private static final class FrozenReservoir implements Reservoir {
+        private final Snapshot snapshot;
+
+        FrozenReservoir(Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public int size() {
+            return snapshot.size();
+        }
+
+        @Override
+        public void update(long value) {
+            throw new UnsupportedOperationException("A frozen reservoir can't be updated");
+        }
+
+        @Override
+        public Snapshot getSnapshot() {
+            return snapshot;
+        }
+    }
+
+    private static final class FrozenMeter extends Meter {
+        private final long count;
+        private final double meanRate;
+
+        FrozenMeter(Metered metered) {
+            super(new FrozenRates(metered), Clock.defaultClock());
+            this.count = metered.getCount();
+            this.meanRate = metered.getMeanRate();
+        }
+
+        @Override
+        public void mark(long n) {
+            throw new UnsupportedOperationException("A frozen meter can't be marked");
+        }
+
+        @Override
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public double getMeanRate() {
+            return meanRate;
+        }
+    }
+
+    private static final class FrozenRates implements MovingAverages {
+        private final double m1Rate;
+        private final double m5Rate;
+        private final double m15Rate;
+
+        FrozenRates(Metered metered) {
+            this.m1Rate = metered.getOneMinuteRate();
+            this.m5Rate = metered.getFiveMinuteRate();
+            this.m15Rate = metered.getFifteenMinuteRate();
+        }
+
+        @Override
+        public void tickIfNecessary() {
+        }
+
+        @Override
+        public void update(long n) {
+            throw new UnsupportedOperationException("Frozen rates can't be updated");
+        }
+
+        @Override
+        public double getM1Rate() {
+            return m1Rate;
+        }
+
+        @Override
+        public double getM5Rate() {
+            return m5Rate;
+        }
+
+        @Override
+        public double getM15Rate() {
+            return m15Rate;
+        }
+    }
+}
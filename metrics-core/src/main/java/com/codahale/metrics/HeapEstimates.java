@@ -0,0 +1,93 @@
+package com.codahale.metrics;
+
+/**
+ * Rough sizes of the building blocks of the included metrics, used by their
+ * {@code estimateRetainedBytes()} implementations.
+ * <p>
+ * The sizes assume a 64-bit JVM with compressed references: 12-byte object headers, 16-byte array
+ * headers, 4-byte references and objects aligned to 8 bytes. Objects which are usually shared, such
+ * as clocks, are not accounted to the metrics referencing them.
+ */
+final class HeapEstimates {
+    static final int REFERENCE = 4;
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int ALIGNMENT = 8;
+
+    /**
+     * An {@link java.util.concurrent.atomic.AtomicLong}.
+     */
+    static final long ATOMIC_LONG = object(8);
+
+    /**
+     * An uncontended {@link java.util.concurrent.atomic.LongAdder}: the base value, the reference to
+     * the cells and the busy flag. The padded cells a {@code LongAdder} allocates once it is
+     * contended can't be observed, and are therefore not included.
+     */
+    static final long LONG_ADDER = object(8 + REFERENCE + 4);
+
+    /**
+     * A {@link java.util.concurrent.locks.ReentrantLock} and its synchronizer.
+     */
+    static final long REENTRANT_LOCK = object(REFERENCE) + object(2 * REFERENCE + 4 + REFERENCE);
+
+    /**
+     * A {@link java.util.concurrent.locks.ReentrantReadWriteLock}, its synchronizer and its two views.
+     */
+    static final long REENTRANT_READ_WRITE_LOCK = object(3 * REFERENCE)
+            + object(2 * REFERENCE + 4 + REFERENCE + 3 * REFERENCE + 4)
+            + 2 * object(REFERENCE);
+
+    /**
+     * A boxed {@code long} or {@code double}.
+     */
+    static final long BOXED_LONG = object(8);
+
+    /**
+     * A {@link WeightedSnapshot.WeightedSample}.
+     */
+    static final long WEIGHTED_SAMPLE = object(8 + 8);
+
+    private static final long SKIP_LIST = object(7 * REFERENCE);
+    private static final long SKIP_LIST_NODE = object(3 * REFERENCE);
+    private static final long SKIP_LIST_INDEX = object(3 * REFERENCE);
+
+    private HeapEstimates() {
+    }
+
+    /**
+     * Returns the size of an object with the given size of fields.
+     */
+    static long object(long fieldBytes) {
+        return align(OBJECT_HEADER + fieldBytes);
+    }
+
+    /**
+     * Returns the size of an array of {@code length} elements of {@code elementBytes} each.
+     */
+    static long array(long length, int elementBytes) {
+        return align(ARRAY_HEADER + length * elementBytes);
+    }
+
+    /**
+     * Returns the size of an {@link java.util.concurrent.atomic.AtomicLongArray} of {@code length}
+     * elements.
+     */
+    static long atomicLongArray(long length) {
+        return object(REFERENCE) + array(length, 8);
+    }
+
+    /**
+     * Returns the size of a {@link java.util.concurrent.ConcurrentSkipListMap} of {@code entries}
+     * entries, whose keys and values take {@code entryBytes} per entry. On average, one node in four
+     * has an index above it.
+     */
+    static long skipList(long entries, long entryBytes) {
+        return SKIP_LIST + entries * (SKIP_LIST_NODE + entryBytes) + (entries / 4 + 1) * SKIP_LIST_INDEX;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+}
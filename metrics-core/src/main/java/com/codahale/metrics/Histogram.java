@@ -41,6 +41,25 @@ public class Histogram implements Metric, Sampling, Counting {
         reservoir.update(value);
     }
 
+    /**
+     * Adds a batch of recorded values. The count is incremented once for the whole batch, and the
+     * values are passed on to {@link Reservoir#update(long[], int, int)}.
+     *
+     * @param values an array of recorded values
+     * @param offset the index of the first value to add
+     * @param length the number of values to add
+     * @throws IndexOutOfBoundsException if {@code offset} and {@code length} are out of the bounds of
+     *                                   {@code values}
+     */
+    public void update(long[] values, int offset, int length) {
+        BulkUpdates.checkBounds(values, offset, length);
+        if (length == 0) {
+            return;
+        }
+        count.add(length);
+        reservoir.update(values, offset, length);
+    }
+
     /**
      * Returns the number of values recorded.
      *
@@ -55,4 +74,22 @@ public class Histogram implements Metric, Sampling, Counting {
     public Snapshot getSnapshot() {
         return reservoir.getSnapshot();
     }
+
+    /**
+     * Discards all the recorded values, setting the count back to zero and resetting the reservoir.
+     * Values recorded concurrently with a reset may or may not be kept.
+     *
+     * @throws UnsupportedOperationException if the reservoir can't be reset
+     * @see Reservoir#reset()
+     */
+    public void reset() {
+        reservoir.reset();
+        count.reset();
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        return HeapEstimates.object(2 * HeapEstimates.REFERENCE) + HeapEstimates.LONG_ADDER
+                + reservoir.estimateRetainedBytes();
+    }
 }
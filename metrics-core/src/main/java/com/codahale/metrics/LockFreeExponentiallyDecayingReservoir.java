@@ -84,6 +84,18 @@ public final class LockFreeExponentiallyDecayingReservoir implements Reservoir {
             }
         }
 
+        private void update(long[] values, int offset, int length, long timestampNanos) {
+            double itemWeight = weight(timestampNanos - startTick);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = offset; i < offset + length; i++) {
+                double priority = itemWeight / random.nextDouble();
+                boolean mapIsFull = count >= size;
+                if (!mapIsFull || this.values.firstKey() < priority) {
+                    addSample(priority, values[i], itemWeight, mapIsFull);
+                }
+            }
+        }
+
         private void addSample(double priority, long value, double itemWeight, boolean bypassIncrement) {
             if (values.putIfAbsent(priority, new WeightedSample(value, itemWeight)) == null
                     && (bypassIncrement || countUpdater.incrementAndGet(this) > size)) {
@@ -177,6 +189,16 @@ public final class LockFreeExponentiallyDecayingReservoir implements Reservoir {
         rescaleIfNeeded(now).update(value, now);
     }
 
+    @Override
+    public void update(long[] values, int offset, int length) {
+        BulkUpdates.checkBounds(values, offset, length);
+        if (length == 0) {
+            return;
+        }
+        long now = clock.getTick();
+        rescaleIfNeeded(now).update(values, offset, length, now);
+    }
+
     private State rescaleIfNeeded(long currentTick) {
         // This method is optimized for size so the check may be quickly inlined.
         // Rescaling occurs substantially less frequently than the check itself.
@@ -205,6 +227,26 @@ public final class LockFreeExponentiallyDecayingReservoir implements Reservoir {
         return new WeightedSnapshot(stateSnapshot.values.values());
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Like a rescale, this swaps in a new, empty state rather than clearing the current one in place,
+     * so it allocates a new sample map.
+     */
+    @Override
+    public void reset() {
+        // updates racing with the reset land in the discarded state
+        state = new State(state.alphaNanos, size, clock.getTick(), 0, new ConcurrentSkipListMap<>());
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        // every sample is a weighted sample keyed by its boxed priority
+        return HeapEstimates.object(4 + 8 + 2 * HeapEstimates.REFERENCE)
+                + HeapEstimates.object(8 + 4 + 8 + HeapEstimates.REFERENCE + 4)
+                + HeapEstimates.skipList(size(), HeapEstimates.BOXED_LONG + HeapEstimates.WEIGHTED_SAMPLE);
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -0,0 +1,80 @@
+package com.codahale.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static java.lang.Math.min;
+
+/**
+ * A lock-free {@link Reservoir} implementation backed by a ring buffer that stores the last
+ * {@code N} measurements.
+ * <p>
+ * {@link LockFreeSlidingWindowReservoir} has the same semantics as {@link SlidingWindowReservoir},
+ * but writers claim a slot with a single atomic increment of the cursor instead of taking a monitor,
+ * and snapshots copy the ring in one pass without blocking writers. The looser guarantee is that a
+ * snapshot taken concurrently with an update may observe the value the ring held in a claimed slot
+ * before that update stored its measurement.
+ */
+public class LockFreeSlidingWindowReservoir implements Reservoir {
+    private final AtomicLongArray measurements;
+    private final AtomicLong cursor;
+
+    /**
+     * Creates a new {@link LockFreeSlidingWindowReservoir} which stores the last {@code size}
+     * measurements.
+     *
+     * @param size the number of measurements to store
+     */
+    public LockFreeSlidingWindowReservoir(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("LockFreeSlidingWindowReservoir size must be positive: " + size);
+        }
+        this.measurements = new AtomicLongArray(size);
+        this.cursor = new AtomicLong();
+    }
+
+    @Override
+    public int size() {
+        return (int) min(cursor.get(), measurements.length());
+    }
+
+    @Override
+    public void update(long value) {
+        final long index = cursor.getAndIncrement();
+        measurements.lazySet((int) (index % measurements.length()), value);
+    }
+
+    @Override
+    public void update(long[] values, int offset, int length) {
+        BulkUpdates.checkBounds(values, offset, length);
+        if (length == 0) {
+            return;
+        }
+        // claim the slots of the whole batch at once, only the last size() values of it are kept
+        final long index = cursor.getAndAdd(length);
+        final int skipped = Math.max(0, length - measurements.length());
+        for (int i = skipped; i < length; i++) {
+            measurements.lazySet((int) ((index + i) % measurements.length()), values[offset + i]);
+        }
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        final long[] values = new long[size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = measurements.get(i);
+        }
+        return new UniformSnapshot(values);
+    }
+
+    @Override
+    public void reset() {
+        cursor.set(0);
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        return HeapEstimates.object(2 * HeapEstimates.REFERENCE) + HeapEstimates.ATOMIC_LONG
+                + HeapEstimates.atomicLongArray(measurements.length());
+    }
+}
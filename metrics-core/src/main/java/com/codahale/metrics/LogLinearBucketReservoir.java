@@ -0,0 +1,145 @@
+package com.codahale.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link Reservoir} implementation which records every measurement into a fixed array of
+ * log-linear buckets, in the manner of HdrHistogram.
+ * <p>
+ * Values below {@code 2^(subBucketBits + 1)} are recorded exactly. Above that, every power-of-two
+ * range is split into {@code 2^subBucketBits} equally sized buckets, so the value reported for any
+ * quantile is within {@code 2^-(subBucketBits + 1)} of the recorded value, relatively. Values above
+ * the highest trackable value are recorded into the last bucket, negative values into the first.
+ * <p>
+ * The bucket array is allocated once, and {@link #update(long)} is a single atomic increment with
+ * no allocation. Unlike the sampling reservoirs, the distribution covers every value recorded
+ * since the reservoir was created.
+ *
+ * @see <a href="http://hdrhistogram.org/">HdrHistogram</a>
+ */
+public class LogLinearBucketReservoir implements Reservoir {
+    private static final int DEFAULT_SUB_BUCKET_BITS = 6;
+    private static final long DEFAULT_HIGHEST_TRACKABLE_VALUE = TimeUnit.HOURS.toNanos(1);
+
+    private final int subBucketBits;
+    private final long highestTrackableValue;
+    private final AtomicLongArray counts;
+
+    /**
+     * Creates a new {@link LogLinearBucketReservoir} with 64 buckets per power of two, which gives a
+     * relative error of at most 0.8%, and a highest trackable value of one hour in nanoseconds.
+     */
+    public LogLinearBucketReservoir() {
+        this(DEFAULT_SUB_BUCKET_BITS, DEFAULT_HIGHEST_TRACKABLE_VALUE);
+    }
+
+    /**
+     * Creates a new {@link LogLinearBucketReservoir}.
+     *
+     * @param subBucketBits         the base-2 logarithm of the number of buckets per power of two,
+     *                              in {@code [1..16]}
+     * @param highestTrackableValue the highest value which is recorded without being clamped
+     */
+    public LogLinearBucketReservoir(int subBucketBits, long highestTrackableValue) {
+        if (subBucketBits < 1 || subBucketBits > 16) {
+            throw new IllegalArgumentException("subBucketBits must be in [1..16]: " + subBucketBits);
+        }
+        if (highestTrackableValue < 1) {
+            throw new IllegalArgumentException("highestTrackableValue must be positive: " + highestTrackableValue);
+        }
+        this.subBucketBits = subBucketBits;
+        this.highestTrackableValue = highestTrackableValue;
+        this.counts = new AtomicLongArray(bucketIndex(highestTrackableValue, subBucketBits) + 1);
+    }
+
+    @Override
+    public int size() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void update(long value) {
+        final long clamped = value < 0 ? 0 : Math.min(value, highestTrackableValue);
+        counts.incrementAndGet(bucketIndex(clamped, subBucketBits));
+    }
+
+    @Override
+    public void update(long[] values, int offset, int length) {
+        BulkUpdates.checkBounds(values, offset, length);
+        // runs of values falling into the same bucket, which are common for batches of similar
+        // measurements, only increment its count once
+        int run = 0;
+        int runBucket = -1;
+        for (int i = offset; i < offset + length; i++) {
+            final long clamped = values[i] < 0 ? 0 : Math.min(values[i], highestTrackableValue);
+            final int bucket = bucketIndex(clamped, subBucketBits);
+            if (bucket != runBucket) {
+                if (run > 0) {
+                    counts.addAndGet(runBucket, run);
+                }
+                runBucket = bucket;
+                run = 0;
+            }
+            run++;
+        }
+        if (run > 0) {
+            counts.addAndGet(runBucket, run);
+        }
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        final long[] copy = new long[counts.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new LogLinearBucketSnapshot(copy, subBucketBits);
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        return HeapEstimates.object(4 + 8 + HeapEstimates.REFERENCE) + HeapEstimates.atomicLongArray(counts.length());
+    }
+
+    /**
+     * Returns the index of the bucket which holds the given non-negative value.
+     */
+    static int bucketIndex(long value, int subBucketBits) {
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int shift = Math.max(0, exponent - subBucketBits);
+        return (shift << subBucketBits) + (int) (value >>> shift);
+    }
+
+    /**
+     * Returns the lowest value which is recorded into the bucket with the given index.
+     */
+    static long bucketLowerBound(int index, int subBucketBits) {
+        if (index < 2 << subBucketBits) {
+            return index;
+        }
+        final int shift = (index >>> subBucketBits) - 1;
+        return (long) (index - (shift << subBucketBits)) << shift;
+    }
+
+    /**
+     * Returns the number of distinct values which are recorded into the bucket with the given index.
+     */
+    static long bucketWidth(int index, int subBucketBits) {
+        if (index < 2 << subBucketBits) {
+            return 1;
+        }
+        return 1L << ((index >>> subBucketBits) - 1);
+    }
+}
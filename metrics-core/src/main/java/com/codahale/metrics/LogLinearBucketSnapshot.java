@@ -0,0 +1,190 @@
+package com.codahale.metrics;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A statistical snapshot of a {@link LogLinearBucketReservoir}.
+ * <p>
+ * Every recorded value is represented by the midpoint of the bucket it was recorded into. As the
+ * reservoir is cumulative, {@link #getValues()} and {@link #dump(OutputStream)} return these
+ * midpoints once per bucket holding any value, rather than once per value.
+ */
+public class LogLinearBucketSnapshot extends Snapshot {
+
+    private final long[] counts;
+    private final int subBucketBits;
+    private final long total;
+
+    /**
+     * Create a new {@link Snapshot} with the given bucket counts.
+     *
+     * @param counts        the number of values recorded into each bucket
+     * @param subBucketBits the base-2 logarithm of the number of buckets per power of two
+     */
+    public LogLinearBucketSnapshot(long[] counts, int subBucketBits) {
+        this.counts = counts;
+        this.subBucketBits = subBucketBits;
+        long sum = 0;
+        for (long count : counts) {
+            sum += count;
+        }
+        this.total = sum;
+    }
+
+    /**
+     * Returns the value at the given quantile.
+     *
+     * @param quantile a given quantile, in {@code [0..1]}
+     * @return the value in the distribution at {@code quantile}
+     */
+    @Override
+    public double getValue(double quantile) {
+        if (quantile < 0.0 || quantile > 1.0 || Double.isNaN(quantile)) {
+            throw new IllegalArgumentException(quantile + " is not in [0..1]");
+        }
+
+        if (total == 0) {
+            return 0.0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return representative(i);
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Returns the number of values in the snapshot.
+     *
+     * @return the number of values
+     */
+    @Override
+    public int size() {
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the distinct values in the snapshot: the midpoint of each bucket which holds any value,
+     * in ascending order. Unlike {@link #size()}, this is bounded by the number of buckets, however
+     * many values were recorded.
+     *
+     * @return the midpoints of the non-empty buckets
+     */
+    @Override
+    public long[] getValues() {
+        final long[] values = new long[counts.length];
+        int pos = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                values[pos++] = representative(i);
+            }
+        }
+        return Arrays.copyOf(values, pos);
+    }
+
+    /**
+     * Returns the highest value in the snapshot.
+     *
+     * @return the highest value
+     */
+    @Override
+    public long getMax() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] != 0) {
+                return representative(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the lowest value in the snapshot.
+     *
+     * @return the lowest value
+     */
+    @Override
+    public long getMin() {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                return representative(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the arithmetic mean of the values in the snapshot.
+     *
+     * @return the arithmetic mean
+     */
+    @Override
+    public double getMean() {
+        if (total == 0) {
+            return 0;
+        }
+
+        double sum = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                sum += (double) counts[i] * representative(i);
+            }
+        }
+        return sum / total;
+    }
+
+    /**
+     * Returns the standard deviation of the values in the snapshot.
+     *
+     * @return the standard deviation value
+     */
+    @Override
+    public double getStdDev() {
+        // two-pass algorithm for variance, avoids numeric overflow
+
+        if (total <= 1) {
+            return 0;
+        }
+
+        final double mean = getMean();
+        double sum = 0;
+
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                final double diff = representative(i) - mean;
+                sum += counts[i] * diff * diff;
+            }
+        }
+
+        final double variance = sum / (total - 1);
+        return Math.sqrt(variance);
+    }
+
+    /**
+     * Writes the values of the snapshot to the given stream, as returned by {@link #getValues()}.
+     *
+     * @param output an output stream
+     */
+    @Override
+    public void dump(OutputStream output) {
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output, UTF_8))) {
+            for (long value : getValues()) {
+                out.printf("%d%n", value);
+            }
+        }
+    }
+
+    private long representative(int index) {
+        final long lower = LogLinearBucketReservoir.bucketLowerBound(index, subBucketBits);
+        return lower + (LogLinearBucketReservoir.bucketWidth(index, subBucketBits) - 1) / 2;
+    }
+}
@@ -0,0 +1,29 @@
+package com.codahale.metrics;
+
+/**
+ * A {@link Gauge} of a primitive {@code long} value. Reporters which recognize it read the value with
+ * {@link #getLongValue()}, without boxing it. To instrument a queue's depth, for example:<br>
+ * <pre><code>
+ * final Queue&lt;String&gt; queue = new ConcurrentLinkedQueue&lt;String&gt;();
+ * final LongGauge queueDepth = queue::size;
+ * </code></pre>
+ */
+@FunctionalInterface
+public interface LongGauge extends Gauge<Long> {
+    /**
+     * Returns the metric's current value.
+     *
+     * @return the metric's current value
+     */
+    long getLongValue();
+
+    /**
+     * Returns the metric's current value, boxed.
+     *
+     * @return the metric's current value
+     */
+    @Override
+    default Long getValue() {
+        return getLongValue();
+    }
+}
@@ -12,8 +12,9 @@ import java.util.concurrent.atomic.LongAdder;
 public class Meter implements Metered {
 
     private final MovingAverages movingAverages;
+    private final boolean tickInline;
     private final LongAdder count = new LongAdder();
-    private final long startTime;
+    private volatile long startTime;
     private final Clock clock;
 
     /**
@@ -49,10 +50,27 @@ public class Meter implements Metered {
      */
     public Meter(MovingAverages movingAverages, Clock clock) {
         this.movingAverages = movingAverages;
+        this.tickInline = true;
         this.clock = clock;
         this.startTime = this.clock.getTick();
     }
 
+    /**
+     * Creates a new {@link Meter} whose moving averages are advanced by the given ticker instead of
+     * on the threads which mark or read the meter.
+     *
+     * @param movingAverages the {@link MovingAverages} implementation to use
+     * @param clock          the clock to use for the meter ticks
+     * @param ticker         the {@link MovingAveragesTicker} which advances {@code movingAverages}
+     */
+    public Meter(MovingAverages movingAverages, Clock clock, MovingAveragesTicker ticker) {
+        this.movingAverages = movingAverages;
+        this.tickInline = false;
+        this.clock = clock;
+        this.startTime = this.clock.getTick();
+        ticker.register(movingAverages);
+    }
+
     /**
      * Mark the occurrence of an event.
      */
@@ -66,7 +84,7 @@ public class Meter implements Metered {
      * @param n the number of events
      */
     public void mark(long n) {
-        movingAverages.tickIfNecessary();
+        tickIfNecessary();
         count.add(n);
         movingAverages.update(n);
     }
@@ -78,13 +96,13 @@ public class Meter implements Metered {
 
     @Override
     public double getFifteenMinuteRate() {
-        movingAverages.tickIfNecessary();
+        tickIfNecessary();
         return movingAverages.getM15Rate();
     }
 
     @Override
     public double getFiveMinuteRate() {
-        movingAverages.tickIfNecessary();
+        tickIfNecessary();
         return movingAverages.getM5Rate();
     }
 
@@ -100,7 +118,32 @@ public class Meter implements Metered {
 
     @Override
     public double getOneMinuteRate() {
-        movingAverages.tickIfNecessary();
+        tickIfNecessary();
         return movingAverages.getM1Rate();
     }
+
+    /**
+     * Discards all the marked events, setting the count and the rates back to zero and restarting
+     * the mean rate from now. Events marked concurrently with a reset may or may not be kept.
+     *
+     * @throws UnsupportedOperationException if the moving averages can't be reset
+     * @see MovingAverages#reset()
+     */
+    public void reset() {
+        movingAverages.reset();
+        count.reset();
+        startTime = clock.getTick();
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        return HeapEstimates.object(3 * HeapEstimates.REFERENCE + 1 + 8) + HeapEstimates.LONG_ADDER
+                + movingAverages.estimateRetainedBytes();
+    }
+
+    private void tickIfNecessary() {
+        if (tickInline) {
+            movingAverages.tickIfNecessary();
+        }
+    }
 }
@@ -4,5 +4,17 @@ package com.codahale.metrics;
  * A tag interface to indicate that a class is a metric.
  */
 public interface Metric {
-
+    /**
+     * Returns an estimate of the number of bytes of heap retained by this metric, such as its
+     * counters and the samples of its reservoir. Objects shared with other metrics, like clocks, are
+     * not included.
+     * <p>
+     * The default implementation returns {@code 0}, for metrics which don't know their footprint,
+     * such as most gauges.
+     *
+     * @return the estimated number of bytes retained by this metric
+     */
+    default long estimateRetainedBytes() {
+        return 0;
+    }
 }
@@ -0,0 +1,215 @@
+package com.codahale.metrics;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Sorted indexes of the metrics of a {@link MetricRegistry} by type, which the registry keeps up to
+ * date as metrics are added and removed. Reading all the metrics of a type then neither scans the
+ * whole registry nor sorts the names.
+ * <p>
+ * As the names are sorted, the metrics under a prefix are at most three ranges of each index: the
+ * prefix itself, the names which continue it with a period, and the tagged names rendered by
+ * {@link MetricName}, which continue it with a semicolon. Reading or removing them costs in
+ * proportion to their number rather than to the size of the registry.
+ * <p>
+ * A metric implementing several metric interfaces is indexed under each of them, in the same way
+ * as the typed getters of {@link MetricRegistry} would match it with {@link Class#isInstance(Object)}.
+ */
+@SuppressWarnings("rawtypes")
+final class MetricIndex {
+    private final ConcurrentNavigableMap<String, Metric> metrics = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<String, Gauge> gauges = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<String, Counter> counters = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<String, Meter> meters = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<String, Timer> timers = new ConcurrentSkipListMap<>();
+
+    void add(String name, Metric metric) {
+        metrics.put(name, metric);
+        if (metric instanceof Gauge) {
+            gauges.put(name, (Gauge) metric);
+        }
+        if (metric instanceof Counter) {
+            counters.put(name, (Counter) metric);
+        }
+        if (metric instanceof Histogram) {
+            histograms.put(name, (Histogram) metric);
+        }
+        if (metric instanceof Meter) {
+            meters.put(name, (Meter) metric);
+        }
+        if (metric instanceof Timer) {
+            timers.put(name, (Timer) metric);
+        }
+    }
+
+    void remove(String name, Metric metric) {
+        metrics.remove(name, metric);
+        if (metric instanceof Gauge) {
+            gauges.remove(name, metric);
+        }
+        if (metric instanceof Counter) {
+            counters.remove(name, metric);
+        }
+        if (metric instanceof Histogram) {
+            histograms.remove(name, metric);
+        }
+        if (metric instanceof Meter) {
+            meters.remove(name, metric);
+        }
+        if (metric instanceof Timer) {
+            timers.remove(name, metric);
+        }
+    }
+
+    /**
+     * Returns the index of the metrics of the given type.
+     *
+     * @param klass one of {@link Gauge}, {@link Counter}, {@link Histogram}, {@link Meter} or
+     *              {@link Timer}, or {@link Metric} for all the metrics
+     * @return the live index of the metrics of type {@code klass}
+     */
+    @SuppressWarnings("unchecked")
+    <T extends Metric> ConcurrentNavigableMap<String, T> get(Class<T> klass) {
+        if (klass == Metric.class) {
+            return (ConcurrentNavigableMap<String, T>) metrics;
+        } else if (klass == Gauge.class) {
+            return (ConcurrentNavigableMap<String, T>) (ConcurrentNavigableMap) gauges;
+        } else if (klass == Counter.class) {
+            return (ConcurrentNavigableMap<String, T>) (ConcurrentNavigableMap) counters;
+        } else if (klass == Histogram.class) {
+            return (ConcurrentNavigableMap<String, T>) (ConcurrentNavigableMap) histograms;
+        } else if (klass == Meter.class) {
+            return (ConcurrentNavigableMap<String, T>) (ConcurrentNavigableMap) meters;
+        } else if (klass == Timer.class) {
+            return (ConcurrentNavigableMap<String, T>) (ConcurrentNavigableMap) timers;
+        }
+        throw new IllegalArgumentException("Unknown metric type: " + klass);
+    }
+
+    /**
+     * Returns a sorted copy of the entries of an index which are under a prefix.
+     *
+     * @param index  a sorted index
+     * @param prefix the prefix, or the empty string for all the entries
+     * @return the entries named {@code prefix}, or starting with {@code prefix} followed by a period
+     * or a semicolon
+     */
+    static <T extends Metric> SortedMap<String, T> subtree(NavigableMap<String, T> index, String prefix) {
+        if (prefix.isEmpty()) {
+            return copyOf(index, MetricFilter.ALL);
+        }
+        // the three ranges, in order
+        final List<Map.Entry<String, T>> entries = new ArrayList<>();
+        final T metric = index.get(prefix);
+        if (metric != null) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(prefix, metric));
+        }
+        entries.addAll(index.subMap(prefix + '.', prefix + '/').entrySet());
+        entries.addAll(index.subMap(prefix + ';', prefix + '<').entrySet());
+        return new TreeMap<>(new SortedEntries<>(entries));
+    }
+
+    /**
+     * Returns a sorted copy of the entries of an index which match a filter. The entries are read in
+     * order, so the copy is built in linear time rather than sorted again.
+     *
+     * @param index  a sorted index
+     * @param filter the filter of the entries to copy
+     * @return the matching entries
+     */
+    static <T extends Metric> NavigableMap<String, T> copyOf(SortedMap<String, T> index, MetricFilter filter) {
+        // copied one by one, since the size of the index may change while it is copied
+        final List<Map.Entry<String, T>> entries = new ArrayList<>();
+        for (Map.Entry<String, T> entry : index.entrySet()) {
+            if (filter == MetricFilter.ALL || filter.matches(entry.getKey(), entry.getValue())) {
+                entries.add(entry);
+            }
+        }
+        return new TreeMap<>(new SortedEntries<>(entries));
+    }
+
+    /**
+     * Returns whether a name is under a prefix, in the sense of {@link #subtree(NavigableMap, String)}.
+     */
+    static boolean isUnder(String name, String prefix) {
+        if (!name.startsWith(prefix)) {
+            return false;
+        }
+        if (name.length() == prefix.length() || prefix.isEmpty()) {
+            return true;
+        }
+        final char next = name.charAt(prefix.length());
+        return next == '.' || next == ';';
+    }
+
+    /**
+     * Entries which are already sorted by name, as a {@link SortedMap} which is only meant to be
+     * copied by {@link TreeMap#TreeMap(SortedMap)}, which then builds its tree without comparing them.
+     */
+    @SuppressWarnings("JdkObsolete")
+    private static final class SortedEntries<T> extends AbstractMap<String, T> implements SortedMap<String, T> {
+        private final List<Map.Entry<String, T>> entries;
+
+        SortedEntries(List<Map.Entry<String, T>> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public Comparator<? super String> comparator() {
+            return null;
+        }
+
+        @Override
+        public Set<Map.Entry<String, T>> entrySet() {
+            return new AbstractSet<Map.Entry<String, T>>() {
+                @Override
+                public Iterator<Map.Entry<String, T>> iterator() {
+                    return entries.iterator();
+                }
+
+                @Override
+                public int size() {
+                    return entries.size();
+                }
+            };
+        }
+
+        @Override
+        public String firstKey() {
+            return entries.get(0).getKey();
+        }
+
+        @Override
+        public String lastKey() {
+            return entries.get(entries.size() - 1).getKey();
+        }
+
+        @Override
+        public SortedMap<String, T> subMap(String fromKey, String toKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedMap<String, T> headMap(String toKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedMap<String, T> tailMap(String fromKey) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.codahale.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * An immutable, dimensional metric name: a dotted key, such as {@code jetty.requests}, and a sorted
+ * set of tags, such as {@code status=200}.
+ * <p>
+ * A {@link MetricName} is meant to be built once, for example in a field, and then used to look
+ * metrics up: its hash code and its rendering are computed when it is created, and its components
+ * are interned. {@link MetricRegistry} stores a metric named by a {@link MetricName} under
+ * {@link #toString()}, which renders the name in the tagged series syntax of Graphite,
+ * {@code key;tag1=value1;tag2=value2}, so reporters receive the rendered name as is. A name without
+ * tags renders as its key, so {@code MetricName.build("a", "b")} and {@code MetricRegistry.name("a", "b")}
+ * name the same metric.
+ */
+public final class MetricName implements Comparable<MetricName> {
+    private static final String SEPARATOR = ".";
+    private static final SortedMap<String, String> NO_TAGS = Collections.emptySortedMap();
+
+    /**
+     * Builds a name from elements joined by periods, eliding any null values or empty strings.
+     *
+     * @param parts the elements of the name
+     * @return a name without tags
+     */
+    public static MetricName build(String... parts) {
+        return new MetricName(MetricRegistry.name((String) null, parts), NO_TAGS);
+    }
+
+    /**
+     * Builds a name from a class name and elements joined by periods, eliding any null values or
+     * empty strings.
+     *
+     * @param klass the first element of the name
+     * @param parts the remaining elements of the name
+     * @return a name without tags
+     */
+    public static MetricName build(Class<?> klass, String... parts) {
+        return new MetricName(MetricRegistry.name(klass, parts), NO_TAGS);
+    }
+
+    private final String key;
+    private final SortedMap<String, String> tags;
+    private final String rendered;
+    private final int hashCode;
+
+    private MetricName(String key, SortedMap<String, String> tags) {
+        this.key = key.intern();
+        this.tags = tags;
+        this.rendered = render(this.key, tags).intern();
+        this.hashCode = 31 * this.key.hashCode() + tags.hashCode();
+    }
+
+    /**
+     * Returns the name of a child of this metric, with the same tags.
+     *
+     * @param part the element to append to the key, elided if null or empty
+     * @return a name with {@code part} appended to the key
+     */
+    public MetricName resolve(String part) {
+        if (part == null || part.isEmpty()) {
+            return this;
+        }
+        return new MetricName(key.isEmpty() ? part : key + SEPARATOR + part, tags);
+    }
+
+    /**
+     * Returns this name with additional tags, replacing existing tags of the same names.
+     *
+     * @param pairs tag names and values, alternately
+     * @return a name with the given tags
+     * @throws IllegalArgumentException if there is an odd number of arguments, or a tag is invalid
+     */
+    public MetricName tagged(String... pairs) {
+        if (pairs.length % 2 != 0) {
+            throw new IllegalArgumentException("Tags must be given as name and value pairs");
+        }
+        if (pairs.length == 0) {
+            return this;
+        }
+        final TreeMap<String, String> merged = new TreeMap<>(tags);
+        for (int i = 0; i < pairs.length; i += 2) {
+            merged.put(checkTag(pairs[i], true), checkTag(pairs[i + 1], false));
+        }
+        return new MetricName(key, Collections.unmodifiableSortedMap(merged));
+    }
+
+    /**
+     * Returns this name with additional tags, replacing existing tags of the same names.
+     *
+     * @param tags tag values by tag name
+     * @return a name with the given tags
+     * @throws IllegalArgumentException if a tag is invalid
+     */
+    public MetricName tagged(Map<String, String> tags) {
+        if (tags.isEmpty()) {
+            return this;
+        }
+        final TreeMap<String, String> merged = new TreeMap<>(this.tags);
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            merged.put(checkTag(tag.getKey(), true), checkTag(tag.getValue(), false));
+        }
+        return new MetricName(key, Collections.unmodifiableSortedMap(merged));
+    }
+
+    /**
+     * Returns the dotted key of the name.
+     *
+     * @return the key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the tags of the name, sorted by tag name.
+     *
+     * @return an unmodifiable map of tag values by tag name
+     */
+    public SortedMap<String, String> getTags() {
+        return tags;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MetricName)) {
+            return false;
+        }
+        final MetricName that = (MetricName) o;
+        // keys and tags are interned, but may also come from names created by other class loaders
+        return hashCode == that.hashCode && key.equals(that.key) && tags.equals(that.tags);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public int compareTo(MetricName o) {
+        return rendered.compareTo(o.rendered);
+    }
+
+    /**
+     * Returns the name as {@code key;tag1=value1;tag2=value2}, or as its key if it has no tags.
+     *
+     * @return the rendered name
+     */
+    @Override
+    public String toString() {
+        return rendered;
+    }
+
+    private static String render(String key, SortedMap<String, String> tags) {
+        if (tags.isEmpty()) {
+            return key;
+        }
+        final StringBuilder builder = new StringBuilder(key);
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            builder.append(';').append(tag.getKey()).append('=').append(tag.getValue());
+        }
+        return builder.toString();
+    }
+
+    private static String checkTag(String value, boolean isName) {
+        Objects.requireNonNull(value, isName ? "tag name" : "tag value");
+        if (value.isEmpty() || value.indexOf(';') >= 0 || (isName && value.indexOf('=') >= 0)) {
+            throw new IllegalArgumentException("Invalid tag " + (isName ? "name" : "value") + ": " + value);
+        }
+        return value.intern();
+    }
+}
@@ -0,0 +1,230 @@
+package com.codahale.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Decides how the histograms, meters and timers which a {@link MetricRegistry} creates on demand,
+ * through {@link MetricRegistry#histogram(String)}, {@link MetricRegistry#meter(String)} and
+ * {@link MetricRegistry#timer(String)}, are built: which {@link Reservoir}, which
+ * {@link MovingAverages} and which {@link Clock} they use.
+ * <p>
+ * A policy can delegate the metrics whose names match a pattern, or whose {@link MetricName} has a
+ * given tag, to another policy. The first matching rule applies, and whatever the policy of that
+ * rule doesn't set is taken from the enclosing policy. For example, to sample most histograms
+ * cheaply, but keep accurate, recent latencies for the service level objectives:
+ * <pre><code>
+ * registry.setMetricPolicy(MetricPolicy.builder()
+ *         .reservoir(LogLinearBucketReservoir::new)
+ *         .matching("api.*.latency", MetricPolicy.builder()
+ *                 .reservoir(() -&gt; new SlidingTimeWindowArrayReservoir(1, TimeUnit.MINUTES))
+ *                 .build())
+ *         .build());
+ * </code></pre>
+ * Without a policy, or for anything it doesn't set, a registry uses an
+ * {@link ExponentiallyDecayingReservoir}, {@link ExponentialMovingAverages} and the default clock.
+ */
+public final class MetricPolicy {
+
+    /**
+     * The policy of a registry which hasn't been given one.
+     */
+    public static final MetricPolicy DEFAULT = builder().build();
+
+    private static final Supplier<Reservoir> DEFAULT_RESERVOIR = ExponentiallyDecayingReservoir::new;
+    private static final Function<Clock, MovingAverages> DEFAULT_MOVING_AVERAGES = ExponentialMovingAverages::new;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static final class Rule {
+        final Predicate<String> names;
+        final MetricPolicy policy;
+
+        Rule(Predicate<String> names, MetricPolicy policy) {
+            this.names = names;
+            this.policy = policy;
+        }
+    }
+
+    // null if not set, in which case the enclosing policy or the defaults apply
+    private final Supplier<Reservoir> reservoir;
+    private final Function<Clock, MovingAverages> movingAverages;
+    private final Clock clock;
+    private final List<Rule> rules;
+
+    private MetricPolicy(Builder builder) {
+        this.reservoir = builder.reservoir;
+        this.movingAverages = builder.movingAverages;
+        this.clock = builder.clock;
+        this.rules = Collections.unmodifiableList(new ArrayList<>(builder.rules));
+    }
+
+    /**
+     * Creates the reservoir of a histogram or timer.
+     *
+     * @param name the name of the metric
+     * @return a new {@link Reservoir}
+     */
+    public Reservoir newReservoir(String name) {
+        return resolve(name, policy -> policy.reservoir, DEFAULT_RESERVOIR).get();
+    }
+
+    /**
+     * Creates the moving averages of a meter or timer.
+     *
+     * @param name the name of the metric
+     * @return a new {@link MovingAverages} using the clock of the metric
+     */
+    public MovingAverages newMovingAverages(String name) {
+        return resolve(name, policy -> policy.movingAverages, DEFAULT_MOVING_AVERAGES).apply(getClock(name));
+    }
+
+    /**
+     * Returns the clock of a meter or timer.
+     *
+     * @param name the name of the metric
+     * @return the {@link Clock} to use
+     */
+    public Clock getClock(String name) {
+        return resolve(name, policy -> policy.clock, Clock.defaultClock());
+    }
+
+    Histogram newHistogram(String name) {
+        return new Histogram(newReservoir(name));
+    }
+
+    Meter newMeter(String name, MovingAveragesTicker ticker) {
+        final Clock clock = getClock(name);
+        final MovingAverages averages = resolve(name, policy -> policy.movingAverages, DEFAULT_MOVING_AVERAGES).apply(clock);
+        return ticker == null ? new Meter(averages, clock) : new Meter(averages, clock, ticker);
+    }
+
+    Timer newTimer(String name, MovingAveragesTicker ticker) {
+        return new Timer(newMeter(name, ticker), newHistogram(name), getClock(name));
+    }
+
+    /**
+     * Returns the settings which apply to the given name, such that two names with equal settings
+     * get metrics built the same way.
+     */
+    List<Object> settings(String name) {
+        return Arrays.asList(resolve(name, policy -> policy.reservoir, DEFAULT_RESERVOIR),
+                resolve(name, policy -> policy.movingAverages, DEFAULT_MOVING_AVERAGES),
+                getClock(name));
+    }
+
+    private <T> T resolve(String name, Function<MetricPolicy, T> setting, T defaultValue) {
+        final T value = resolve(name, setting);
+        return value == null ? defaultValue : value;
+    }
+
+    private <T> T resolve(String name, Function<MetricPolicy, T> setting) {
+        for (Rule rule : rules) {
+            if (rule.names.test(name)) {
+                final T value = rule.policy.resolve(name, setting);
+                if (value != null) {
+                    return value;
+                }
+                break;
+            }
+        }
+        return setting.apply(this);
+    }
+
+    /**
+     * By default, a policy sets nothing, so it uses the settings of the enclosing policy, if any,
+     * or the defaults of {@link MetricRegistry}.
+     */
+    public static final class Builder {
+        private Supplier<Reservoir> reservoir;
+        private Function<Clock, MovingAverages> movingAverages;
+        private Clock clock;
+        private final List<Rule> rules = new ArrayList<>();
+
+        private Builder() {}
+
+        /**
+         * Creates the reservoirs of histograms and timers.
+         */
+        public Builder reservoir(Supplier<Reservoir> value) {
+            this.reservoir = Objects.requireNonNull(value, "reservoir is required");
+            return this;
+        }
+
+        /**
+         * Creates the moving averages of meters and timers, given their clock.
+         */
+        public Builder movingAverages(Function<Clock, MovingAverages> value) {
+            this.movingAverages = Objects.requireNonNull(value, "movingAverages is required");
+            return this;
+        }
+
+        /**
+         * Clock instance used by meters and timers.
+         */
+        public Builder clock(Clock value) {
+            this.clock = Objects.requireNonNull(value, "clock is required");
+            return this;
+        }
+
+        /**
+         * Applies another policy to the metrics whose names match a pattern, in which {@code *}
+         * stands for any characters.
+         */
+        public Builder matching(String pattern, MetricPolicy policy) {
+            return matching(compile(Objects.requireNonNull(pattern, "pattern is required")), policy);
+        }
+
+        /**
+         * Applies another policy to the metrics whose names match a predicate.
+         */
+        public Builder matching(Predicate<String> names, MetricPolicy policy) {
+            rules.add(new Rule(Objects.requireNonNull(names, "names is required"),
+                    Objects.requireNonNull(policy, "policy is required")));
+            return this;
+        }
+
+        /**
+         * Applies another policy to the metrics named by a {@link MetricName} with the given tag.
+         */
+        public Builder taggedWith(String tag, String value, MetricPolicy policy) {
+            final String rendered = ";" + Objects.requireNonNull(tag, "tag is required")
+                    + '=' + Objects.requireNonNull(value, "value is required");
+            return matching(name -> {
+                final int index = name.indexOf(rendered);
+                final int end = index + rendered.length();
+                return index >= 0 && (end == name.length() || name.charAt(end) == ';');
+            }, policy);
+        }
+
+        public MetricPolicy build() {
+            return new MetricPolicy(this);
+        }
+
+        private static Predicate<String> compile(String pattern) {
+            final StringBuilder regex = new StringBuilder();
+            int start = 0;
+            for (int wildcard = pattern.indexOf('*'); wildcard >= 0; wildcard = pattern.indexOf('*', start)) {
+                if (wildcard > start) {
+                    regex.append(Pattern.quote(pattern.substring(start, wildcard)));
+                }
+                regex.append(".*");
+                start = wildcard + 1;
+            }
+            if (start < pattern.length()) {
+                regex.append(Pattern.quote(pattern.substring(start)));
+            }
+            final Pattern compiled = Pattern.compile(regex.toString());
+            return name -> compiled.matcher(name).matches();
+        }
+    }
+}
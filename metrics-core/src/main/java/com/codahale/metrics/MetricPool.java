@@ -0,0 +1,115 @@
+package com.codahale.metrics;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A pool of the counters, histograms, meters and timers removed from a {@link MetricRegistry}, which
+ * the registry resets and reuses instead of allocating new ones when metrics of the same type are
+ * created again with the same {@link MetricPolicy} settings.
+ * <p>
+ * This saves the allocation of the reservoirs and moving averages of metrics which are created and
+ * removed often, such as per-job timers. Only the metrics which the registry created itself are
+ * pooled, never the ones which were registered or built by a {@link MetricRegistry.MetricSupplier}.
+ * <p>
+ * <b>N.B.:</b> A removed metric may be handed out again under another name, so a registry with a
+ * pool must only be used by code which drops its references to the metrics it removes, and which
+ * doesn't register the same metric under several names.
+ *
+ * @see MetricRegistry#setMetricPool(MetricPool)
+ */
+public class MetricPool {
+    private static final int DEFAULT_MAX_IDLE_METRICS = 64;
+
+    private final int maxIdleMetrics;
+    // the metrics created through the pool, and the settings they were created with
+    private final ConcurrentMap<Metric, Object> keys = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Object, Queue<Metric>> idle = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new {@link MetricPool} which keeps up to 64 removed metrics of each type and settings.
+     */
+    public MetricPool() {
+        this(DEFAULT_MAX_IDLE_METRICS);
+    }
+
+    /**
+     * Creates a new {@link MetricPool}.
+     *
+     * @param maxIdleMetrics the maximum number of removed metrics of each type and settings to keep
+     */
+    public MetricPool(int maxIdleMetrics) {
+        if (maxIdleMetrics <= 0) {
+            throw new IllegalArgumentException("maxIdleMetrics must be positive: " + maxIdleMetrics);
+        }
+        this.maxIdleMetrics = maxIdleMetrics;
+    }
+
+    /**
+     * Returns the number of removed metrics which are waiting to be reused.
+     *
+     * @return the number of idle metrics
+     */
+    public int getIdleCount() {
+        int count = 0;
+        for (Queue<Metric> metrics : idle.values()) {
+            count += metrics.size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns a reset idle metric created with the given settings, or {@code null} if there is none.
+     */
+    Metric take(Object key) {
+        final Queue<Metric> metrics = idle.get(key);
+        if (metrics == null) {
+            return null;
+        }
+        Metric metric;
+        while ((metric = metrics.poll()) != null) {
+            try {
+                reset(metric);
+                return metric;
+            } catch (UnsupportedOperationException e) {
+                // a custom reservoir or moving averages, the metric can't be reused
+                keys.remove(metric);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remembers the settings a new metric was created with, so it can be pooled once removed.
+     */
+    void track(Metric metric, Object key) {
+        keys.put(metric, key);
+    }
+
+    /**
+     * Keeps a removed metric for reuse, if it was created through this pool and there is room.
+     */
+    void recycle(Metric metric) {
+        final Object key = keys.get(metric);
+        if (key == null) {
+            return;
+        }
+        if (!idle.computeIfAbsent(key, k -> new LinkedBlockingQueue<>(maxIdleMetrics)).offer(metric)) {
+            keys.remove(metric);
+        }
+    }
+
+    private static void reset(Metric metric) {
+        if (metric instanceof Timer) {
+            ((Timer) metric).reset();
+        } else if (metric instanceof Meter) {
+            ((Meter) metric).reset();
+        } else if (metric instanceof Histogram) {
+            ((Histogram) metric).reset();
+        } else if (metric instanceof Counter) {
+            ((Counter) metric).reset();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.codahale.metrics;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -13,6 +15,15 @@ import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * A registry of metric instances.
+ * <p>
+ * Unless {@link #buildMap()} is overridden, the registry also keeps its metrics in sorted indexes by
+ * type, so {@link #getGauges()}, {@link #getCounters()}, {@link #getHistograms()},
+ * {@link #getMeters()} and {@link #getTimers()} only copy the metrics of their type, in order,
+ * without scanning the rest of the registry. Like {@link #getNames()}, they return point-in-time
+ * copies, which don't change when metrics are added or removed afterwards. The indexes also make
+ * the prefix-scoped methods, such as {@link #getNamesUnder(String)} and
+ * {@link #removeByPrefix(String)}, cost in proportion to the number of metrics under the prefix
+ * rather than to the size of the registry.
  */
 public class MetricRegistry implements MetricSet {
     /**
@@ -55,14 +66,85 @@ public class MetricRegistry implements MetricSet {
     }
 
     private final ConcurrentMap<String, Metric> metrics;
+    // null if a subclass builds its own map, which may add or drop metrics behind the registry's back
+    private final MetricIndex index;
     private final List<MetricRegistryListener> listeners;
+    // null unless the registry was created with cardinality limits
+    private final CardinalityGuard guard;
+    private volatile AsyncListenerDispatcher listenerDispatcher;
+    private volatile MetricPolicy policy = MetricPolicy.DEFAULT;
+    private volatile MovingAveragesTicker ticker;
+    private volatile MetricPool pool;
+
+    private final MetricBuilder<Histogram> histograms = new MetricBuilder<Histogram>() {
+        @Override
+        public Histogram newMetric(String name) {
+            return policy.newHistogram(name);
+        }
+
+        @Override
+        public Object poolKey(String name) {
+            return Arrays.asList(Histogram.class, policy.settings(name));
+        }
+
+        @Override
+        public boolean isInstance(Metric metric) {
+            return Histogram.class.isInstance(metric);
+        }
+    };
+
+    private final MetricBuilder<Meter> meters = new MetricBuilder<Meter>() {
+        @Override
+        public Meter newMetric(String name) {
+            return policy.newMeter(name, ticker);
+        }
+
+        @Override
+        public Object poolKey(String name) {
+            return Arrays.asList(Meter.class, policy.settings(name), ticker);
+        }
+
+        @Override
+        public boolean isInstance(Metric metric) {
+            return Meter.class.isInstance(metric);
+        }
+    };
+
+    private final MetricBuilder<Timer> timers = new MetricBuilder<Timer>() {
+        @Override
+        public Timer newMetric(String name) {
+            return policy.newTimer(name, ticker);
+        }
+
+        @Override
+        public Object poolKey(String name) {
+            return Arrays.asList(Timer.class, policy.settings(name), ticker);
+        }
+
+        @Override
+        public boolean isInstance(Metric metric) {
+            return Timer.class.isInstance(metric);
+        }
+    };
 
     /**
      * Creates a new {@link MetricRegistry}.
      */
     public MetricRegistry() {
+        this(null);
+    }
+
+    /**
+     * Creates a new {@link MetricRegistry} which bounds the number of its metrics.
+     *
+     * @param limits the limits on the metrics of the registry, or {@code null} for none
+     * @see CardinalityLimits
+     */
+    public MetricRegistry(CardinalityLimits limits) {
         this.metrics = buildMap();
+        this.index = metrics.getClass() == ConcurrentHashMap.class ? new MetricIndex() : null;
         this.listeners = new CopyOnWriteArrayList<>();
+        this.guard = limits == null ? null : new CardinalityGuard(limits);
     }
 
     /**
@@ -76,6 +158,53 @@ public class MetricRegistry implements MetricSet {
         return new ConcurrentHashMap<>();
     }
 
+    /**
+     * Sets the {@link MovingAveragesTicker} which advances the moving averages of the meters and
+     * timers subsequently created by {@link #meter(String)} and {@link #timer(String)}, so marking
+     * them or reading their rates never ticks on the caller's thread. Metrics which already exist,
+     * or which are created from a {@link MetricSupplier}, are not affected.
+     *
+     * @param ticker the ticker to use, or {@code null} to tick on the caller's thread (the default)
+     */
+    public void setMovingAveragesTicker(MovingAveragesTicker ticker) {
+        this.ticker = ticker;
+    }
+
+    /**
+     * Sets the {@link MetricPolicy} which decides how the histograms, meters and timers subsequently
+     * created by {@link #histogram(String)}, {@link #meter(String)} and {@link #timer(String)} are
+     * built. Metrics which already exist, or which are created from a {@link MetricSupplier}, are not
+     * affected.
+     *
+     * @param policy the policy to use, or {@code null} for {@link MetricPolicy#DEFAULT}
+     */
+    public void setMetricPolicy(MetricPolicy policy) {
+        this.policy = policy == null ? MetricPolicy.DEFAULT : policy;
+    }
+
+    /**
+     * Sets the {@link MetricPool} which keeps the counters, histograms, meters and timers removed from
+     * this registry, and reuses them for the metrics of the same type and settings it creates later.
+     * Metrics which already exist are not pooled once removed.
+     *
+     * @param pool the pool to use, or {@code null} to allocate every metric (the default)
+     */
+    public void setMetricPool(MetricPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the {@link AsyncListenerDispatcher} which delivers the events of this registry to its
+     * listeners, so registering or removing metrics doesn't wait for the listeners. Listeners are then
+     * notified on the dispatcher thread, after the registration or removal has returned.
+     *
+     * @param dispatcher the dispatcher to use, or {@code null} to notify listeners on the caller's
+     *                   thread (the default)
+     */
+    public void setListenerDispatcher(AsyncListenerDispatcher dispatcher) {
+        this.listenerDispatcher = dispatcher;
+    }
+
     /**
      * Given a {@link Gauge}, registers it under the given name and returns it
      *
@@ -88,6 +217,28 @@ public class MetricRegistry implements MetricSet {
         return register(name, metric);
     }
 
+    /**
+     * Given a {@link LongGauge}, registers it under the given name and returns it
+     *
+     * @param name the name of the gauge
+     * @return the registered {@link LongGauge}
+     * @throws IllegalArgumentException if the name is already registered
+     */
+    public LongGauge registerLongGauge(String name, LongGauge metric) throws IllegalArgumentException {
+        return register(name, metric);
+    }
+
+    /**
+     * Given a {@link DoubleGauge}, registers it under the given name and returns it
+     *
+     * @param name the name of the gauge
+     * @return the registered {@link DoubleGauge}
+     * @throws IllegalArgumentException if the name is already registered
+     */
+    public DoubleGauge registerDoubleGauge(String name, DoubleGauge metric) throws IllegalArgumentException {
+        return register(name, metric);
+    }
+
     /**
      * Given a {@link Metric}, registers it under the given name.
      *
@@ -161,16 +312,71 @@ public class MetricRegistry implements MetricSet {
         } else if (metric instanceof MetricSet) {
             registerAll(name, (MetricSet) metric);
         } else {
-            final Metric existing = metrics.putIfAbsent(name, metric);
-            if (existing == null) {
-                onMetricAdded(name, metric);
-            } else {
-                throw new IllegalArgumentException("A metric named " + name + " already exists");
-            }
+            add(name, metric);
         }
         return metric;
     }
 
+    /**
+     * Registers a metric, unless the cardinality limits reject it.
+     *
+     * @return whether the metric was registered
+     * @throws IllegalArgumentException if the name is already registered
+     */
+    private boolean add(String name, Metric metric) {
+        if (guard != null && !admit(name, metric)) {
+            return false;
+        }
+        final Metric existing = putIfAbsent(name, metric);
+        if (existing == null) {
+            onMetricAdded(name, metric);
+            return true;
+        }
+        if (guard != null) {
+            guard.untrack(name, metric);
+        }
+        throw new IllegalArgumentException("A metric named " + name + " already exists");
+    }
+
+    private boolean admit(String name, Metric metric) {
+        evict(guard.expired(false));
+        CardinalityGuard.Scope full;
+        while ((full = guard.track(name, metric)) != null) {
+            final CardinalityGuard.Tracked victim = guard.victim(name, full);
+            if (victim == null) {
+                return false;
+            }
+            evict(victim);
+        }
+        return true;
+    }
+
+    private void evict(List<CardinalityGuard.Tracked> expired) {
+        for (CardinalityGuard.Tracked entry : expired) {
+            evict(entry);
+        }
+    }
+
+    private void evict(CardinalityGuard.Tracked entry) {
+        if (removeMetric(entry.name, entry.metric)) {
+            guard.untrack(entry.name, entry.metric);
+            onMetricRemoved(entry.name, entry.metric);
+            recycle(entry.metric);
+        }
+    }
+
+    /**
+     * Removes the metrics which have not been updated for longer than the idle expiration of the
+     * registry's {@link CardinalityLimits}. This also happens from time to time when new metrics are
+     * registered, but a registry whose set of metrics is stable should call this periodically, for
+     * example before reporting.
+     */
+    public void evictIdleMetrics() {
+        if (guard != null) {
+            evict(guard.expired(true));
+        }
+    }
+
     /**
      * Given a metric set, registers them.
      *
@@ -203,7 +409,7 @@ public class MetricRegistry implements MetricSet {
     public Counter counter(String name, final MetricSupplier<Counter> supplier) {
         return getOrAdd(name, new MetricBuilder<Counter>() {
             @Override
-            public Counter newMetric() {
+            public Counter newMetric(String name) {
                 return supplier.newMetric();
             }
 
@@ -222,7 +428,7 @@ public class MetricRegistry implements MetricSet {
      * @return a new or pre-existing {@link Histogram}
      */
     public Histogram histogram(String name) {
-        return getOrAdd(name, MetricBuilder.HISTOGRAMS);
+        return getOrAdd(name, histograms);
     }
 
     /**
@@ -236,7 +442,7 @@ public class MetricRegistry implements MetricSet {
     public Histogram histogram(String name, final MetricSupplier<Histogram> supplier) {
         return getOrAdd(name, new MetricBuilder<Histogram>() {
             @Override
-            public Histogram newMetric() {
+            public Histogram newMetric(String name) {
                 return supplier.newMetric();
             }
 
@@ -255,7 +461,7 @@ public class MetricRegistry implements MetricSet {
      * @return a new or pre-existing {@link Meter}
      */
     public Meter meter(String name) {
-        return getOrAdd(name, MetricBuilder.METERS);
+        return getOrAdd(name, meters);
     }
 
     /**
@@ -269,7 +475,7 @@ public class MetricRegistry implements MetricSet {
     public Meter meter(String name, final MetricSupplier<Meter> supplier) {
         return getOrAdd(name, new MetricBuilder<Meter>() {
             @Override
-            public Meter newMetric() {
+            public Meter newMetric(String name) {
                 return supplier.newMetric();
             }
 
@@ -288,7 +494,7 @@ public class MetricRegistry implements MetricSet {
      * @return a new or pre-existing {@link Timer}
      */
     public Timer timer(String name) {
-        return getOrAdd(name, MetricBuilder.TIMERS);
+        return getOrAdd(name, timers);
     }
 
     /**
@@ -302,7 +508,7 @@ public class MetricRegistry implements MetricSet {
     public Timer timer(String name, final MetricSupplier<Timer> supplier) {
         return getOrAdd(name, new MetricBuilder<Timer>() {
             @Override
-            public Timer newMetric() {
+            public Timer newMetric(String name) {
                 return supplier.newMetric();
             }
 
@@ -338,7 +544,7 @@ public class MetricRegistry implements MetricSet {
     public <T extends Gauge> T gauge(String name, final MetricSupplier<T> supplier) {
         return getOrAdd(name, new MetricBuilder<T>() {
             @Override
-            public T newMetric() {
+            public T newMetric(String name) {
                 return supplier.newMetric();
             }
 
@@ -357,14 +563,110 @@ public class MetricRegistry implements MetricSet {
      * @return whether or not the metric was removed
      */
     public boolean remove(String name) {
-        final Metric metric = metrics.remove(name);
+        final Metric metric = removeMetric(name);
         if (metric != null) {
+            if (guard != null) {
+                guard.untrack(name, metric);
+            }
             onMetricRemoved(name, metric);
+            recycle(metric);
             return true;
         }
         return false;
     }
 
+    /**
+     * Given a {@link Metric}, registers it under the rendering of the given name.
+     *
+     * @param name   the name of the metric
+     * @param metric the metric
+     * @param <T>    the type of the metric
+     * @return {@code metric}
+     * @throws IllegalArgumentException if the name is already registered or metric variable is null
+     * @see MetricName#toString()
+     */
+    public <T extends Metric> T register(MetricName name, T metric) throws IllegalArgumentException {
+        return register(name.toString(), metric);
+    }
+
+    /**
+     * Return the {@link Counter} registered under this name; or create and register
+     * a new {@link Counter} if none is registered.
+     *
+     * @param name the name of the metric
+     * @return a new or pre-existing {@link Counter}
+     */
+    public Counter counter(MetricName name) {
+        return counter(name.toString());
+    }
+
+    /**
+     * Return the {@link Histogram} registered under this name; or create and register
+     * a new {@link Histogram} if none is registered.
+     *
+     * @param name the name of the metric
+     * @return a new or pre-existing {@link Histogram}
+     */
+    public Histogram histogram(MetricName name) {
+        return histogram(name.toString());
+    }
+
+    /**
+     * Return the {@link Meter} registered under this name; or create and register
+     * a new {@link Meter} if none is registered.
+     *
+     * @param name the name of the metric
+     * @return a new or pre-existing {@link Meter}
+     */
+    public Meter meter(MetricName name) {
+        return meter(name.toString());
+    }
+
+    /**
+     * Return the {@link Timer} registered under this name; or create and register
+     * a new {@link Timer} if none is registered.
+     *
+     * @param name the name of the metric
+     * @return a new or pre-existing {@link Timer}
+     */
+    public Timer timer(MetricName name) {
+        return timer(name.toString());
+    }
+
+    /**
+     * Return the {@link Gauge} registered under this name; or create and register
+     * a new {@link Gauge} using the provided MetricSupplier if none is registered.
+     *
+     * @param name     the name of the metric
+     * @param supplier a MetricSupplier that can be used to manufacture a Gauge
+     * @return a new or pre-existing {@link Gauge}
+     */
+    @SuppressWarnings("rawtypes")
+    public <T extends Gauge> T gauge(MetricName name, final MetricSupplier<T> supplier) {
+        return gauge(name.toString(), supplier);
+    }
+
+    /**
+     * Removes the metric with the given name.
+     *
+     * @param name the name of the metric
+     * @return whether or not the metric was removed
+     */
+    public boolean remove(MetricName name) {
+        return remove(name.toString());
+    }
+
+    /**
+     * Removes all metrics which are under the given prefix, as defined by {@link #getNamesUnder(String)}.
+     *
+     * @param prefix the prefix of the names of the metrics to remove
+     */
+    public void removeByPrefix(String prefix) {
+        for (String name : subtree(Metric.class, prefix).keySet()) {
+            remove(name);
+        }
+    }
+
     /**
      * Removes all metrics which match the given filter.
      *
@@ -389,8 +691,17 @@ public class MetricRegistry implements MetricSet {
     public void addListener(MetricRegistryListener listener) {
         listeners.add(listener);
 
+        final AsyncListenerDispatcher dispatcher = listenerDispatcher;
+        if (dispatcher != null) {
+            final List<MetricRegistryEvent> existing = new ArrayList<>();
+            for (Map.Entry<String, Metric> entry : metrics.entrySet()) {
+                existing.add(MetricRegistryEvent.added(entry.getKey(), entry.getValue()));
+            }
+            dispatcher.dispatch(new MetricRegistryListener[]{listener}, existing);
+            return;
+        }
         for (Map.Entry<String, Metric> entry : metrics.entrySet()) {
-            notifyListenerOfAddedMetric(listener, entry.getValue(), entry.getKey());
+            MetricRegistryEvent.notifyAdded(listener, entry.getKey(), entry.getValue());
         }
     }
 
@@ -409,9 +720,25 @@ public class MetricRegistry implements MetricSet {
      * @return the names of all the metrics
      */
     public SortedSet<String> getNames() {
+        if (index != null) {
+            return Collections.unmodifiableSortedSet(MetricIndex.copyOf(index.get(Metric.class), MetricFilter.ALL)
+                    .navigableKeySet());
+        }
         return Collections.unmodifiableSortedSet(new TreeSet<>(metrics.keySet()));
     }
 
+    /**
+     * Returns a set of the names of the metrics in the registry which are under the given prefix:
+     * the prefix itself, and the names starting with the prefix followed by a period, or by a
+     * semicolon for tagged {@link MetricName}s.
+     *
+     * @param prefix the prefix of the names, or the empty string for all the names
+     * @return the names of the metrics under {@code prefix}
+     */
+    public SortedSet<String> getNamesUnder(String prefix) {
+        return Collections.unmodifiableSortedSet(new TreeSet<>(subtree(Metric.class, prefix).keySet()));
+    }
+
     /**
      * Returns a map of all the gauges in the registry and their names.
      *
@@ -433,6 +760,18 @@ public class MetricRegistry implements MetricSet {
         return getMetrics(Gauge.class, filter);
     }
 
+    /**
+     * Returns a map of the gauges in the registry and their names which are under the given prefix,
+     * as defined by {@link #getNamesUnder(String)}.
+     *
+     * @param prefix the prefix of the names, or the empty string for all the gauges
+     * @return the gauges under {@code prefix}
+     */
+    @SuppressWarnings("rawtypes")
+    public SortedMap<String, Gauge> getGaugesUnder(String prefix) {
+        return Collections.unmodifiableSortedMap(subtree(Gauge.class, prefix));
+    }
+
     /**
      * Returns a map of all the counters in the registry and their names.
      *
@@ -453,6 +792,17 @@ public class MetricRegistry implements MetricSet {
         return getMetrics(Counter.class, filter);
     }
 
+    /**
+     * Returns a map of the counters in the registry and their names which are under the given prefix,
+     * as defined by {@link #getNamesUnder(String)}.
+     *
+     * @param prefix the prefix of the names, or the empty string for all the counters
+     * @return the counters under {@code prefix}
+     */
+    public SortedMap<String, Counter> getCountersUnder(String prefix) {
+        return Collections.unmodifiableSortedMap(subtree(Counter.class, prefix));
+    }
+
     /**
      * Returns a map of all the histograms in the registry and their names.
      *
@@ -473,6 +823,17 @@ public class MetricRegistry implements MetricSet {
         return getMetrics(Histogram.class, filter);
     }
 
+    /**
+     * Returns a map of the histograms in the registry and their names which are under the given prefix,
+     * as defined by {@link #getNamesUnder(String)}.
+     *
+     * @param prefix the prefix of the names, or the empty string for all the histograms
+     * @return the histograms under {@code prefix}
+     */
+    public SortedMap<String, Histogram> getHistogramsUnder(String prefix) {
+        return Collections.unmodifiableSortedMap(subtree(Histogram.class, prefix));
+    }
+
     /**
      * Returns a map of all the meters in the registry and their names.
      *
@@ -492,6 +853,17 @@ public class MetricRegistry implements MetricSet {
         return getMetrics(Meter.class, filter);
     }
 
+    /**
+     * Returns a map of the meters in the registry and their names which are under the given prefix,
+     * as defined by {@link #getNamesUnder(String)}.
+     *
+     * @param prefix the prefix of the names, or the empty string for all the meters
+     * @return the meters under {@code prefix}
+     */
+    public SortedMap<String, Meter> getMetersUnder(String prefix) {
+        return Collections.unmodifiableSortedMap(subtree(Meter.class, prefix));
+    }
+
     /**
      * Returns a map of all the timers in the registry and their names.
      *
@@ -511,15 +883,74 @@ public class MetricRegistry implements MetricSet {
         return getMetrics(Timer.class, filter);
     }
 
+    /**
+     * Returns a map of the timers in the registry and their names which are under the given prefix,
+     * as defined by {@link #getNamesUnder(String)}.
+     *
+     * @param prefix the prefix of the names, or the empty string for all the timers
+     * @return the timers under {@code prefix}
+     */
+    public SortedMap<String, Timer> getTimersUnder(String prefix) {
+        return Collections.unmodifiableSortedMap(subtree(Timer.class, prefix));
+    }
+
+    /**
+     * Returns the estimated number of bytes of heap retained by all the metrics in the registry, as
+     * the sum of their {@link Metric#estimateRetainedBytes()}. The registry's own bookkeeping of the
+     * names is not included.
+     *
+     * @return the estimated number of bytes retained by the metrics
+     */
+    @Override
+    public long estimateRetainedBytes() {
+        long bytes = 0;
+        for (Metric metric : metrics.values()) {
+            bytes += metric.estimateRetainedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the estimated number of bytes of heap retained by the metrics in the registry which
+     * are under the given prefix, as defined by {@link #getNamesUnder(String)}.
+     *
+     * @param prefix the prefix of the names, or the empty string for all the metrics
+     * @return the estimated number of bytes retained by the metrics under {@code prefix}
+     * @see Metric#estimateRetainedBytes()
+     */
+    public long estimateRetainedBytes(String prefix) {
+        long bytes = 0;
+        for (Metric metric : subtree(Metric.class, prefix).values()) {
+            bytes += metric.estimateRetainedBytes();
+        }
+        return bytes;
+    }
+
     @SuppressWarnings("unchecked")
     private <T extends Metric> T getOrAdd(String name, MetricBuilder<T> builder) {
         final Metric metric = metrics.get(name);
         if (builder.isInstance(metric)) {
             return (T) metric;
         } else if (metric == null) {
+            final T newMetric = newMetric(name, builder);
             try {
-                return register(name, builder.newMetric());
+                if (guard == null) {
+                    return register(name, newMetric);
+                }
+                if (add(name, newMetric)) {
+                    return newMetric;
+                }
+                if (newMetric instanceof Gauge) {
+                    // a shared gauge would report the value of whichever gauge was rejected first
+                    return newMetric;
+                }
+                final T overflow = getOrAddOverflow(guard.overflowName(name, newMetric), newMetric, builder);
+                if (overflow != newMetric) {
+                    recycle(newMetric);
+                }
+                return overflow;
             } catch (IllegalArgumentException e) {
+                recycle(newMetric);
                 final Metric added = metrics.get(name);
                 if (builder.isInstance(added)) {
                     return (T) added;
@@ -529,8 +960,100 @@ public class MetricRegistry implements MetricSet {
         throw new IllegalArgumentException(name + " is already used for a different type of metric");
     }
 
+    @SuppressWarnings("unchecked")
+    private <T extends Metric> T newMetric(String name, MetricBuilder<T> builder) {
+        final MetricPool metricPool = pool;
+        final Object key = metricPool == null ? null : builder.poolKey(name);
+        if (key == null) {
+            return builder.newMetric(name);
+        }
+        // the key includes the type of the metric, so a recycled metric is always of the right type
+        final Metric recycled = metricPool.take(key);
+        if (builder.isInstance(recycled)) {
+            return (T) recycled;
+        }
+        final T metric = builder.newMetric(name);
+        metricPool.track(metric, key);
+        return metric;
+    }
+
+    private void recycle(Metric metric) {
+        final MetricPool metricPool = pool;
+        if (metricPool != null) {
+            metricPool.recycle(metric);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Metric> T getOrAddOverflow(String name, T newMetric, MetricBuilder<T> builder) {
+        // overflow metrics don't count towards the limits, so they are added past the guard
+        Metric metric = metrics.get(name);
+        if (metric == null) {
+            metric = putIfAbsent(name, newMetric);
+            if (metric == null) {
+                onMetricAdded(name, newMetric);
+                return newMetric;
+            }
+        }
+        if (builder.isInstance(metric)) {
+            return (T) metric;
+        }
+        throw new IllegalArgumentException(name + " is already used for a different type of metric");
+    }
+
+    private Metric putIfAbsent(String name, Metric metric) {
+        if (index == null) {
+            return metrics.putIfAbsent(name, metric);
+        }
+        // update the index while holding the map's lock on the name, so it agrees with the map
+        // whichever way concurrent registrations and removals of the name interleave
+        final Metric[] existing = new Metric[1];
+        metrics.compute(name, (key, current) -> {
+            if (current != null) {
+                existing[0] = current;
+                return current;
+            }
+            index.add(key, metric);
+            return metric;
+        });
+        return existing[0];
+    }
+
+    private Metric removeMetric(String name) {
+        if (index == null) {
+            return metrics.remove(name);
+        }
+        final Metric[] removed = new Metric[1];
+        metrics.computeIfPresent(name, (key, current) -> {
+            index.remove(key, current);
+            removed[0] = current;
+            return null;
+        });
+        return removed[0];
+    }
+
+    private boolean removeMetric(String name, Metric metric) {
+        if (index == null) {
+            return metrics.remove(name, metric);
+        }
+        final boolean[] removed = new boolean[1];
+        metrics.computeIfPresent(name, (key, current) -> {
+            if (current != metric) {
+                return current;
+            }
+            index.remove(key, current);
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
     @SuppressWarnings("unchecked")
     private <T extends Metric> SortedMap<String, T> getMetrics(Class<T> klass, MetricFilter filter) {
+        if (index != null) {
+            // the index already holds only this type of metric, so nothing else is scanned
+            return Collections.unmodifiableSortedMap(MetricIndex.copyOf(index.get(klass), filter));
+        }
         final TreeMap<String, T> timers = new TreeMap<>();
         for (Map.Entry<String, Metric> entry : metrics.entrySet()) {
             if (klass.isInstance(entry.getValue()) && filter.matches(entry.getKey(),
@@ -541,47 +1064,41 @@ public class MetricRegistry implements MetricSet {
         return Collections.unmodifiableSortedMap(timers);
     }
 
-    private void onMetricAdded(String name, Metric metric) {
-        for (MetricRegistryListener listener : listeners) {
-            notifyListenerOfAddedMetric(listener, metric, name);
+    @SuppressWarnings("unchecked")
+    private <T extends Metric> SortedMap<String, T> subtree(Class<T> klass, String prefix) {
+        if (index != null) {
+            return MetricIndex.subtree(index.get(klass), prefix);
         }
-    }
-
-    private void notifyListenerOfAddedMetric(MetricRegistryListener listener, Metric metric, String name) {
-        if (metric instanceof Gauge) {
-            listener.onGaugeAdded(name, (Gauge<?>) metric);
-        } else if (metric instanceof Counter) {
-            listener.onCounterAdded(name, (Counter) metric);
-        } else if (metric instanceof Histogram) {
-            listener.onHistogramAdded(name, (Histogram) metric);
-        } else if (metric instanceof Meter) {
-            listener.onMeterAdded(name, (Meter) metric);
-        } else if (metric instanceof Timer) {
-            listener.onTimerAdded(name, (Timer) metric);
-        } else {
-            throw new IllegalArgumentException("Unknown metric type: " + metric.getClass());
+        final TreeMap<String, T> subtree = new TreeMap<>();
+        for (Map.Entry<String, Metric> entry : metrics.entrySet()) {
+            if (klass.isInstance(entry.getValue()) && MetricIndex.isUnder(entry.getKey(), prefix)) {
+                subtree.put(entry.getKey(), (T) entry.getValue());
+            }
         }
+        return subtree;
     }
 
-    private void onMetricRemoved(String name, Metric metric) {
+    private void onMetricAdded(String name, Metric metric) {
+        final AsyncListenerDispatcher dispatcher = listenerDispatcher;
+        if (dispatcher != null) {
+            dispatcher.dispatch(listeners.toArray(new MetricRegistryListener[0]),
+                    Collections.singletonList(MetricRegistryEvent.added(name, metric)));
+            return;
+        }
         for (MetricRegistryListener listener : listeners) {
-            notifyListenerOfRemovedMetric(name, metric, listener);
+            MetricRegistryEvent.notifyAdded(listener, name, metric);
         }
     }
 
-    private void notifyListenerOfRemovedMetric(String name, Metric metric, MetricRegistryListener listener) {
-        if (metric instanceof Gauge) {
-            listener.onGaugeRemoved(name);
-        } else if (metric instanceof Counter) {
-            listener.onCounterRemoved(name);
-        } else if (metric instanceof Histogram) {
-            listener.onHistogramRemoved(name);
-        } else if (metric instanceof Meter) {
-            listener.onMeterRemoved(name);
-        } else if (metric instanceof Timer) {
-            listener.onTimerRemoved(name);
-        } else {
-            throw new IllegalArgumentException("Unknown metric type: " + metric.getClass());
+    private void onMetricRemoved(String name, Metric metric) {
+        final AsyncListenerDispatcher dispatcher = listenerDispatcher;
+        if (dispatcher != null) {
+            dispatcher.dispatch(listeners.toArray(new MetricRegistryListener[0]),
+                    Collections.singletonList(MetricRegistryEvent.removed(name, metric)));
+            return;
+        }
+        for (MetricRegistryListener listener : listeners) {
+            MetricRegistryEvent.notifyRemoved(listener, name, metric);
         }
     }
 
@@ -618,56 +1135,25 @@ public class MetricRegistry implements MetricSet {
     private interface MetricBuilder<T extends Metric> {
         MetricBuilder<Counter> COUNTERS = new MetricBuilder<Counter>() {
             @Override
-            public Counter newMetric() {
+            public Counter newMetric(String name) {
                 return new Counter();
             }
 
             @Override
-            public boolean isInstance(Metric metric) {
-                return Counter.class.isInstance(metric);
-            }
-        };
-
-        MetricBuilder<Histogram> HISTOGRAMS = new MetricBuilder<Histogram>() {
-            @Override
-            public Histogram newMetric() {
-                return new Histogram(new ExponentiallyDecayingReservoir());
+            public Object poolKey(String name) {
+                return Counter.class;
             }
 
             @Override
             public boolean isInstance(Metric metric) {
-                return Histogram.class.isInstance(metric);
-            }
-        };
-
-        MetricBuilder<Meter> METERS = new MetricBuilder<Meter>() {
-            @Override
-            public Meter newMetric() {
-                return new Meter();
-            }
-
-            @Override
-            public boolean isInstance(Metric metric) {
-                return Meter.class.isInstance(metric);
-            }
-        };
-
-        MetricBuilder<Timer> TIMERS = new MetricBuilder<Timer>() {
-            @Override
-            public Timer newMetric() {
-                return new Timer();
-            }
-
-            @Override
-            public boolean isInstance(Metric metric) {
-                return Timer.class.isInstance(metric);
+                return Counter.class.isInstance(metric);
             }
         };
 
         @SuppressWarnings("rawtypes")
         MetricBuilder<Gauge> GAUGES = new MetricBuilder<Gauge>() {
             @Override
-            public Gauge newMetric() {
+            public Gauge newMetric(String name) {
                 return new DefaultSettableGauge<>();
             }
 
@@ -677,8 +1163,16 @@ public class MetricRegistry implements MetricSet {
             }
         };
 
-        T newMetric();
+        T newMetric(String name);
 
         boolean isInstance(Metric metric);
+
+        /**
+         * Returns the key under which the metrics built for the given name are pooled, or
+         * {@code null} if they are never pooled.
+         */
+        default Object poolKey(String name) {
+            return null;
+        }
     }
 }
@@ -0,0 +1,115 @@
+package com.codahale.metrics;
+
+import java.util.Objects;
+
+/**
+ * A metric being added to or removed from a {@link MetricRegistry}.
+ *
+ * @see MetricRegistryListener#onEvents(java.util.List)
+ */
+public final class MetricRegistryEvent {
+
+    /**
+     * The kind of an event.
+     */
+    public enum Type {
+        ADDED,
+        REMOVED
+    }
+
+    /**
+     * Creates an event for a metric added to a registry.
+     *
+     * @param name   the metric's name
+     * @param metric the metric
+     * @return a new {@link MetricRegistryEvent}
+     */
+    public static MetricRegistryEvent added(String name, Metric metric) {
+        return new MetricRegistryEvent(Type.ADDED, name, metric);
+    }
+
+    /**
+     * Creates an event for a metric removed from a registry.
+     *
+     * @param name   the metric's name
+     * @param metric the metric
+     * @return a new {@link MetricRegistryEvent}
+     */
+    public static MetricRegistryEvent removed(String name, Metric metric) {
+        return new MetricRegistryEvent(Type.REMOVED, name, metric);
+    }
+
+    private final Type type;
+    private final String name;
+    private final Metric metric;
+
+    private MetricRegistryEvent(Type type, String name, Metric metric) {
+        this.type = type;
+        this.name = Objects.requireNonNull(name, "name is required");
+        this.metric = Objects.requireNonNull(metric, "metric is required");
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Metric getMetric() {
+        return metric;
+    }
+
+    /**
+     * Calls the method of a listener which matches this event, e.g.
+     * {@link MetricRegistryListener#onTimerRemoved(String)} for a removed {@link Timer}.
+     *
+     * @param listener the listener to notify
+     * @throws IllegalArgumentException if the metric is of an unknown type
+     */
+    public void dispatchTo(MetricRegistryListener listener) {
+        if (type == Type.ADDED) {
+            notifyAdded(listener, name, metric);
+        } else {
+            notifyRemoved(listener, name, metric);
+        }
+    }
+
+    static void notifyAdded(MetricRegistryListener listener, String name, Metric metric) {
+        if (metric instanceof Gauge) {
+            listener.onGaugeAdded(name, (Gauge<?>) metric);
+        } else if (metric instanceof Counter) {
+            listener.onCounterAdded(name, (Counter) metric);
+        } else if (metric instanceof Histogram) {
+            listener.onHistogramAdded(name, (Histogram) metric);
+        } else if (metric instanceof Meter) {
+            listener.onMeterAdded(name, (Meter) metric);
+        } else if (metric instanceof Timer) {
+            listener.onTimerAdded(name, (Timer) metric);
+        } else {
+            throw new IllegalArgumentException("Unknown metric type: " + metric.getClass());
+        }
+    }
+
+    static void notifyRemoved(MetricRegistryListener listener, String name, Metric metric) {
+        if (metric instanceof Gauge) {
+            listener.onGaugeRemoved(name);
+        } else if (metric instanceof Counter) {
+            listener.onCounterRemoved(name);
+        } else if (metric instanceof Histogram) {
+            listener.onHistogramRemoved(name);
+        } else if (metric instanceof Meter) {
+            listener.onMeterRemoved(name);
+        } else if (metric instanceof Timer) {
+            listener.onTimerRemoved(name);
+        } else {
+            throw new IllegalArgumentException("Unknown metric type: " + metric.getClass());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + name;
+    }
+}
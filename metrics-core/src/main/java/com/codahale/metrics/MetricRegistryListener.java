@@ -1,6 +1,7 @@
 package com.codahale.metrics;
 
 import java.util.EventListener;
+import java.util.List;
 
 /**
  * Listeners for events from the registry.  Listeners must be thread-safe.
@@ -125,4 +126,19 @@ public interface MetricRegistryListener extends EventListener {
      * @param name the timer's name
      */
     void onTimerRemoved(String name);
+
+    /**
+     * Called with several events at once, in the order in which they happened, when events are
+     * delivered by an {@link AsyncListenerDispatcher}. Override this to handle many metrics in one
+     * go.
+     * <p>
+     * By default, calls the method matching each event in turn.
+     *
+     * @param events the events
+     */
+    default void onEvents(List<MetricRegistryEvent> events) {
+        for (MetricRegistryEvent event : events) {
+            event.dispatchTo(this);
+        }
+    }
 }
@@ -8,6 +8,7 @@ package com.codahale.metrics;
  * <ul>
  * <li>{@link ExponentialMovingAverages} exponential decaying average similar to the {@code top} Unix command.
  * <li>{@link SlidingTimeWindowMovingAverages} simple (unweighted) moving average
+ * <li>{@link CompactSlidingTimeWindowMovingAverages} simple (unweighted) moving average with a compact footprint
  * </ul>
  */
 public interface MovingAverages {
@@ -45,4 +46,29 @@ public interface MovingAverages {
      * @return the fifteen-minute moving average rate
      */
     double getM15Rate();
+
+    /**
+     * Discards all the events, setting the three rates back to zero. Events which happen
+     * concurrently with a reset may or may not be kept.
+     * <p>
+     * The default implementation throws an {@link UnsupportedOperationException}; the included
+     * implementations all support it.
+     *
+     * @throws UnsupportedOperationException if the moving averages can't be reset
+     */
+    default void reset() {
+        throw new UnsupportedOperationException(getClass().getName() + " can't be reset");
+    }
+
+    /**
+     * Returns an estimate of the number of bytes of heap retained by these moving averages.
+     * <p>
+     * The default implementation returns {@code 0}, for implementations which don't know their
+     * footprint.
+     *
+     * @return the estimated number of bytes retained by these moving averages
+     */
+    default long estimateRetainedBytes() {
+        return 0;
+    }
 }
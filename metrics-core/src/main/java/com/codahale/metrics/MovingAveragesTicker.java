@@ -0,0 +1,114 @@
+package com.codahale.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A daemon thread which periodically advances a set of {@link MovingAverages}, so that the
+ * {@link Meter}s using them never have to tick on the caller's thread.
+ * <p>
+ * A {@link Meter} created with a ticker only updates its counters in {@link Meter#mark(long)}, and its
+ * rate getters only read the current rates, which may lag behind by up to one tick interval. The
+ * ticker only keeps weak references to the moving averages, so meters which are no longer used are
+ * garbage collected as usual.
+ *
+ * @see MetricRegistry#setMovingAveragesTicker(MovingAveragesTicker)
+ */
+public class MovingAveragesTicker implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MovingAveragesTicker.class);
+    private static final AtomicInteger TICKER_ID = new AtomicInteger();
+
+    private final Queue<WeakReference<MovingAverages>> movingAverages = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService executor;
+    private final ScheduledFuture<?> ticks;
+
+    /**
+     * Returns the shared ticker, which ticks every second and is started on first use.
+     *
+     * @return the shared {@link MovingAveragesTicker}
+     */
+    public static MovingAveragesTicker shared() {
+        return SharedTickerHolder.SHARED;
+    }
+
+    /**
+     * Creates a new {@link MovingAveragesTicker} which ticks every second, the finest interval used by
+     * the included {@link MovingAverages} implementations.
+     */
+    public MovingAveragesTicker() {
+        this(1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates a new {@link MovingAveragesTicker}.
+     *
+     * @param interval the interval between ticks
+     * @param unit     the unit of {@code interval}
+     */
+    public MovingAveragesTicker(long interval, TimeUnit unit) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Interval must be positive: " + interval);
+        }
+        final String name = "metrics-moving-averages-ticker-" + TICKER_ID.incrementAndGet();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ticks = executor.scheduleAtFixedRate(this::tick, interval, interval, unit);
+    }
+
+    /**
+     * Adds moving averages to be advanced by this ticker.
+     *
+     * @param averages the {@link MovingAverages} to tick
+     */
+    public void register(MovingAverages averages) {
+        movingAverages.add(new WeakReference<>(Objects.requireNonNull(averages, "averages is required")));
+    }
+
+    /**
+     * Advances every registered {@link MovingAverages} which is due, and forgets the ones which have
+     * been garbage collected. Called on the ticker thread every interval.
+     */
+    void tick() {
+        final Iterator<WeakReference<MovingAverages>> iterator = movingAverages.iterator();
+        while (iterator.hasNext()) {
+            final MovingAverages averages = iterator.next().get();
+            if (averages == null) {
+                iterator.remove();
+                continue;
+            }
+            try {
+                averages.tickIfNecessary();
+            } catch (RuntimeException e) {
+                LOG.warn("Unable to tick moving averages {}", averages, e);
+            }
+        }
+    }
+
+    /**
+     * Stops the ticker thread. Registered moving averages are no longer advanced.
+     */
+    @Override
+    public void close() {
+        ticks.cancel(false);
+        executor.shutdown();
+    }
+
+    private static class SharedTickerHolder {
+        private static final MovingAveragesTicker SHARED = new MovingAveragesTicker();
+    }
+}
@@ -148,6 +148,14 @@ public final class NoopMetricRegistry extends MetricRegistry {
         // NOP
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeByPrefix(String prefix) {
+        // NOP
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -172,6 +180,14 @@ public final class NoopMetricRegistry extends MetricRegistry {
         return Collections.emptySortedSet();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SortedSet<String> getNamesUnder(String prefix) {
+        return Collections.emptySortedSet();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -190,6 +206,15 @@ public final class NoopMetricRegistry extends MetricRegistry {
         return Collections.emptySortedMap();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("rawtypes")
+    public SortedMap<String, Gauge> getGaugesUnder(String prefix) {
+        return Collections.emptySortedMap();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -206,6 +231,14 @@ public final class NoopMetricRegistry extends MetricRegistry {
         return Collections.emptySortedMap();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SortedMap<String, Counter> getCountersUnder(String prefix) {
+        return Collections.emptySortedMap();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -222,6 +255,14 @@ public final class NoopMetricRegistry extends MetricRegistry {
         return Collections.emptySortedMap();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SortedMap<String, Histogram> getHistogramsUnder(String prefix) {
+        return Collections.emptySortedMap();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -238,6 +279,14 @@ public final class NoopMetricRegistry extends MetricRegistry {
         return Collections.emptySortedMap();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SortedMap<String, Meter> getMetersUnder(String prefix) {
+        return Collections.emptySortedMap();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -254,6 +303,14 @@ public final class NoopMetricRegistry extends MetricRegistry {
         return Collections.emptySortedMap();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SortedMap<String, Timer> getTimersUnder(String prefix) {
+        return Collections.emptySortedMap();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -262,6 +319,22 @@ public final class NoopMetricRegistry extends MetricRegistry {
         // NOP
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long estimateRetainedBytes() {
+        return 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long estimateRetainedBytes(String prefix) {
+        return 0;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -354,6 +427,7 @@ public final class NoopMetricRegistry extends MetricRegistry {
     static final class NoopTimer extends Timer {
         private static final NoopTimer INSTANCE = new NoopTimer();
         private static final Timer.Context CONTEXT = new NoopTimer.Context();
+        private static final Timer.ReusableContext REUSABLE_CONTEXT = new NoopTimer.ReusableContext();
 
         private static class Context extends Timer.Context {
             private static final Clock CLOCK = new Clock() {
@@ -395,6 +469,36 @@ public final class NoopMetricRegistry extends MetricRegistry {
             }
         }
 
+        private static class ReusableContext extends Timer.ReusableContext {
+            private ReusableContext() {
+                super(INSTANCE);
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public Timer.ReusableContext start() {
+                return this;
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public long stop() {
+                return 0L;
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void close() {
+                // NOP
+            }
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -403,6 +507,14 @@ public final class NoopMetricRegistry extends MetricRegistry {
             // NOP
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void update(long[] durations, int offset, int length, TimeUnit unit) {
+            // NOP
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -443,6 +555,30 @@ public final class NoopMetricRegistry extends MetricRegistry {
             return CONTEXT;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Timer.ReusableContext newReusableContext() {
+            return REUSABLE_CONTEXT;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long startNanos() {
+            return 0L;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long stopNanos(long startNanos) {
+            return 0L;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -490,6 +626,14 @@ public final class NoopMetricRegistry extends MetricRegistry {
         public Snapshot getSnapshot() {
             return EmptySnapshot.INSTANCE;
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void reset() {
+            // NOP
+        }
     }
 
     static final class NoopHistogram extends Histogram {
@@ -518,6 +662,14 @@ public final class NoopMetricRegistry extends MetricRegistry {
             public Snapshot getSnapshot() {
                 return EmptySnapshot.INSTANCE;
             }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void reset() {
+                // NOP
+            }
         };
 
         private NoopHistogram() {
@@ -540,6 +692,14 @@ public final class NoopMetricRegistry extends MetricRegistry {
             // NOP
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void update(long[] values, int offset, int length) {
+            // NOP
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -555,6 +715,14 @@ public final class NoopMetricRegistry extends MetricRegistry {
         public Snapshot getSnapshot() {
             return EmptySnapshot.INSTANCE;
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void reset() {
+            // NOP
+        }
     }
 
     static final class NoopCounter extends Counter {
@@ -599,6 +767,14 @@ public final class NoopMetricRegistry extends MetricRegistry {
         public long getCount() {
             return 0L;
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void reset() {
+            // NOP
+        }
     }
 
     static final class NoopMeter extends Meter {
@@ -659,6 +835,14 @@ public final class NoopMetricRegistry extends MetricRegistry {
         public double getOneMinuteRate() {
             return 0D;
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void reset() {
+            // NOP
+        }
     }
 
     private static final class EmptyConcurrentMap<K, V> implements ConcurrentMap<K, V> {
@@ -8,7 +8,7 @@ import static java.lang.Double.isNaN;
  * <p>
  * If the denominator is zero, not a number, or infinite, the resulting ratio is not a number.
  */
-public abstract class RatioGauge implements Gauge<Double> {
+public abstract class RatioGauge implements DoubleGauge {
     /**
      * A ratio of one quantity to another.
      */
@@ -60,7 +60,12 @@ public abstract class RatioGauge implements Gauge<Double> {
     protected abstract Ratio getRatio();
 
     @Override
-    public Double getValue() {
+    public double getDoubleValue() {
         return getRatio().getValue();
     }
+
+    @Override
+    public Double getValue() {
+        return getDoubleValue();
+    }
 }
@@ -0,0 +1,410 @@
+package com.codahale.metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded, disk-backed queue of the reports a {@link ScheduledReporter} failed to send, which it
+ * replays in order once its backend is reachable again.
+ * <p>
+ * Reports are serialized by the reporter, split into records of at most {@link #getMaxRecordSize()}
+ * bytes, and appended to a ring of memory-mapped segment files in a directory, so that they survive
+ * a restart of the application. When all the segments are full, the oldest one is dropped, along
+ * with the records it holds. Records are replayed no faster than the drain rate, so that a backend
+ * which has just recovered isn't flooded with the backlog. The records which could have been replayed
+ * since the last drain build up to the maximum burst, so that a reporter draining once per report
+ * still drains at the drain rate.
+ * <p>
+ * A spool must only be used by one reporter, and its directory by one spool.
+ */
+public class ReportSpool implements Closeable {
+    private static final String PREFIX = "spool-";
+    private static final String SUFFIX = ".seg";
+    private static final int MAGIC = 0x4d535031;
+    // the magic number, then the positions of the next record to write and of the next one to read
+    private static final int HEADER_SIZE = 12;
+    private static final int WRITE_POSITION = 4;
+    private static final int READ_POSITION = 8;
+    private static final int RECORD_HEADER_SIZE = 4;
+    private static final int DEFAULT_BURST_SECONDS = 60;
+
+    /**
+     * Replays a spooled record.
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+        /**
+         * Replays a record.
+         *
+         * @param record the record, as it was appended
+         * @throws IOException if the record couldn't be replayed, in which case it is kept
+         */
+        void handle(byte[] record) throws IOException;
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final double drainRatePerNano;
+    private final double maxTokens;
+    private final Clock clock;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    private long nextSequence;
+    private long droppedSegments;
+    private double tokens;
+    private long lastRefillTick;
+
+    private ReportSpool(Builder builder) throws IOException {
+        this.directory = Files.createDirectories(builder.directory);
+        this.segmentSize = builder.segmentSize;
+        this.maxSegments = builder.maxSegments;
+        this.drainRatePerNano = builder.drainRate / (double) TimeUnit.SECONDS.toNanos(1);
+        this.maxTokens = builder.maxBurst > 0 ? builder.maxBurst : builder.drainRate * (double) DEFAULT_BURST_SECONDS;
+        this.clock = builder.clock;
+        this.tokens = Math.min(maxTokens, builder.drainRate);
+        this.lastRefillTick = clock.getTick();
+        reopen();
+    }
+
+    /**
+     * Reopens the segments a previous spool left in the directory, from the oldest to the newest.
+     */
+    private void reopen() throws IOException {
+        final List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        Collections.sort(files);
+        for (Path file : files) {
+            final String name = file.getFileName().toString();
+            final long sequence;
+            try {
+                sequence = Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            nextSequence = Math.max(nextSequence, sequence + 1);
+            if (Files.size(file) != segmentSize) {
+                // written with another segment size, or truncated
+                Files.delete(file);
+                continue;
+            }
+            final Segment segment = new Segment(file, false);
+            if (segment.isValid()) {
+                segments.addLast(segment);
+            } else {
+                segment.delete();
+            }
+        }
+        while (segments.size() > maxSegments) {
+            dropOldest();
+        }
+    }
+
+    /**
+     * Appends a record, dropping the oldest segment if the spool is full.
+     *
+     * @param record a serialized report
+     * @return {@code false} if the record is larger than a segment, and wasn't appended
+     * @throws IOException if a new segment couldn't be created
+     */
+    public synchronized boolean append(byte[] record) throws IOException {
+        if (record.length > getMaxRecordSize()) {
+            return false;
+        }
+        Segment tail = segments.peekLast();
+        if (tail == null || !tail.fits(record.length)) {
+            if (segments.size() >= maxSegments) {
+                dropOldest();
+            }
+            tail = new Segment(directory.resolve(String.format("%s%019d%s", PREFIX, nextSequence++, SUFFIX)), true);
+            segments.addLast(tail);
+        }
+        tail.write(record);
+        return true;
+    }
+
+    /**
+     * Returns the size of the largest record which fits in a segment. Reporters should split larger
+     * reports into several records.
+     *
+     * @return the maximum size of a record, in bytes
+     */
+    public int getMaxRecordSize() {
+        return segmentSize - HEADER_SIZE - RECORD_HEADER_SIZE;
+    }
+
+    /**
+     * Replays the spooled records in order, as many as the drain rate allows since the last call, up
+     * to the maximum burst, until the handler fails.
+     *
+     * @param handler replays each record
+     * @return the number of records replayed
+     * @throws IOException if the handler failed, in which case its record is kept for the next drain
+     */
+    public synchronized int drain(RecordHandler handler) throws IOException {
+        refill();
+        int drained = 0;
+        Segment head;
+        while (tokens >= 1 && (head = segments.peekFirst()) != null) {
+            if (!head.hasRecords()) {
+                if (head == segments.peekLast()) {
+                    // reuse the last segment instead of creating a new one
+                    head.clear();
+                    break;
+                }
+                segments.removeFirst().delete();
+                continue;
+            }
+            final byte[] record = head.peek();
+            if (record == null) {
+                // the segment is corrupt past this point, so none of its records can be trusted
+                dropOldest();
+                continue;
+            }
+            handler.handle(record);
+            head.skip();
+            tokens--;
+            drained++;
+        }
+        return drained;
+    }
+
+    private void refill() {
+        final long tick = clock.getTick();
+        tokens = Math.min(maxTokens, tokens + (tick - lastRefillTick) * drainRatePerNano);
+        lastRefillTick = tick;
+    }
+
+    private void dropOldest() throws IOException {
+        final Segment oldest = segments.pollFirst();
+        if (oldest != null) {
+            oldest.delete();
+            droppedSegments++;
+        }
+    }
+
+    /**
+     * Returns whether there are spooled records waiting to be replayed.
+     *
+     * @return {@code true} if the spool is empty
+     */
+    public synchronized boolean isEmpty() {
+        for (Segment segment : segments) {
+            if (segment.hasRecords()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of segments which were dropped, with their records, because the spool was full.
+     *
+     * @return the number of dropped segments
+     */
+    public synchronized long getDroppedSegments() {
+        return droppedSegments;
+    }
+
+    /**
+     * Writes the spooled records to disk.
+     */
+    @Override
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            segment.force();
+        }
+    }
+
+    private final class Segment {
+        private final Path file;
+        private final MappedByteBuffer buffer;
+
+        Segment(Path file, boolean create) throws IOException {
+            this.file = file;
+            try (FileChannel channel = create
+                    ? FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                    : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // the mapping stays valid once the channel is closed
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            }
+            if (create) {
+                buffer.putInt(0, MAGIC);
+                clear();
+            }
+        }
+
+        boolean isValid() {
+            final int writePosition = buffer.getInt(WRITE_POSITION);
+            final int readPosition = buffer.getInt(READ_POSITION);
+            return buffer.getInt(0) == MAGIC
+                    && readPosition >= HEADER_SIZE
+                    && readPosition <= writePosition
+                    && writePosition <= segmentSize;
+        }
+
+        boolean fits(int length) {
+            return buffer.getInt(WRITE_POSITION) + RECORD_HEADER_SIZE + length <= segmentSize;
+        }
+
+        void write(byte[] record) {
+            final int position = buffer.getInt(WRITE_POSITION);
+            buffer.putInt(position, record.length);
+            final ByteBuffer target = buffer.duplicate();
+            target.position(position + RECORD_HEADER_SIZE);
+            target.put(record);
+            // the record only counts once it is written in full
+            buffer.putInt(WRITE_POSITION, position + RECORD_HEADER_SIZE + record.length);
+        }
+
+        boolean hasRecords() {
+            return buffer.getInt(READ_POSITION) < buffer.getInt(WRITE_POSITION);
+        }
+
+        /**
+         * Returns the next record, or {@code null} if its length doesn't fit in what was written, as
+         * after a crash halfway through writing it or a corruption of the file.
+         */
+        byte[] peek() {
+            final int position = buffer.getInt(READ_POSITION);
+            final int available = buffer.getInt(WRITE_POSITION) - position - RECORD_HEADER_SIZE;
+            if (available < 0) {
+                return null;
+            }
+            final int length = buffer.getInt(position);
+            if (length < 0 || length > available) {
+                return null;
+            }
+            final byte[] record = new byte[length];
+            final ByteBuffer source = buffer.duplicate();
+            source.position(position + RECORD_HEADER_SIZE);
+            source.get(record);
+            return record;
+        }
+
+        void skip() {
+            final int position = buffer.getInt(READ_POSITION);
+            buffer.putInt(READ_POSITION, position + RECORD_HEADER_SIZE + buffer.getInt(position));
+        }
+
+        void clear() {
+            buffer.putInt(WRITE_POSITION, HEADER_SIZE);
+            buffer.putInt(READ_POSITION, HEADER_SIZE);
+        }
+
+        void force() {
+            buffer.force();
+        }
+
+        void delete() throws IOException {
+            // the file can't be unmapped before it is garbage collected, but it can be unlinked
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public static Builder builder(Path directory) {
+        return new Builder(directory);
+    }
+
+    /**
+     * By default this keeps up to 16 segments of 4 MiB, and replays up to 10 records per second, in
+     * bursts of up to a minute's worth of records.
+     */
+    public static final class Builder {
+        private static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+        private static final int DEFAULT_MAX_SEGMENTS = 16;
+        private static final int DEFAULT_DRAIN_RATE = 10;
+
+        private final Path directory;
+        private int segmentSize = DEFAULT_SEGMENT_SIZE;
+        private int maxSegments = DEFAULT_MAX_SEGMENTS;
+        private int drainRate = DEFAULT_DRAIN_RATE;
+        private int maxBurst;
+        private Clock clock = Clock.defaultClock();
+
+        private Builder(Path directory) {
+            this.directory = Objects.requireNonNull(directory, "directory is required");
+        }
+
+        /**
+         * Size of each segment file, which bounds the size of a record.
+         */
+        public Builder segmentSize(int value) {
+            if (value <= HEADER_SIZE + RECORD_HEADER_SIZE) {
+                throw new IllegalArgumentException("ReportSpool segment size is too small: " + value);
+            }
+            this.segmentSize = value;
+            return this;
+        }
+
+        /**
+         * Number of segments kept before the oldest one is dropped.
+         */
+        public Builder maxSegments(int value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("ReportSpool max segments must be positive: " + value);
+            }
+            this.maxSegments = value;
+            return this;
+        }
+
+        /**
+         * Number of records replayed per second.
+         */
+        public Builder drainRate(int value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("ReportSpool drain rate must be positive: " + value);
+            }
+            this.drainRate = value;
+            return this;
+        }
+
+        /**
+         * Number of records which may be replayed by a single drain, after a while without draining.
+         * It should allow for the time between two drains, such as the period of the reporter.
+         * Defaults to a minute's worth of the drain rate.
+         */
+        public Builder maxBurst(int value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("ReportSpool max burst must be positive: " + value);
+            }
+            this.maxBurst = value;
+            return this;
+        }
+
+        /**
+         * Clock instance used to limit the drain rate.
+         */
+        public Builder clock(Clock value) {
+            this.clock = Objects.requireNonNull(value, "clock is required");
+            return this;
+        }
+
+        /**
+         * Creates the spool, and reopens the segments left in its directory.
+         *
+         * @throws IOException if the directory or its segments couldn't be opened
+         */
+        public ReportSpool build() throws IOException {
+            return new ReportSpool(this);
+        }
+    }
+}
@@ -18,10 +18,56 @@ public interface Reservoir {
      */
     void update(long value);
 
+    /**
+     * Adds a batch of recorded values to the reservoir.
+     * <p>
+     * The default implementation adds the values one by one. The included reservoirs override it to
+     * read the clock, update their counters and take their locks once per batch instead of once per
+     * value.
+     *
+     * @param values an array of recorded values
+     * @param offset the index of the first value to add
+     * @param length the number of values to add
+     * @throws IndexOutOfBoundsException if {@code offset} and {@code length} are out of the bounds of
+     *                                   {@code values}
+     */
+    default void update(long[] values, int offset, int length) {
+        BulkUpdates.checkBounds(values, offset, length);
+        for (int i = offset; i < offset + length; i++) {
+            update(values[i]);
+        }
+    }
+
     /**
      * Returns a snapshot of the reservoir's values.
      *
      * @return a snapshot of the reservoir's values
      */
     Snapshot getSnapshot();
+
+    /**
+     * Discards all the recorded values, returning the reservoir to the state it was created in, so
+     * that the same instance can be used again. Values recorded concurrently with a reset may or may
+     * not be kept.
+     * <p>
+     * The default implementation throws an {@link UnsupportedOperationException}; the included
+     * reservoirs all support it.
+     *
+     * @throws UnsupportedOperationException if the reservoir can't be reset
+     */
+    default void reset() {
+        throw new UnsupportedOperationException(getClass().getName() + " can't be reset");
+    }
+
+    /**
+     * Returns an estimate of the number of bytes of heap retained by this reservoir, including the
+     * samples it currently keeps.
+     * <p>
+     * The default implementation returns {@code 0}, for reservoirs which don't know their footprint.
+     *
+     * @return the estimated number of bytes retained by this reservoir
+     */
+    default long estimateRetainedBytes() {
+        return 0;
+    }
 }
@@ -69,19 +69,61 @@ public class SlidingTimeWindowArrayReservoir implements Reservoir {
         } while (!measurements.put(newTick, value));
     }
 
+    @Override
+    public void update(long[] values, int offset, int length) {
+        BulkUpdates.checkBounds(values, offset, length);
+        if (length == 0) {
+            return;
+        }
+        final long previousCount = count.getAndAdd(length);
+        if (previousCount / TRIM_THRESHOLD != (previousCount + length) / TRIM_THRESHOLD) {
+            trim();
+        }
+        // the batch gets consecutive ticks from a single clock read
+        final long lastTick = this.lastTick.get();
+        final long firstTick = getTicks(length);
+        if (firstTick < lastTick) {
+            measurements.clear();
+        }
+        if (!measurements.put(firstTick, values, offset, length)) {
+            // a concurrent update stored a later tick in the meantime
+            for (int i = offset; i < offset + length; i++) {
+                update(values[i]);
+            }
+        }
+    }
+
     @Override
     public Snapshot getSnapshot() {
         trim();
         return new UniformSnapshot(measurements.values());
     }
 
+    @Override
+    public void reset() {
+        measurements.clear();
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        return HeapEstimates.object(4 * HeapEstimates.REFERENCE + 8 + 8) + 2 * HeapEstimates.ATOMIC_LONG
+                + measurements.estimateRetainedBytes();
+    }
+
     private long getTick() {
+        return getTicks(1);
+    }
+
+    /**
+     * Reserves {@code n} consecutive ticks and returns the first one.
+     */
+    private long getTicks(int n) {
         for ( ;; ) {
             final long oldTick = lastTick.get();
             final long tick = (clock.getTick() - startTick) * COLLISION_BUFFER;
             // ensure the tick is strictly incrementing even if there are duplicate ticks
             final long newTick = tick - oldTick > 0L ? tick : oldTick + 1L;
-            if (lastTick.compareAndSet(oldTick, newTick)) {
+            if (lastTick.compareAndSet(oldTick, newTick + n - 1)) {
                 return newTick;
             }
         }
@@ -116,6 +116,24 @@ public class SlidingTimeWindowMovingAverages implements MovingAverages {
         return getMinuteRate(15);
     }
 
+    @Override
+    public void reset() {
+        // the buckets stay aligned with the time window, only their counts are discarded
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        // one adder per bucket, in an array list, and the instants of the window
+        return HeapEstimates.object(5 * HeapEstimates.REFERENCE + 2 * 4) + HeapEstimates.ATOMIC_LONG
+                + HeapEstimates.object(HeapEstimates.REFERENCE + 2 * 4)
+                + HeapEstimates.array(NUMBER_OF_BUCKETS, HeapEstimates.REFERENCE)
+                + NUMBER_OF_BUCKETS * HeapEstimates.LONG_ADDER
+                + 2 * HeapEstimates.object(8 + 4);
+    }
+
     @Override
     public double getM5Rate() {
         return getMinuteRate(5);
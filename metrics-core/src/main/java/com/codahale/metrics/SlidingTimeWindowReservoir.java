@@ -63,19 +63,56 @@ public class SlidingTimeWindowReservoir implements Reservoir {
         measurements.put(getTick(), value);
     }
 
+    @Override
+    public void update(long[] values, int offset, int length) {
+        BulkUpdates.checkBounds(values, offset, length);
+        if (length == 0) {
+            return;
+        }
+        final long previousCount = count.getAndAdd(length);
+        if (previousCount / TRIM_THRESHOLD != (previousCount + length) / TRIM_THRESHOLD) {
+            trim();
+        }
+        // the batch gets consecutive ticks from a single clock read
+        final long firstTick = getTicks(length);
+        for (int i = 0; i < length; i++) {
+            measurements.put(firstTick + i, values[offset + i]);
+        }
+    }
+
     @Override
     public Snapshot getSnapshot() {
         trim();
         return new UniformSnapshot(measurements.values());
     }
 
+    @Override
+    public void reset() {
+        measurements.clear();
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        // every measurement is a boxed value keyed by its boxed tick, and the window is not trimmed
+        // so that estimating has no side effects
+        return HeapEstimates.object(4 * HeapEstimates.REFERENCE + 8 + 8) + 2 * HeapEstimates.ATOMIC_LONG
+                + HeapEstimates.skipList(measurements.size(), 2 * HeapEstimates.BOXED_LONG);
+    }
+
     private long getTick() {
+        return getTicks(1);
+    }
+
+    /**
+     * Reserves {@code n} consecutive ticks and returns the first one.
+     */
+    private long getTicks(int n) {
         for ( ;; ) {
             final long oldTick = lastTick.get();
             final long tick = (clock.getTick() - startTick) * COLLISION_BUFFER;
             // ensure the tick is strictly incrementing even if there are duplicate ticks
             final long newTick = tick - oldTick > 0 ? tick : oldTick + 1;
-            if (lastTick.compareAndSet(oldTick, newTick)) {
+            if (lastTick.compareAndSet(oldTick, newTick + n - 1)) {
                 return newTick;
             }
         }
@@ -30,6 +30,14 @@ public class SlidingWindowReservoir implements Reservoir {
         measurements[(int) (count++ % measurements.length)] = value;
     }
 
+    @Override
+    public synchronized void update(long[] values, int offset, int length) {
+        BulkUpdates.checkBounds(values, offset, length);
+        for (int i = offset; i < offset + length; i++) {
+            measurements[(int) (count++ % measurements.length)] = values[i];
+        }
+    }
+
     @Override
     public Snapshot getSnapshot() {
         final long[] values = new long[size()];
@@ -40,4 +48,14 @@ public class SlidingWindowReservoir implements Reservoir {
         }
         return new UniformSnapshot(values);
     }
+
+    @Override
+    public synchronized void reset() {
+        count = 0;
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        return HeapEstimates.object(HeapEstimates.REFERENCE + 8) + HeapEstimates.array(measurements.length, 8);
+    }
 }
@@ -0,0 +1,147 @@
+package com.codahale.metrics;
+
+import com.codahale.metrics.WeightedSnapshot.WeightedSample;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * A {@link Reservoir} implementation which spreads updates across a number of independent
+ * sub-reservoirs, in the manner of the cells of a {@link java.util.concurrent.atomic.LongAdder}.
+ * Each thread is hashed to a stripe, so threads running on different cores rarely touch the same
+ * counters or locks. The stripes are only merged when {@link #getSnapshot()} is called.
+ * <p>
+ * When the stripes are {@link UniformReservoir}s, which sample every update they have seen, the
+ * merged snapshot weighs every sample by the number of updates its stripe has seen divided by the
+ * number of samples it kept, so stripes with more traffic contribute proportionally more to the
+ * quantiles. Other stripes, such as {@link SlidingWindowReservoir} and
+ * {@link SlidingTimeWindowArrayReservoir}, only hold their window, so each of their samples has the
+ * same weight; a stripe which was busy long ago must not outweigh the ones with recent traffic.
+ * Any weights within a stripe's own snapshot are not preserved by the merge, which makes this
+ * wrapper the best fit for uniform and windowed stripes.
+ */
+public class StripedReservoir implements Reservoir {
+    // spread the per-stripe counters over separate cache lines
+    private static final int PADDING = 16;
+
+    private final Reservoir[] stripes;
+    private final AtomicLongArray counts;
+    private final boolean weighByCount;
+    private final int mask;
+
+    /**
+     * Creates a new {@link StripedReservoir} with a stripe for every available processor.
+     *
+     * @param reservoirSupplier the supplier of the reservoir used by each stripe
+     */
+    public StripedReservoir(Supplier<Reservoir> reservoirSupplier) {
+        this(Runtime.getRuntime().availableProcessors(), reservoirSupplier);
+    }
+
+    /**
+     * Creates a new {@link StripedReservoir}.
+     *
+     * @param stripes           the number of stripes, rounded up to the next power of two
+     * @param reservoirSupplier the supplier of the reservoir used by each stripe
+     */
+    public StripedReservoir(int stripes, Supplier<Reservoir> reservoirSupplier) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("StripedReservoir stripes must be positive: " + stripes);
+        }
+        Objects.requireNonNull(reservoirSupplier, "reservoirSupplier is required");
+        final int size = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Reservoir[size];
+        boolean uniform = true;
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = Objects.requireNonNull(reservoirSupplier.get(), "reservoir is required");
+            uniform &= this.stripes[i] instanceof UniformReservoir;
+        }
+        this.weighByCount = uniform;
+        this.counts = new AtomicLongArray(size * PADDING);
+        this.mask = size - 1;
+    }
+
+    @Override
+    public int size() {
+        long size = 0;
+        for (Reservoir stripe : stripes) {
+            size += stripe.size();
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void update(long value) {
+        final int stripe = stripe();
+        counts.incrementAndGet(stripe * PADDING);
+        stripes[stripe].update(value);
+    }
+
+    @Override
+    public void update(long[] values, int offset, int length) {
+        BulkUpdates.checkBounds(values, offset, length);
+        if (length == 0) {
+            return;
+        }
+        final int stripe = stripe();
+        counts.addAndGet(stripe * PADDING, length);
+        stripes[stripe].update(values, offset, length);
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        final List<WeightedSample> samples = new ArrayList<>();
+        for (int i = 0; i < stripes.length; i++) {
+            final long[] values = stripes[i].getSnapshot().getValues();
+            if (values.length == 0) {
+                continue;
+            }
+            final double weight = weighByCount
+                    ? (double) Math.max(counts.get(i * PADDING), values.length) / values.length
+                    : 1.0;
+            for (long value : values) {
+                samples.add(new WeightedSample(value, weight));
+            }
+        }
+        return new WeightedSnapshot(samples);
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i].reset();
+            counts.set(i * PADDING, 0);
+        }
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        long bytes = HeapEstimates.object(2 * HeapEstimates.REFERENCE + 1 + 4)
+                + HeapEstimates.array(stripes.length, HeapEstimates.REFERENCE)
+                + HeapEstimates.atomicLongArray(counts.length());
+        for (Reservoir stripe : stripes) {
+            bytes += stripe.estimateRetainedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the number of stripes.
+     *
+     * @return the number of stripes
+     */
+    public int getStripes() {
+        return stripes.length;
+    }
+
+    private int stripe() {
+        // Stafford's mix13 finalizer, so sequential thread ids land on different stripes
+        long h = Thread.currentThread().getId();
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return (int) (h ^ (h >>> 31)) & mask;
+    }
+}
@@ -47,6 +47,51 @@ public class Timer implements Metered, Sampling {
         }
     }
 
+    /**
+     * A timing context which can be restarted and stopped any number of times, so timing an event
+     * does not allocate. A {@link ReusableContext} is not thread-safe: each thread should keep its
+     * own, for example in a field of a worker or in a {@link ThreadLocal}.
+     *
+     * @see Timer#newReusableContext()
+     */
+    public static class ReusableContext implements AutoCloseable {
+        private final Timer timer;
+        private long startTime;
+
+        ReusableContext(Timer timer) {
+            this.timer = timer;
+            this.startTime = timer.clock.getTick();
+        }
+
+        /**
+         * Resets the start time of this context to the current time.
+         *
+         * @return this context
+         */
+        public ReusableContext start() {
+            this.startTime = timer.clock.getTick();
+            return this;
+        }
+
+        /**
+         * Updates the timer with the difference between current and start time. Call to this method will
+         * not reset the start time. Multiple calls result in multiple updates.
+         *
+         * @return the elapsed time in nanoseconds
+         */
+        public long stop() {
+            return timer.stopNanos(startTime);
+        }
+
+        /**
+         * Equivalent to calling {@link #stop()}.
+         */
+        @Override
+        public void close() {
+            stop();
+        }
+    }
+
     private final Meter meter;
     private final Histogram histogram;
     private final Clock clock;
@@ -94,6 +139,42 @@ public class Timer implements Metered, Sampling {
         update(unit.toNanos(duration));
     }
 
+    /**
+     * Adds a batch of recorded durations. The histogram and the meter are updated once for the whole
+     * batch rather than once per duration. Negative durations are ignored.
+     *
+     * @param durations an array of lengths of durations
+     * @param offset    the index of the first duration to add
+     * @param length    the number of durations to add
+     * @param unit      the scale unit of {@code durations}
+     * @throws IndexOutOfBoundsException if {@code offset} and {@code length} are out of the bounds of
+     *                                   {@code durations}
+     */
+    public void update(long[] durations, int offset, int length, TimeUnit unit) {
+        BulkUpdates.checkBounds(durations, offset, length);
+        final long[] nanos;
+        final int from;
+        int count = 0;
+        if (unit == TimeUnit.NANOSECONDS && allNonNegative(durations, offset, length)) {
+            // record the caller's array as it is
+            nanos = durations;
+            from = offset;
+            count = length;
+        } else {
+            nanos = new long[length];
+            from = 0;
+            for (int i = offset; i < offset + length; i++) {
+                if (durations[i] >= 0) {
+                    nanos[count++] = unit.toNanos(durations[i]);
+                }
+            }
+        }
+        if (count > 0) {
+            histogram.update(nanos, from, count);
+            meter.mark(count);
+        }
+    }
+
     /**
      * Adds a recorded duration.
      *
@@ -164,6 +245,38 @@ public class Timer implements Metered, Sampling {
         return new Context(this, clock);
     }
 
+    /**
+     * Returns a new {@link ReusableContext}, started at the current time.
+     *
+     * @return a new {@link ReusableContext}
+     * @see ReusableContext
+     */
+    public ReusableContext newReusableContext() {
+        return new ReusableContext(this);
+    }
+
+    /**
+     * Returns the current tick of the timer's clock, to be passed to {@link #stopNanos(long)} once
+     * the event is over. Unlike {@link #time()}, this does not allocate a {@link Context}.
+     *
+     * @return the start time in nanoseconds
+     */
+    public long startNanos() {
+        return clock.getTick();
+    }
+
+    /**
+     * Updates the timer with the time elapsed since the given start time.
+     *
+     * @param startNanos a start time returned by {@link #startNanos()}
+     * @return the elapsed time in nanoseconds
+     */
+    public long stopNanos(long startNanos) {
+        final long elapsed = clock.getTick() - startNanos;
+        update(elapsed);
+        return elapsed;
+    }
+
     @Override
     public long getCount() {
         return histogram.getCount();
@@ -194,6 +307,33 @@ public class Timer implements Metered, Sampling {
         return histogram.getSnapshot();
     }
 
+    /**
+     * Discards all the recorded durations, resetting the timer's meter and histogram.
+     *
+     * @throws UnsupportedOperationException if the reservoir or the moving averages can't be reset
+     * @see Meter#reset()
+     * @see Histogram#reset()
+     */
+    public void reset() {
+        histogram.reset();
+        meter.reset();
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        return HeapEstimates.object(3 * HeapEstimates.REFERENCE) + meter.estimateRetainedBytes()
+                + histogram.estimateRetainedBytes();
+    }
+
+    private static boolean allNonNegative(long[] values, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (values[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void update(long duration) {
         if (duration >= 0) {
             histogram.update(duration);
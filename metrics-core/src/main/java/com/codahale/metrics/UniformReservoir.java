@@ -58,6 +58,28 @@ public class UniformReservoir implements Reservoir {
         }
     }
 
+    @Override
+    public void update(long[] values, int offset, int length) {
+        BulkUpdates.checkBounds(values, offset, length);
+        if (length == 0) {
+            return;
+        }
+        // reserve the positions of the whole batch in the stream at once
+        final long first = count.getAndAdd(length) + 1;
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < length; i++) {
+            final long c = first + i;
+            if (c <= this.values.length()) {
+                this.values.set((int) c - 1, values[offset + i]);
+            } else {
+                final long r = random.nextLong(c);
+                if (r < this.values.length()) {
+                    this.values.set((int) r, values[offset + i]);
+                }
+            }
+        }
+    }
+
     @Override
     public Snapshot getSnapshot() {
         final int s = size();
@@ -67,4 +89,15 @@ public class UniformReservoir implements Reservoir {
         }
         return new UniformSnapshot(copy);
     }
+
+    @Override
+    public void reset() {
+        count.set(0);
+    }
+
+    @Override
+    public long estimateRetainedBytes() {
+        return HeapEstimates.object(2 * HeapEstimates.REFERENCE) + HeapEstimates.ATOMIC_LONG
+                + HeapEstimates.atomicLongArray(values.length());
+    }
 }
@@ -60,6 +60,101 @@ public class WeightedSnapshot extends Snapshot {
         }
     }
 
+    /**
+     * Create a new {@link Snapshot} with the given values and weights, without allocating a
+     * {@link WeightedSample} per value. The snapshot takes ownership of both arrays, which it sorts
+     * and normalizes in place, so callers must pass arrays of their own.
+     *
+     * @param values  an unordered set of values in the reservoir
+     * @param weights the weight of each value, in the same order as {@code values}
+     */
+    WeightedSnapshot(long[] values, double[] weights) {
+        if (values.length != weights.length) {
+            throw new IllegalArgumentException("Mismatched lengths: " + values.length + " vs " + weights.length);
+        }
+
+        this.values = values;
+        this.normWeights = weights;
+        this.quantiles = new double[values.length];
+
+        sortByValue(this.values, this.normWeights, 0, this.values.length - 1);
+
+        double sumWeight = 0;
+        for (double weight : this.normWeights) {
+            sumWeight += weight;
+        }
+
+        for (int i = 0; i < this.normWeights.length; i++) {
+            this.normWeights[i] = sumWeight != 0 ? this.normWeights[i] / sumWeight : 0;
+        }
+
+        for (int i = 1; i < this.values.length; i++) {
+            this.quantiles[i] = this.quantiles[i - 1] + this.normWeights[i - 1];
+        }
+    }
+
+    /**
+     * Sorts the values in {@code [from..to]} and moves their weights along with them.
+     */
+    private static void sortByValue(long[] values, double[] weights, int from, int to) {
+        while (to - from >= 16) {
+            final int mid = (from + to) >>> 1;
+            // median of three, which leaves the pivot in the middle
+            if (values[mid] < values[from]) {
+                swap(values, weights, mid, from);
+            }
+            if (values[to] < values[from]) {
+                swap(values, weights, to, from);
+            }
+            if (values[to] < values[mid]) {
+                swap(values, weights, to, mid);
+            }
+            final long pivot = values[mid];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(values, weights, i++, j--);
+                }
+            }
+            // recurse into the smaller half to bound the stack depth
+            if (j - from < to - i) {
+                sortByValue(values, weights, from, j);
+                from = i;
+            } else {
+                sortByValue(values, weights, i, to);
+                to = j;
+            }
+        }
+        for (int i = from + 1; i <= to; i++) {
+            final long value = values[i];
+            final double weight = weights[i];
+            int j = i - 1;
+            while (j >= from && values[j] > value) {
+                values[j + 1] = values[j];
+                weights[j + 1] = weights[j];
+                j--;
+            }
+            values[j + 1] = value;
+            weights[j + 1] = weight;
+        }
+    }
+
+    private static void swap(long[] values, double[] weights, int i, int j) {
+        final long value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+        final double weight = weights[i];
+        weights[i] = weights[j];
+        weights[j] = weight;
+    }
+
     /**
      * Returns the value at the given quantile.
      *
@@ -0,0 +1,122 @@
+package com.codahale.metrics;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assumptions.assumeThat;
+
+public class AdaptiveReservoirTest {
+    private final ManualClock clock = new ManualClock();
+
+    private AdaptiveReservoir reservoir(int bufferSize, int threshold) {
+        return (AdaptiveReservoir) AdaptiveReservoir.builder()
+                .bufferSize(bufferSize)
+                .promoteAfter(threshold, Duration.ofMinutes(1))
+                .reservoir(() -> new SlidingWindowReservoir(100))
+                .clock(clock)
+                .build();
+    }
+
+    @Test
+    public void keepsTheRecentValuesUntilPromoted() {
+        final AdaptiveReservoir reservoir = reservoir(4, 10);
+
+        assertThat(reservoir.getSnapshot().getValues())
+                .isEmpty();
+
+        for (int i = 1; i <= 6; i++) {
+            reservoir.update(i);
+            clock.addSeconds(30);
+        }
+
+        assertThat(reservoir.isPromoted())
+                .isFalse();
+        assertThat(reservoir.size())
+                .isEqualTo(4);
+        assertThat(reservoir.getSnapshot().getValues())
+                .containsExactly(3, 4, 5, 6);
+    }
+
+    @Test
+    public void doesNotPromoteWhenUpdatesAreSpreadOut() {
+        final AdaptiveReservoir reservoir = reservoir(4, 10);
+
+        for (int i = 0; i < 100; i++) {
+            reservoir.update(i);
+            clock.addSeconds(7);
+        }
+
+        assertThat(reservoir.isPromoted())
+                .isFalse();
+    }
+
+    @Test
+    public void promotesWhenUpdatedOftenAndReplaysTheBufferedValues() {
+        final AdaptiveReservoir reservoir = reservoir(4, 6);
+
+        for (int i = 1; i <= 5; i++) {
+            reservoir.update(i);
+        }
+        assertThat(reservoir.isPromoted())
+                .isFalse();
+
+        reservoir.update(6);
+        reservoir.update(7);
+
+        assertThat(reservoir.isPromoted())
+                .isTrue();
+        assertThat(reservoir.getSnapshot().getValues())
+                .containsExactly(3, 4, 5, 6, 7);
+    }
+
+    @Test
+    public void promotesInTheMiddleOfABatch() {
+        final AdaptiveReservoir reservoir = reservoir(4, 3);
+
+        reservoir.update(new long[]{9, 1, 2, 3, 4, 5, 9}, 1, 5);
+
+        assertThat(reservoir.isPromoted())
+                .isTrue();
+        assertThat(reservoir.getSnapshot().getValues())
+                .containsExactly(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void takesAnOrderOfMagnitudeLessHeapThanADecayingReservoirWhenIdle() {
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeThat(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled())
+                .isTrue();
+
+        // neither reservoir drops anything it allocates at this rate, so what they allocate is what
+        // they retain
+        final long decaying = allocatedBytes(threads, ExponentiallyDecayingReservoir::new);
+        final long adaptive = allocatedBytes(threads, () -> AdaptiveReservoir.builder().build());
+
+        assertThat(adaptive * 10)
+                .isLessThan(decaying);
+    }
+
+    private static long allocatedBytes(com.sun.management.ThreadMXBean threads, Supplier<Reservoir> supplier) {
+        final List<Reservoir> reservoirs = new ArrayList<>();
+        final long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (int i = 0; i < 1_000; i++) {
+            final Reservoir reservoir = supplier.get();
+            // fewer updates than it takes to promote the adaptive reservoir
+            for (int j = 0; j < 50; j++) {
+                reservoir.update(j);
+            }
+            reservoirs.add(reservoir);
+        }
+        final long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+        assertThat(reservoirs)
+                .hasSize(1_000);
+        return allocated;
+    }
+}
@@ -0,0 +1,131 @@
+package com.codahale.metrics;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AsyncListenerDispatcherTest {
+    private final AsyncListenerDispatcher dispatcher = new AsyncListenerDispatcher();
+    private final MetricRegistry registry = new MetricRegistry();
+
+    @After
+    public void tearDown() {
+        dispatcher.close();
+    }
+
+    @Test
+    public void deliversEventsInOrderOnTheDispatcherThread() throws Exception {
+        final RecordingListener listener = new RecordingListener();
+        registry.setListenerDispatcher(dispatcher);
+        registry.addListener(listener);
+
+        registry.counter("one");
+        registry.timer("two");
+        registry.remove("one");
+
+        assertThat(dispatcher.flush(1, TimeUnit.SECONDS))
+                .isTrue();
+        assertThat(listener.events())
+                .containsExactly("ADDED one", "ADDED two", "REMOVED one");
+        assertThat(listener.threads)
+                .allMatch(thread -> thread.startsWith("metrics-listener-dispatcher-"));
+    }
+
+    @Test
+    public void deliversQueuedEventsInBatches() throws Exception {
+        final RecordingListener listener = new RecordingListener();
+        registry.setListenerDispatcher(dispatcher);
+        registry.addListener(listener);
+
+        for (int i = 0; i < 100; i++) {
+            registry.counter("counter-" + i);
+        }
+
+        assertThat(dispatcher.flush(1, TimeUnit.SECONDS))
+                .isTrue();
+        assertThat(listener.events)
+                .hasSize(100);
+        assertThat(listener.batches.get())
+                .isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    public void catchesUpNewListenersWithExistingMetricsOnly() throws Exception {
+        final RecordingListener first = new RecordingListener();
+        final RecordingListener second = new RecordingListener();
+        registry.setListenerDispatcher(dispatcher);
+        registry.addListener(first);
+        registry.counter("one");
+        registry.addListener(second);
+        registry.counter("two");
+
+        assertThat(dispatcher.flush(1, TimeUnit.SECONDS))
+                .isTrue();
+        assertThat(first.events())
+                .containsExactly("ADDED one", "ADDED two");
+        assertThat(second.events())
+                .containsExactly("ADDED one", "ADDED two");
+    }
+
+    @Test
+    public void keepsDeliveringWhenAListenerFails() throws Exception {
+        final RecordingListener listener = new RecordingListener();
+        registry.setListenerDispatcher(dispatcher);
+        registry.addListener(new MetricRegistryListener.Base() {
+            @Override
+            public void onCounterAdded(String name, Counter counter) {
+                throw new IllegalStateException("broken");
+            }
+        });
+        registry.addListener(listener);
+
+        registry.counter("one");
+        registry.counter("two");
+
+        assertThat(dispatcher.flush(1, TimeUnit.SECONDS))
+                .isTrue();
+        assertThat(listener.events())
+                .containsExactly("ADDED one", "ADDED two");
+    }
+
+    @Test
+    public void deliversEventsOnTheCallerThreadOnceClosed() throws Exception {
+        final RecordingListener listener = new RecordingListener();
+        registry.setListenerDispatcher(dispatcher);
+        registry.addListener(listener);
+
+        dispatcher.close();
+        registry.counter("one");
+
+        assertThat(listener.events())
+                .containsExactly("ADDED one");
+        assertThat(listener.threads)
+                .containsExactly(Thread.currentThread().getName());
+        assertThat(dispatcher.flush(1, TimeUnit.SECONDS))
+                .isTrue();
+    }
+
+    private static class RecordingListener extends MetricRegistryListener.Base {
+        final List<MetricRegistryEvent> events = new CopyOnWriteArrayList<>();
+        final List<String> threads = new CopyOnWriteArrayList<>();
+        final AtomicInteger batches = new AtomicInteger();
+
+        @Override
+        public void onEvents(List<MetricRegistryEvent> events) {
+            this.events.addAll(events);
+            threads.add(Thread.currentThread().getName());
+            batches.incrementAndGet();
+        }
+
+        List<String> events() {
+            return events.stream().map(MetricRegistryEvent::toString).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.codahale.metrics;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class CardinalityLimitsTest {
+    private final MetricRegistryListener listener = mock(MetricRegistryListener.class);
+    private final ManualClock clock = new ManualClock();
+
+    @Test
+    public void rejectsMetricsIntoSharedOverflowMetrics() {
+        final MetricRegistry registry = new MetricRegistry(CardinalityLimits.builder()
+                .maxMetrics(2)
+                .build());
+
+        final Counter one = registry.counter("one");
+        final Counter two = registry.counter("two");
+        final Counter three = registry.counter("three");
+        final Counter four = registry.counter("four");
+        final Meter five = registry.meter("five");
+
+        assertThat(three)
+                .isSameAs(four)
+                .isNotSameAs(one)
+                .isNotSameAs(two);
+        assertThat(registry.getNames())
+                .containsExactly("one", "overflow.counter", "overflow.meter", "two");
+        assertThat(registry.getMeters())
+                .containsEntry("overflow.meter", five);
+    }
+
+    @Test
+    public void doesNotRegisterRejectedMetrics() {
+        final MetricRegistry registry = new MetricRegistry(CardinalityLimits.builder()
+                .maxMetrics(1)
+                .build());
+        final Gauge<Integer> gauge = () -> 1;
+
+        registry.counter("one");
+
+        assertThat(registry.register("gauge", gauge))
+                .isSameAs(gauge);
+        assertThat(registry.getNames())
+                .containsExactly("one");
+    }
+
+    @Test
+    public void doesNotShareRejectedGauges() {
+        final MetricRegistry registry = new MetricRegistry(CardinalityLimits.builder()
+                .maxMetrics(1)
+                .build());
+
+        registry.counter("one");
+        final Gauge<Integer> two = registry.gauge("two", () -> () -> 2);
+        final Gauge<Integer> three = registry.gauge("three", () -> () -> 3);
+
+        assertThat(two.getValue())
+                .isEqualTo(2);
+        assertThat(three.getValue())
+                .isEqualTo(3);
+        assertThat(registry.getNames())
+                .containsExactly("one");
+    }
+
+    @Test
+    public void forgetsRemovedMetricsWhichWereNeverEvicted() {
+        final CardinalityGuard guard = new CardinalityGuard(CardinalityLimits.builder()
+                .maxMetrics(2)
+                .build());
+        final CardinalityGuard.Scope scope = guard.scopeOf("metric");
+
+        for (int i = 0; i < 10_000; i++) {
+            final Counter counter = new Counter();
+            assertThat(guard.track("metric" + i, counter))
+                    .isNull();
+            guard.untrack("metric" + i, counter);
+        }
+
+        assertThat(scope.candidates)
+                .hasSizeLessThanOrEqualTo(CardinalityGuard.MIN_STALE_CANDIDATES);
+        assertThat(scope.size)
+                .hasValue(0);
+    }
+
+    @Test
+    public void limitsMetricsUnderTheMostSpecificPrefix() {
+        final MetricRegistry registry = new MetricRegistry(CardinalityLimits.builder()
+                .maxMetrics("http", 1)
+                .maxMetrics("http.requests", 2)
+                .build());
+
+        registry.meter("http.requests.get");
+        registry.meter("http.requests.post");
+        registry.meter("http.requests.put");
+        registry.meter("http.responses.200");
+        registry.meter("http.responses.404");
+        registry.meter("https.requests");
+
+        assertThat(registry.getNames())
+                .containsExactly(
+                        "http.overflow.meter",
+                        "http.requests.get",
+                        "http.requests.overflow.meter",
+                        "http.requests.post",
+                        "http.responses.200",
+                        "https.requests");
+    }
+
+    @Test
+    public void removingMetricsMakesRoom() {
+        final MetricRegistry registry = new MetricRegistry(CardinalityLimits.builder()
+                .maxMetrics(1)
+                .build());
+
+        registry.counter("one");
+        registry.remove("one");
+        registry.counter("two");
+
+        assertThat(registry.getNames())
+                .containsExactly("two");
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUpdatedMetric() {
+        final MetricRegistry registry = new MetricRegistry(CardinalityLimits.builder()
+                .maxMetrics(2)
+                .overflowPolicy(CardinalityLimits.OverflowPolicy.EVICT_LEAST_RECENTLY_UPDATED)
+                .clock(clock)
+                .build());
+        registry.addListener(listener);
+
+        registry.counter("one").inc();
+        registry.counter("two");
+        registry.counter("one").inc();
+        final Counter three = registry.counter("three");
+
+        assertThat(registry.getCounters())
+                .containsOnlyKeys("one", "three")
+                .containsEntry("three", three);
+        verify(listener).onCounterRemoved("two");
+    }
+
+    @Test
+    public void doesNotEvictGauges() {
+        final MetricRegistry registry = new MetricRegistry(CardinalityLimits.builder()
+                .maxMetrics(1)
+                .overflowPolicy(CardinalityLimits.OverflowPolicy.EVICT_LEAST_RECENTLY_UPDATED)
+                .build());
+
+        registry.registerGauge("gauge", () -> 1);
+        registry.counter("one");
+
+        assertThat(registry.getNames())
+                .containsExactly("gauge", "overflow.counter");
+    }
+
+    @Test
+    public void evictsMetricsWhichHaveNotBeenUpdatedForLongerThanTheExpiration() {
+        final MetricRegistry registry = new MetricRegistry(CardinalityLimits.builder()
+                .expireAfterIdle(Duration.ofMinutes(1))
+                .clock(clock)
+                .build());
+        registry.addListener(listener);
+
+        final Counter active = registry.counter("active");
+        registry.timer("idle");
+        registry.registerGauge("gauge", () -> 1);
+
+        clock.addSeconds(30);
+        active.inc();
+        registry.evictIdleMetrics();
+
+        assertThat(registry.getNames())
+                .containsExactly("active", "gauge", "idle");
+
+        clock.addSeconds(40);
+        registry.evictIdleMetrics();
+
+        assertThat(registry.getNames())
+                .containsExactly("active", "gauge");
+        verify(listener).onTimerRemoved("idle");
+        verify(listener, never()).onCounterRemoved("active");
+    }
+
+    @Test
+    public void evictsIdleMetricsWhenRegisteringNewOnes() {
+        final MetricRegistry registry = new MetricRegistry(CardinalityLimits.builder()
+                .expireAfterIdle(Duration.ofMinutes(1))
+                .clock(clock)
+                .build());
+
+        registry.meter("idle");
+        clock.addSeconds(61);
+        registry.meter("new");
+
+        assertThat(registry.getNames())
+                .containsExactly("new");
+    }
+
+    @Test
+    public void rejectsInvalidLimits() {
+        assertThatThrownBy(() -> CardinalityLimits.builder().maxMetrics(0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CardinalityLimits.builder().maxMetrics("", 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CardinalityLimits.builder().expireAfterIdle(Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -37,4 +37,19 @@ public class ChunkedAssociativeLongArrayTest {
                 .isEqualTo(6);
 
     }
+
+    @Test
+    public void testBulkPut() {
+        ChunkedAssociativeLongArray array = new ChunkedAssociativeLongArray(3);
+        array.put(1, 7);
+
+        then(array.put(2, new long[]{0, 1, 2, 3, 4}, 1, 4))
+                .isTrue();
+        then(array.out())
+                .isEqualTo("[(1: 7) (2: 1) (3: 2) ]->[(4: 3) (5: 4) ]");
+        then(array.put(4, new long[]{9}, 0, 1))
+                .isFalse();
+        then(array.size())
+                .isEqualTo(5);
+    }
 }
@@ -0,0 +1,159 @@
+package com.codahale.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.codahale.metrics.CompactSlidingTimeWindowMovingAverages.NUMBER_OF_BUCKETS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class CompactSlidingTimeWindowMovingAveragesTest {
+
+    private ManualClock clock;
+    private Meter meter;
+
+    @Before
+    public void init() {
+        clock = new ManualClock();
+        meter = new Meter(new CompactSlidingTimeWindowMovingAverages(clock), clock);
+    }
+
+    @Test
+    public void mark_max_without_cleanup() {
+
+        int markCount = NUMBER_OF_BUCKETS;
+
+        // compensate the first addSeconds in the loop; first tick should be at zero
+        clock.addSeconds(-1);
+
+        for (int i = 0; i < markCount; i++) {
+            clock.addSeconds(1);
+            meter.mark();
+        }
+
+        assertThat(meter.getOneMinuteRate()).isEqualTo(60.0);
+        assertThat(meter.getFiveMinuteRate()).isEqualTo(300.0);
+        assertThat(meter.getFifteenMinuteRate()).isEqualTo(900.0);
+    }
+
+    @Test
+    public void mark_1000_values() {
+
+        for (int i = 0; i < 1000; i++) {
+            clock.addSeconds(1);
+            meter.mark();
+        }
+
+        // only 60/300/900 of the 1000 events took place in the last 1/5/15 minute(s)
+        assertThat(meter.getOneMinuteRate()).isEqualTo(60.0);
+        assertThat(meter.getFiveMinuteRate()).isEqualTo(300.0);
+        assertThat(meter.getFifteenMinuteRate()).isEqualTo(900.0);
+    }
+
+    @Test
+    public void mark_10_values() {
+
+        // compensate the first addSeconds in the loop; first tick should be at zero
+        clock.addSeconds(-1);
+
+        for (int i = 0; i < 10; i++) {
+            clock.addSeconds(1);
+            meter.mark();
+        }
+
+        assertThat(meter.getCount()).isEqualTo(10L);
+        assertThat(meter.getOneMinuteRate()).isEqualTo(10.0);
+        assertThat(meter.getFiveMinuteRate()).isEqualTo(10.0);
+        assertThat(meter.getFifteenMinuteRate()).isEqualTo(10.0);
+    }
+
+    @Test
+    public void cleanup_pause_shorter_than_window() {
+
+        meter.mark(10);
+
+        // no mark for three minutes
+        clock.addSeconds(180);
+        assertThat(meter.getOneMinuteRate()).isEqualTo(0.0);
+        assertThat(meter.getFiveMinuteRate()).isEqualTo(10.0);
+        assertThat(meter.getFifteenMinuteRate()).isEqualTo(10.0);
+    }
+
+    @Test
+    public void cleanup_window_wrap_around() {
+
+        // mark at 14:40 minutes of the 15 minute window...
+        clock.addSeconds(880);
+        meter.mark(10);
+
+        // and query at 15:30 minutes (the bucket index must have wrapped around)
+        clock.addSeconds(50);
+        assertThat(meter.getOneMinuteRate()).isEqualTo(10.0);
+        assertThat(meter.getFiveMinuteRate()).isEqualTo(10.0);
+        assertThat(meter.getFifteenMinuteRate()).isEqualTo(10.0);
+
+        // and query at 30:10 minutes (the bucket index must have wrapped around for the second time)
+        clock.addSeconds(880);
+        assertThat(meter.getOneMinuteRate()).isEqualTo(0.0);
+        assertThat(meter.getFiveMinuteRate()).isEqualTo(0.0);
+        assertThat(meter.getFifteenMinuteRate()).isEqualTo(0.0);
+    }
+
+    @Test
+    public void cleanup_pause_longer_than_two_windows() {
+
+        meter.mark(10);
+
+        // after forty minutes all rates should be zero
+        clock.addSeconds(2400);
+        assertThat(meter.getOneMinuteRate()).isEqualTo(0.0);
+        assertThat(meter.getFiveMinuteRate()).isEqualTo(0.0);
+        assertThat(meter.getFifteenMinuteRate()).isEqualTo(0.0);
+    }
+
+    @Test
+    public void matchesSlidingTimeWindowMovingAverages() {
+        final SlidingTimeWindowMovingAverages reference = new SlidingTimeWindowMovingAverages(clock);
+        final Meter referenceMeter = new Meter(reference, clock);
+
+        for (int i = 0; i < 3000; i++) {
+            clock.addMillis(i % 7 == 0 ? 2300 : 400);
+            meter.mark(i % 5);
+            referenceMeter.mark(i % 5);
+
+            assertThat(meter.getOneMinuteRate()).isEqualTo(referenceMeter.getOneMinuteRate());
+            assertThat(meter.getFiveMinuteRate()).isEqualTo(referenceMeter.getFiveMinuteRate());
+            assertThat(meter.getFifteenMinuteRate()).isEqualTo(referenceMeter.getFifteenMinuteRate());
+        }
+    }
+
+    @Test
+    public void usesAFractionOfTheHeapOfSlidingTimeWindowMovingAverages() {
+        final long compact = allocatedBytes(CompactSlidingTimeWindowMovingAverages::new);
+        final long reference = allocatedBytes(SlidingTimeWindowMovingAverages::new);
+
+        assertThat(compact).isLessThan(reference / 2);
+    }
+
+    private static long allocatedBytes(Supplier<MovingAverages> supplier) {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        final List<MovingAverages> retained = new ArrayList<>();
+        final long threadId = Thread.currentThread().getId();
+        final long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100; i++) {
+            retained.add(supplier.get());
+        }
+        final long after = threads.getThreadAllocatedBytes(threadId);
+        assertThat(retained).hasSize(100);
+        return (after - before) / retained.size();
+    }
+}
@@ -60,4 +60,18 @@ public class CounterTest {
         assertThat(counter.getCount())
                 .isEqualTo(12);
     }
+
+    @Test
+    public void resetsToZero() {
+        counter.inc(12);
+        counter.reset();
+
+        assertThat(counter.getCount())
+                .isZero();
+
+        counter.inc();
+
+        assertThat(counter.getCount())
+                .isEqualTo(1);
+    }
 }
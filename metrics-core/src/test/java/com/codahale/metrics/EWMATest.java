@@ -215,6 +215,47 @@ public class EWMATest {
         assertThat(ewma.getRate(TimeUnit.SECONDS)).isEqualTo(0.22072766, offset(0.000001));
     }
 
+    @Test
+    public void tickingSeveralIntervalsAtOnceMatchesTickingOneByOne() {
+        final EWMA stepped = EWMA.fiveMinuteEWMA();
+        final EWMA closedForm = EWMA.fiveMinuteEWMA();
+        stepped.update(3);
+        closedForm.update(3);
+        stepped.tick();
+        closedForm.tick();
+
+        stepped.update(42);
+        closedForm.update(42);
+        for (int i = 0; i < 37; i++) {
+            stepped.tick();
+        }
+        closedForm.tick(37);
+
+        assertThat(closedForm.getRate(TimeUnit.SECONDS))
+                .isEqualTo(stepped.getRate(TimeUnit.SECONDS), offset(0.000000001));
+    }
+
+    @Test
+    public void tickingSeveralIntervalsInitializesTheRate() {
+        final EWMA ewma = EWMA.oneMinuteEWMA();
+        ewma.update(3);
+        ewma.tick(13);
+
+        assertThat(ewma.getRate(TimeUnit.SECONDS)).isEqualTo(0.22072766, offset(0.000001));
+    }
+
+    @Test
+    public void tickingZeroIntervalsDoesNothing() {
+        final EWMA ewma = EWMA.oneMinuteEWMA();
+        ewma.update(3);
+        ewma.tick(0);
+
+        assertThat(ewma.getRate(TimeUnit.SECONDS)).isZero();
+
+        ewma.tick();
+
+        assertThat(ewma.getRate(TimeUnit.SECONDS)).isEqualTo(0.6, offset(0.000001));
+    }
 
     private void elapseMinute(EWMA ewma) {
         for (int i = 1; i <= 12; i++) {
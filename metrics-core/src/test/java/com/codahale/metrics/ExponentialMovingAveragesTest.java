@@ -23,4 +23,32 @@ public class ExponentialMovingAveragesTest
         assertEquals(ema.getM5Rate(), Double.MIN_NORMAL * secondNanos, 0.0);
         assertEquals(ema.getM15Rate(), Double.MIN_NORMAL * secondNanos, 0.0);
     }
+
+    @Test
+    public void catchesUpAfterAnIdlePeriod()
+    {
+        final ManualClock clock = new ManualClock();
+        final ExponentialMovingAverages ema = new ExponentialMovingAverages(clock);
+        final EWMA m1 = EWMA.oneMinuteEWMA();
+        final EWMA m15 = EWMA.fifteenMinuteEWMA();
+
+        ema.update(100);
+        m1.update(100);
+        m15.update(100);
+        clock.addSeconds(6);
+        ema.tickIfNecessary();
+        m1.tick();
+        m15.tick();
+
+        clock.addSeconds(600);
+        ema.tickIfNecessary();
+        for (int i = 0; i < 120; i++)
+        {
+            m1.tick();
+            m15.tick();
+        }
+
+        assertEquals(m1.getRate(TimeUnit.SECONDS), ema.getM1Rate(), 1e-12);
+        assertEquals(m15.getRate(TimeUnit.SECONDS), ema.getM15Rate(), 1e-12);
+    }
 }
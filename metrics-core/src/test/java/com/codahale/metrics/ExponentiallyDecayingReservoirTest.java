@@ -34,6 +34,17 @@ public class ExponentiallyDecayingReservoirTest {
                         .clock(clock)
                         .build();
             }
+        },
+
+        EXPONENTIALLY_DECAYING_ARRAY() {
+            @Override
+            Reservoir create(int size, double alpha, Clock clock) {
+                return ExponentiallyDecayingArrayReservoir.builder()
+                        .size(size)
+                        .alpha(alpha)
+                        .clock(clock)
+                        .build();
+            }
         };
 
         abstract Reservoir create(int size, double alpha, Clock clock);
@@ -74,6 +85,26 @@ public class ExponentiallyDecayingReservoirTest {
         assertAllValuesBetween(reservoir, 0, 1000);
     }
 
+    @Test
+    public void aReservoirOf100OutOf1000BulkElements() {
+        final Reservoir reservoir = reservoirFactory.create(100, 0.99);
+        final long[] values = new long[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+        for (int i = 0; i < values.length; i += 100) {
+            reservoir.update(values, i, 100);
+        }
+
+        assertThat(reservoir.size())
+                .isEqualTo(100);
+
+        assertThat(reservoir.getSnapshot().size())
+                .isEqualTo(100);
+
+        assertAllValuesBetween(reservoir, 0, 1000);
+    }
+
     @Test
     public void aReservoirOf100OutOf10Elements() {
         final Reservoir reservoir = reservoirFactory.create(100, 0.99);
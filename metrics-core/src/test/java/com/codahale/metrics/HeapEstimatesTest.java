@@ -0,0 +1,144 @@
+package com.codahale.metrics;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class HeapEstimatesTest {
+    private final ManualClock clock = new ManualClock();
+
+    @Test
+    public void alignsObjectsAndArrays() {
+        assertThat(HeapEstimates.object(0))
+                .isEqualTo(16);
+        assertThat(HeapEstimates.object(4))
+                .isEqualTo(16);
+        assertThat(HeapEstimates.object(8))
+                .isEqualTo(24);
+        assertThat(HeapEstimates.array(0, 8))
+                .isEqualTo(16);
+        assertThat(HeapEstimates.array(3, 4))
+                .isEqualTo(32);
+        assertThat(HeapEstimates.array(1028, 8))
+                .isEqualTo(16 + 1028 * 8);
+    }
+
+    @Test
+    public void metricsWithoutAnEstimateRetainNothing() {
+        assertThat(((Gauge<Integer>) () -> 1).estimateRetainedBytes())
+                .isZero();
+        assertThat(mock(Reservoir.class).estimateRetainedBytes())
+                .isZero();
+    }
+
+    @Test
+    public void timersRetainTheirMeterAndTheirHistogram() {
+        final Meter meter = new Meter(clock);
+        final Histogram histogram = new Histogram(new UniformReservoir(100));
+        final Timer timer = new Timer(meter, histogram, clock);
+
+        assertThat(histogram.estimateRetainedBytes())
+                .isGreaterThan(100 * 8);
+        assertThat(timer.estimateRetainedBytes())
+                .isGreaterThan(meter.estimateRetainedBytes() + histogram.estimateRetainedBytes());
+        assertThat(new Counter().estimateRetainedBytes())
+                .isLessThan(meter.estimateRetainedBytes());
+    }
+
+    @Test
+    public void slidingTimeWindowMovingAveragesRetainAnAdderPerBucket() {
+        final long sliding = new Meter(new SlidingTimeWindowMovingAverages(clock), clock).estimateRetainedBytes();
+        final long compact = new Meter(new CompactSlidingTimeWindowMovingAverages(clock), clock)
+                .estimateRetainedBytes();
+        final long exponential = new Meter(new ExponentialMovingAverages(clock), clock).estimateRetainedBytes();
+
+        assertThat(sliding)
+                .isGreaterThan(SlidingTimeWindowMovingAverages.NUMBER_OF_BUCKETS * HeapEstimates.LONG_ADDER);
+        assertThat(compact)
+                .isGreaterThan(CompactSlidingTimeWindowMovingAverages.NUMBER_OF_BUCKETS * 8L)
+                .isLessThan(sliding);
+        assertThat(exponential)
+                .isLessThan(compact);
+    }
+
+    @Test
+    public void sampledReservoirsGrowWithTheirSamples() {
+        assertGrowsWithSamples(() -> new ExponentiallyDecayingReservoir(100, 0.015, clock));
+        assertGrowsWithSamples(() -> LockFreeExponentiallyDecayingReservoir.builder()
+                .size(100)
+                .clock(clock)
+                .build());
+        assertGrowsWithSamples(() -> new SlidingTimeWindowReservoir(1, TimeUnit.MINUTES, clock));
+        assertGrowsWithSamples(() -> new SlidingTimeWindowArrayReservoir(1, TimeUnit.MINUTES, clock));
+    }
+
+    @Test
+    public void arrayReservoirsRetainTheirCapacity() {
+        assertRetainsItsCapacity(new UniformReservoir(100), 100 * 8);
+        assertRetainsItsCapacity(new SlidingWindowReservoir(100), 100 * 8);
+        assertRetainsItsCapacity(new LockFreeSlidingWindowReservoir(100), 100 * 8);
+        assertRetainsItsCapacity(ExponentiallyDecayingArrayReservoir.builder().size(100).build(), 3 * 100 * 8);
+    }
+
+    @Test
+    public void stripedReservoirsRetainTheirStripes() {
+        final long stripe = new UniformReservoir(100).estimateRetainedBytes();
+
+        assertThat(new StripedReservoir(4, () -> new UniformReservoir(100)).estimateRetainedBytes())
+                .isGreaterThan(4 * stripe);
+    }
+
+    @Test
+    public void adaptiveReservoirsOnlyRetainTheirBufferUntilPromoted() {
+        final AdaptiveReservoir reservoir = (AdaptiveReservoir) AdaptiveReservoir.builder()
+                .bufferSize(16)
+                .promoteAfter(10, Duration.ofMinutes(1))
+                .reservoir(() -> new UniformReservoir(1000))
+                .clock(clock)
+                .build();
+        final long empty = reservoir.estimateRetainedBytes();
+
+        reservoir.update(1);
+        final long buffered = reservoir.estimateRetainedBytes();
+        for (int i = 0; i < 10; i++) {
+            reservoir.update(i);
+        }
+
+        assertThat(buffered - empty)
+                .isEqualTo(HeapEstimates.array(16, 8));
+        assertThat(reservoir.isPromoted())
+                .isTrue();
+        assertThat(reservoir.estimateRetainedBytes())
+                .isEqualTo(empty + new UniformReservoir(1000).estimateRetainedBytes());
+    }
+
+    private void assertGrowsWithSamples(Supplier<Reservoir> supplier) {
+        final Reservoir reservoir = supplier.get();
+        final long empty = reservoir.estimateRetainedBytes();
+        for (int i = 0; i < 50; i++) {
+            reservoir.update(i);
+            clock.addMillis(10);
+        }
+
+        assertThat(reservoir.estimateRetainedBytes())
+                .as(reservoir.getClass().getSimpleName())
+                .isGreaterThan(empty + 50 * 16);
+    }
+
+    private static void assertRetainsItsCapacity(Reservoir reservoir, long capacityBytes) {
+        final long empty = reservoir.estimateRetainedBytes();
+        for (int i = 0; i < 1000; i++) {
+            reservoir.update(i);
+        }
+
+        assertThat(empty)
+                .as(reservoir.getClass().getSimpleName())
+                .isGreaterThan(capacityBytes)
+                .isEqualTo(reservoir.estimateRetainedBytes());
+    }
+}
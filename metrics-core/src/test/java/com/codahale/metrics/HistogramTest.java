@@ -37,4 +37,31 @@ public class HistogramTest {
 
         verify(reservoir).update(1);
     }
+
+    @Test
+    public void updatesTheCountAndTheReservoirOnBulkUpdates() {
+        final long[] values = {1, 2, 3, 4, 5};
+
+        histogram.update(values, 1, 3);
+
+        assertThat(histogram.getCount())
+                .isEqualTo(3);
+
+        verify(reservoir).update(values, 1, 3);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsBulkUpdatesOutOfBounds() {
+        histogram.update(new long[2], 1, 2);
+    }
+
+    @Test
+    public void resetsTheCountAndTheReservoir() {
+        histogram.update(1);
+        histogram.reset();
+
+        assertThat(histogram.getCount())
+                .isZero();
+        verify(reservoir).reset();
+    }
 }
@@ -0,0 +1,83 @@
+package com.codahale.metrics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LockFreeSlidingWindowReservoirTest {
+    private final LockFreeSlidingWindowReservoir reservoir = new LockFreeSlidingWindowReservoir(3);
+
+    @Test
+    public void handlesSmallDataStreams() {
+        reservoir.update(1);
+        reservoir.update(2);
+
+        assertThat(reservoir.size())
+                .isEqualTo(2);
+        assertThat(reservoir.getSnapshot().getValues())
+                .containsOnly(1, 2);
+    }
+
+    @Test
+    public void onlyKeepsTheMostRecentFromBigDataStreams() {
+        reservoir.update(1);
+        reservoir.update(2);
+        reservoir.update(3);
+        reservoir.update(4);
+
+        assertThat(reservoir.size())
+                .isEqualTo(3);
+        assertThat(reservoir.getSnapshot().getValues())
+                .containsOnly(2, 3, 4);
+    }
+
+    @Test
+    public void onlyKeepsTheMostRecentFromBulkUpdates() {
+        reservoir.update(1);
+        reservoir.update(new long[]{2, 3, 4, 5, 6, 7}, 1, 4);
+
+        assertThat(reservoir.size())
+                .isEqualTo(3);
+        assertThat(reservoir.getSnapshot().getValues())
+                .containsOnly(4, 5, 6);
+    }
+
+    @Test
+    public void keepsEveryConcurrentUpdateWithinTheWindow() throws Exception {
+        final LockFreeSlidingWindowReservoir large = new LockFreeSlidingWindowReservoir(4000);
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int offset = t * 1000;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    large.update(offset + i + 1);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        final Snapshot snapshot = large.getSnapshot();
+
+        assertThat(snapshot.size())
+                .isEqualTo(4000);
+        assertThat(snapshot.getMin())
+                .isEqualTo(1);
+        assertThat(snapshot.getMax())
+                .isEqualTo(4000);
+    }
+
+    @Test
+    public void rejectsNonPositiveSize() {
+        assertThatThrownBy(() -> new LockFreeSlidingWindowReservoir(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
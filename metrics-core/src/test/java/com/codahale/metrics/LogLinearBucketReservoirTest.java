@@ -0,0 +1,134 @@
+package com.codahale.metrics;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+import static org.assertj.core.api.Assertions.within;
+
+public class LogLinearBucketReservoirTest {
+    private final LogLinearBucketReservoir reservoir = new LogLinearBucketReservoir(6, 1_000_000_000L);
+
+    @Test
+    public void bucketBoundsRoundTrip() {
+        for (long value : new long[]{0, 1, 127, 128, 129, 255, 256, 1000, 123_456_789L, Long.MAX_VALUE}) {
+            final int index = LogLinearBucketReservoir.bucketIndex(value, 6);
+            final long lower = LogLinearBucketReservoir.bucketLowerBound(index, 6);
+            final long width = LogLinearBucketReservoir.bucketWidth(index, 6);
+
+            assertThat(value).isBetween(lower, lower + width - 1);
+            assertThat(LogLinearBucketReservoir.bucketIndex(lower, 6)).isEqualTo(index);
+            assertThat(LogLinearBucketReservoir.bucketIndex(lower + width - 1, 6)).isEqualTo(index);
+        }
+    }
+
+    @Test
+    public void smallValuesAreRecordedExactly() {
+        for (int i = 1; i <= 100; i++) {
+            reservoir.update(i);
+        }
+
+        final Snapshot snapshot = reservoir.getSnapshot();
+
+        assertThat(reservoir.size()).isEqualTo(100);
+        assertThat(snapshot.size()).isEqualTo(100);
+        assertThat(snapshot.getMin()).isEqualTo(1);
+        assertThat(snapshot.getMax()).isEqualTo(100);
+        assertThat(snapshot.getMedian()).isEqualTo(50);
+        assertThat(snapshot.get99thPercentile()).isEqualTo(99);
+        assertThat(snapshot.getMean()).isEqualTo(50.5, offset(0.0001));
+        assertThat(snapshot.getValues()).hasSize(100).startsWith(1, 2, 3).endsWith(99, 100);
+    }
+
+    @Test
+    public void bulkUpdatesCountEveryValue() {
+        reservoir.update(new long[]{-1, 3, 3, 3, 7, 3, 200, 200, 9}, 1, 7);
+
+        assertThat(reservoir.size())
+                .isEqualTo(7);
+        assertThat(reservoir.getSnapshot().getValues())
+                .containsExactly(3, 7, 200);
+    }
+
+    @Test
+    public void quantilesHaveBoundedRelativeError() {
+        final long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = ThreadLocalRandom.current().nextLong(1, 500_000_000L);
+            reservoir.update(values[i]);
+        }
+
+        final Snapshot exact = new UniformSnapshot(values);
+        final Snapshot snapshot = reservoir.getSnapshot();
+
+        final double maxError = 1.0 / (2 << 6);
+        for (double quantile : new double[]{0.5, 0.75, 0.95, 0.99, 0.999}) {
+            final double expected = exact.getValues()[(int) Math.ceil(quantile * values.length) - 1];
+            assertThat(snapshot.getValue(quantile)).isCloseTo(expected, within(expected * maxError));
+        }
+        final double max = exact.getMax();
+        final double min = exact.getMin();
+        assertThat((double) snapshot.getMax()).isCloseTo(max, within(max * maxError));
+        assertThat((double) snapshot.getMin()).isCloseTo(min, within(min * maxError));
+        assertThat(snapshot.getMean()).isCloseTo(exact.getMean(), within(exact.getMean() * maxError));
+    }
+
+    @Test
+    public void clampsValuesOutsideOfTheTrackableRange() {
+        reservoir.update(-5);
+        reservoir.update(Long.MAX_VALUE);
+
+        final Snapshot snapshot = reservoir.getSnapshot();
+
+        assertThat(snapshot.getMin()).isZero();
+        assertThat((double) snapshot.getMax()).isCloseTo(1_000_000_000L, within(1_000_000_000L / 128.0));
+    }
+
+    @Test
+    public void emptySnapshot() {
+        final Snapshot snapshot = reservoir.getSnapshot();
+
+        assertThat(snapshot.size()).isZero();
+        assertThat(snapshot.getValue(0.5)).isZero();
+        assertThat(snapshot.getMin()).isZero();
+        assertThat(snapshot.getMax()).isZero();
+        assertThat(snapshot.getMean()).isZero();
+        assertThat(snapshot.getStdDev()).isZero();
+        assertThat(snapshot.getValues()).isEmpty();
+    }
+
+    @Test
+    public void dumpsToAStream() throws Exception {
+        reservoir.update(1);
+        reservoir.update(2);
+        reservoir.update(2);
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        reservoir.getSnapshot().dump(output);
+
+        assertThat(output.toString("UTF-8"))
+                .isEqualTo(String.format("1%n2%n"));
+    }
+
+    @Test
+    public void valuesAreBoundedByTheNumberOfBuckets() {
+        for (int i = 0; i < 1_000_000; i++) {
+            reservoir.update(i % 10);
+        }
+
+        final Snapshot snapshot = reservoir.getSnapshot();
+
+        assertThat(snapshot.size()).isEqualTo(1_000_000);
+        assertThat(snapshot.getValues()).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+    }
+
+    @Test
+    public void rejectsInvalidPrecision() {
+        assertThatThrownBy(() -> new LogLinearBucketReservoir(0, 1000))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
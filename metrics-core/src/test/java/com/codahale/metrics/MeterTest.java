@@ -55,4 +55,49 @@ public class MeterTest {
         assertThat(meter.getFifteenMinuteRate())
                 .isEqualTo(0.1988, offset(0.001));
     }
+
+    @Test
+    public void resetsTheCountAndRates() {
+        meter.mark(3);
+        meter.reset();
+
+        assertThat(meter.getCount())
+                .isZero();
+
+        assertThat(meter.getMeanRate())
+                .isEqualTo(0.0, offset(0.001));
+
+        assertThat(meter.getOneMinuteRate())
+                .isEqualTo(0.0, offset(0.001));
+
+        assertThat(meter.getFifteenMinuteRate())
+                .isEqualTo(0.0, offset(0.001));
+    }
+
+    @Test
+    public void ratesOfAResetMeterMatchThoseOfANewMeter() {
+        final ManualClock manualClock = new ManualClock();
+        final Meter reset = new Meter(manualClock);
+        reset.mark(1000);
+        manualClock.addSeconds(60);
+        reset.getOneMinuteRate();
+        reset.reset();
+        final Meter fresh = new Meter(manualClock);
+
+        for (int i = 0; i < 4; i++) {
+            reset.mark(3);
+            fresh.mark(3);
+            manualClock.addSeconds(5);
+        }
+
+        assertThat(reset.getOneMinuteRate())
+                .isEqualTo(fresh.getOneMinuteRate(), offset(1e-9))
+                .isPositive();
+        assertThat(reset.getFiveMinuteRate())
+                .isEqualTo(fresh.getFiveMinuteRate(), offset(1e-9));
+        assertThat(reset.getFifteenMinuteRate())
+                .isEqualTo(fresh.getFifteenMinuteRate(), offset(1e-9));
+        assertThat(reset.getMeanRate())
+                .isEqualTo(fresh.getMeanRate(), offset(1e-9));
+    }
 }
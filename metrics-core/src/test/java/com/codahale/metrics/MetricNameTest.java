@@ -0,0 +1,106 @@
+package com.codahale.metrics;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+public class MetricNameTest {
+    @Test
+    public void buildsKeysLikeMetricRegistryName() {
+        assertThat(MetricName.build("one", null, "", "two").getKey())
+                .isEqualTo(MetricRegistry.name("one", null, "", "two"))
+                .isEqualTo("one.two");
+        assertThat(MetricName.build(MetricNameTest.class, "one").getKey())
+                .isEqualTo("com.codahale.metrics.MetricNameTest.one");
+    }
+
+    @Test
+    public void rendersTagsSortedByName() {
+        final MetricName name = MetricName.build("requests").tagged("status", "200", "method", "GET");
+
+        assertThat(name.getTags())
+                .containsExactly(entry("method", "GET"), entry("status", "200"));
+        assertThat(name.toString())
+                .isEqualTo("requests;method=GET;status=200");
+        assertThat(MetricName.build("requests"))
+                .hasToString("requests");
+    }
+
+    @Test
+    public void isEqualRegardlessOfTagOrder() {
+        final Map<String, String> tags = new HashMap<>();
+        tags.put("status", "200");
+        tags.put("method", "GET");
+
+        final MetricName one = MetricName.build("requests").tagged("status", "200", "method", "GET");
+        final MetricName other = MetricName.build("requests").tagged("method", "GET").tagged(tags);
+
+        assertThat(one)
+                .isEqualTo(other)
+                .hasSameHashCodeAs(other)
+                .isEqualByComparingTo(other)
+                .isNotEqualTo(one.tagged("status", "500"));
+        assertThat(one.toString())
+                .isSameAs(other.toString());
+    }
+
+    @Test
+    public void replacesTagsOfTheSameName() {
+        final MetricName name = MetricName.build("requests").tagged("status", "200").tagged("status", "500");
+
+        assertThat(name.getTags())
+                .containsExactly(entry("status", "500"));
+    }
+
+    @Test
+    public void resolvesChildrenWithTheSameTags() {
+        final MetricName parent = MetricName.build("requests").tagged("method", "GET");
+
+        assertThat(parent.resolve("latency"))
+                .hasToString("requests.latency;method=GET");
+        assertThat(parent.resolve(null))
+                .isSameAs(parent);
+        assertThat(MetricName.build().resolve("latency"))
+                .hasToString("latency");
+    }
+
+    @Test
+    public void withoutNewTagsIsTheSameName() {
+        final MetricName name = MetricName.build("requests");
+
+        assertThat(name.tagged())
+                .isSameAs(name);
+        assertThat(name.tagged(Collections.emptyMap()))
+                .isSameAs(name);
+    }
+
+    @Test
+    public void rejectsInvalidTags() {
+        final MetricName name = MetricName.build("requests");
+
+        assertThatThrownBy(() -> name.tagged("status"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> name.tagged("sta=tus", "200"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> name.tagged("status", "2;00"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> name.tagged("status", ""))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> name.tagged("status", null))
+                .isInstanceOf(NullPointerException.class);
+    }
+
+    @Test
+    public void tagsAreUnmodifiable() {
+        final MetricName name = MetricName.build("requests").tagged("status", "200");
+
+        assertThatThrownBy(() -> name.getTags().put("method", "GET"))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+}
@@ -0,0 +1,113 @@
+package com.codahale.metrics;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class MetricPolicyTest {
+    private final MetricRegistry registry = new MetricRegistry();
+    private final ManualClock clock = new ManualClock();
+    private final Reservoir reservoir = mock(Reservoir.class);
+    private final Reservoir sloReservoir = mock(Reservoir.class);
+
+    @Test
+    public void buildsHistogramsWithTheReservoirOfThePolicy() {
+        registry.setMetricPolicy(MetricPolicy.builder()
+                .reservoir(() -> reservoir)
+                .build());
+
+        registry.histogram("histogram").update(1);
+
+        verify(reservoir).update(1);
+    }
+
+    @Test
+    public void appliesTheFirstRuleMatchingTheName() {
+        registry.setMetricPolicy(MetricPolicy.builder()
+                .reservoir(() -> reservoir)
+                .matching("api.*.latency", MetricPolicy.builder().reservoir(() -> sloReservoir).build())
+                .matching("api.*", MetricPolicy.builder().reservoir(UniformReservoir::new).build())
+                .build());
+
+        registry.histogram("api.users.latency").update(1);
+        registry.histogram("apiusers.latency").update(2);
+
+        verify(sloReservoir).update(1);
+        verify(reservoir).update(2);
+        verify(reservoir, never()).update(1);
+    }
+
+    @Test
+    public void appliesRulesByTag() {
+        registry.setMetricPolicy(MetricPolicy.builder()
+                .reservoir(() -> reservoir)
+                .taggedWith("tier", "slo", MetricPolicy.builder().reservoir(() -> sloReservoir).build())
+                .build());
+
+        registry.histogram(MetricName.build("latency").tagged("tier", "slo", "api", "users")).update(1);
+        registry.histogram(MetricName.build("latency").tagged("tier", "slow")).update(2);
+
+        verify(sloReservoir).update(1);
+        verify(reservoir).update(2);
+    }
+
+    @Test
+    public void takesWhatARuleDoesNotSetFromTheEnclosingPolicy() {
+        registry.setMetricPolicy(MetricPolicy.builder()
+                .clock(clock)
+                .matching("api.*", MetricPolicy.builder().reservoir(() -> sloReservoir).build())
+                .build());
+
+        final Timer timer = registry.timer("api.latency");
+        final Timer.Context context = timer.time();
+        clock.addNanos(5);
+        context.stop();
+
+        verify(sloReservoir).update(5);
+    }
+
+    @Test
+    public void buildsMetersWithTheMovingAveragesAndClockOfThePolicy() {
+        final MovingAverages movingAverages = mock(MovingAverages.class);
+        registry.setMetricPolicy(MetricPolicy.builder()
+                .movingAverages(c -> movingAverages)
+                .clock(clock)
+                .build());
+
+        final Meter meter = registry.meter("meter");
+        meter.mark(3);
+        clock.addSeconds(3);
+
+        verify(movingAverages).update(3);
+        assertThat(meter.getMeanRate())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    public void onlyAppliesToMetricsCreatedAfterwards() {
+        final Histogram before = registry.histogram("histogram");
+        registry.setMetricPolicy(MetricPolicy.builder()
+                .reservoir(() -> reservoir)
+                .build());
+
+        registry.histogram("histogram").update(1);
+
+        assertThat(registry.histogram("histogram"))
+                .isSameAs(before);
+        verify(reservoir, never()).update(anyLong());
+    }
+
+    @Test
+    public void usesTheDefaultsWithoutAPolicy() {
+        assertThat(MetricPolicy.DEFAULT.newReservoir("histogram"))
+                .isInstanceOf(ExponentiallyDecayingReservoir.class);
+        assertThat(MetricPolicy.DEFAULT.newMovingAverages("meter"))
+                .isInstanceOf(ExponentialMovingAverages.class);
+        assertThat(MetricPolicy.DEFAULT.getClock("meter"))
+                .isSameAs(Clock.defaultClock());
+    }
+}
@@ -0,0 +1,138 @@
+package com.codahale.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MetricPoolTest {
+    private final MetricRegistry registry = new MetricRegistry();
+    private final MetricPool pool = new MetricPool(2);
+
+    @Before
+    public void setUp() {
+        registry.setMetricPool(pool);
+    }
+
+    @Test
+    public void reusesRemovedMetricsOnceReset() {
+        final Timer timer = registry.timer("job-1");
+        timer.update(1, TimeUnit.SECONDS);
+        final Counter counter = registry.counter("job-1.count");
+        counter.inc(5);
+
+        registry.removeByPrefix("job-1");
+
+        assertThat(pool.getIdleCount())
+                .isEqualTo(2);
+
+        final Timer reused = registry.timer("job-2");
+        final Counter reusedCounter = registry.counter("job-2.count");
+
+        assertThat(reused)
+                .isSameAs(timer);
+        assertThat(reused.getCount())
+                .isZero();
+        assertThat(reused.getSnapshot().size())
+                .isZero();
+        assertThat(reusedCounter)
+                .isSameAs(counter);
+        assertThat(reusedCounter.getCount())
+                .isZero();
+        assertThat(pool.getIdleCount())
+                .isZero();
+    }
+
+    @Test
+    public void onlyReusesMetricsOfTheSameTypeAndPolicy() {
+        registry.setMetricPolicy(MetricPolicy.builder()
+                .matching("fast.*", MetricPolicy.builder()
+                        .reservoir(() -> new SlidingWindowReservoir(10))
+                        .build())
+                .build());
+        final Histogram histogram = registry.histogram("slow.1");
+        registry.remove("slow.1");
+
+        assertThat(registry.histogram("fast.1"))
+                .isNotSameAs(histogram);
+        assertThat(registry.timer("slow.timer"))
+                .isNotSameAs(histogram);
+        assertThat(registry.histogram("slow.2"))
+                .isSameAs(histogram);
+    }
+
+    @Test
+    public void doesNotPoolMetricsItDidNotCreate() {
+        final Timer registered = registry.register("registered", new Timer());
+        final Timer supplied = registry.timer("supplied", Timer::new);
+        final Timer created = registry.timer("created");
+        registry.setMetricPool(null);
+        final Timer beforePool = registry.timer("before");
+        registry.setMetricPool(pool);
+
+        registry.remove("registered");
+        registry.remove("supplied");
+        registry.remove("before");
+
+        assertThat(pool.getIdleCount())
+                .isZero();
+
+        registry.remove("created");
+
+        assertThat(pool.getIdleCount())
+                .isEqualTo(1);
+        assertThat(registry.timer("next"))
+                .isSameAs(created)
+                .isNotSameAs(registered)
+                .isNotSameAs(supplied)
+                .isNotSameAs(beforePool);
+    }
+
+    @Test
+    public void keepsABoundedNumberOfIdleMetrics() {
+        for (int i = 0; i < 5; i++) {
+            registry.meter("meter-" + i);
+        }
+        registry.removeByPrefix("");
+
+        assertThat(pool.getIdleCount())
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void dropsMetricsWhichCantBeReset() {
+        registry.setMetricPolicy(MetricPolicy.builder()
+                .reservoir(() -> new Reservoir() {
+                    @Override
+                    public int size() {
+                        return 0;
+                    }
+
+                    @Override
+                    public void update(long value) {
+                    }
+
+                    @Override
+                    public Snapshot getSnapshot() {
+                        return new UniformSnapshot(new long[0]);
+                    }
+                })
+                .build());
+        final Histogram histogram = registry.histogram("custom");
+        registry.remove("custom");
+
+        assertThat(registry.histogram("custom"))
+                .isNotSameAs(histogram);
+        assertThat(pool.getIdleCount())
+                .isZero();
+    }
+
+    @Test
+    public void requiresAPositiveCapacity() {
+        assertThatThrownBy(() -> new MetricPool(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -7,6 +7,10 @@ import org.junit.Test;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.stream.Collectors;
 
 import static com.codahale.metrics.MetricRegistry.name;
@@ -39,6 +43,22 @@ public class MetricRegistryTest {
         verify(listener).onGaugeAdded("thing", gauge);
     }
 
+    @Test
+    public void registeringPrimitiveGaugesTriggersNotifications() {
+        final LongGauge longGauge = registry.registerLongGauge("long", () -> 1);
+        final DoubleGauge doubleGauge = registry.registerDoubleGauge("double", () -> 0.5);
+
+        assertThat(registry.getGauges())
+                .containsOnlyKeys("long", "double");
+        assertThat(longGauge.getLongValue())
+                .isEqualTo(1L);
+        assertThat(doubleGauge.getValue())
+                .isEqualTo(0.5);
+
+        verify(listener).onGaugeAdded("long", longGauge);
+        verify(listener).onGaugeAdded("double", doubleGauge);
+    }
+
     @Test
     public void removingAGaugeTriggersANotification() {
         registry.register("thing", gauge);
@@ -68,6 +88,25 @@ public class MetricRegistryTest {
         verify(listener).onCounterAdded("thing", counter1);
     }
 
+    @Test
+    public void accessingMetricsByMetricNameUsesTheRenderedName() {
+        final MetricName name = MetricName.build("thing").tagged("status", "200");
+
+        final Counter counter1 = registry.counter(name);
+        final Timer timer1 = registry.timer(name.resolve("latency"));
+
+        assertThat(registry.counter("thing;status=200"))
+                .isSameAs(counter1)
+                .isSameAs(registry.counter(MetricName.build("thing").tagged("status", "200")));
+        assertThat(registry.timer("thing.latency;status=200"))
+                .isSameAs(timer1);
+        verify(listener).onCounterAdded("thing;status=200", counter1);
+
+        assertThat(registry.remove(name))
+                .isTrue();
+        verify(listener).onCounterRemoved("thing;status=200");
+    }
+
     @Test
     public void accessingACustomCounterRegistersAndReusesTheCounter() {
         final MetricRegistry.MetricSupplier<Counter> supplier = () -> counter;
@@ -341,6 +380,167 @@ public class MetricRegistryTest {
                 .contains(entry("timer", timer));
     }
 
+    @Test
+    public void typedMapsAreSortedCopies() {
+        final Counter b = registry.counter("b");
+        final Counter a = registry.counter("a");
+        registry.timer("c");
+        final SortedMap<String, Counter> counters = registry.getCounters();
+        final SortedSet<String> names = registry.getNames();
+
+        assertThat(counters)
+                .containsExactly(entry("a", a), entry("b", b));
+
+        registry.remove("a");
+        final Counter c = registry.counter("0");
+
+        assertThat(counters)
+                .containsExactly(entry("a", a), entry("b", b));
+        assertThat(names)
+                .containsExactly("a", "b", "c");
+        assertThat(registry.getCounters())
+                .containsExactly(entry("0", c), entry("b", b));
+        assertThat(registry.getCounters((name, metric) -> !name.equals("b")))
+                .containsExactly(entry("0", c));
+        assertThat(registry.getTimers())
+                .containsOnlyKeys("c");
+    }
+
+    @Test
+    public void indexesMetricsUnderEachOfTheirTypes() {
+        final Meter meterGauge = new GaugeMeter();
+        registry.register("thing", meterGauge);
+
+        assertThat(registry.getMeters())
+                .containsOnlyKeys("thing");
+        assertThat(registry.getGauges())
+                .containsOnlyKeys("thing");
+
+        registry.remove("thing");
+
+        assertThat(registry.getMeters())
+                .isEmpty();
+        assertThat(registry.getGauges())
+                .isEmpty();
+    }
+
+    @Test
+    public void typedMapsOfRegistriesWithACustomMapAreCopies() {
+        final MetricRegistry custom = new MetricRegistry() {
+            @Override
+            protected ConcurrentMap<String, Metric> buildMap() {
+                return new ConcurrentSkipListMap<>();
+            }
+        };
+        final Counter counter = custom.counter("counter");
+        final SortedMap<String, Counter> counters = custom.getCounters();
+        custom.counter("another");
+
+        assertThat(counters)
+                .containsExactly(entry("counter", counter));
+    }
+
+    @Test
+    public void hasTheNamesOfTheMetricsUnderAPrefix() {
+        registerPrefixedMetrics(registry);
+
+        assertThat(registry.getNamesUnder("pool"))
+                .containsExactly("pool", "pool.active", "pool.wait.time", "pool;tenant=a");
+        assertThat(registry.getNamesUnder("pool.wait"))
+                .containsExactly("pool.wait.time");
+        assertThat(registry.getNamesUnder("poo"))
+                .isEmpty();
+        assertThat(registry.getNamesUnder(""))
+                .isEqualTo(registry.getNames());
+    }
+
+    @Test
+    public void hasTheTypedMetricsUnderAPrefix() {
+        registerPrefixedMetrics(registry);
+
+        assertThat(registry.getCountersUnder("pool"))
+                .containsOnlyKeys("pool", "pool.active", "pool;tenant=a");
+        assertThat(registry.getTimersUnder("pool"))
+                .containsOnlyKeys("pool.wait.time");
+        assertThat(registry.getGaugesUnder("pool"))
+                .isEmpty();
+        assertThat(registry.getMetersUnder("pool-2"))
+                .containsOnlyKeys("pool-2");
+        assertThat(registry.getHistogramsUnder("pool"))
+                .isEmpty();
+    }
+
+    @Test
+    public void removesTheMetricsUnderAPrefix() {
+        registerPrefixedMetrics(registry);
+
+        registry.removeByPrefix("pool");
+
+        assertThat(registry.getNames())
+                .containsExactly("pool-2", "pools.active");
+        verify(listener).onCounterRemoved("pool");
+        verify(listener).onCounterRemoved("pool.active");
+        verify(listener).onCounterRemoved("pool;tenant=a");
+        verify(listener).onTimerRemoved("pool.wait.time");
+        verify(listener, never()).onMeterRemoved("pool-2");
+    }
+
+    @Test
+    public void estimatesTheBytesRetainedByTheMetricsUnderAPrefix() {
+        registerPrefixedMetrics(registry);
+        registry.register("pool.size", (Gauge<Integer>) () -> 1);
+
+        final long counter = new Counter().estimateRetainedBytes();
+        final long timer = registry.timer("pool.wait.time").estimateRetainedBytes();
+
+        assertThat(registry.estimateRetainedBytes("pool"))
+                .isEqualTo(3 * counter + timer);
+        assertThat(registry.estimateRetainedBytes("pool.wait"))
+                .isEqualTo(timer);
+        assertThat(registry.estimateRetainedBytes("poo"))
+                .isZero();
+        assertThat(registry.estimateRetainedBytes())
+                .isEqualTo(registry.estimateRetainedBytes(""))
+                .isGreaterThan(registry.estimateRetainedBytes("pool"));
+    }
+
+    @Test
+    public void prefixOperationsOfRegistriesWithACustomMapScanTheMap() {
+        final MetricRegistry custom = new MetricRegistry() {
+            @Override
+            protected ConcurrentMap<String, Metric> buildMap() {
+                return new ConcurrentSkipListMap<>();
+            }
+        };
+        registerPrefixedMetrics(custom);
+
+        assertThat(custom.getNamesUnder("pool"))
+                .containsExactly("pool", "pool.active", "pool.wait.time", "pool;tenant=a");
+        assertThat(custom.getTimersUnder("pool"))
+                .containsOnlyKeys("pool.wait.time");
+
+        custom.removeByPrefix("pool");
+
+        assertThat(custom.getNames())
+                .containsExactly("pool-2", "pools.active");
+    }
+
+    private static void registerPrefixedMetrics(MetricRegistry registry) {
+        registry.counter("pool");
+        registry.counter("pool.active");
+        registry.timer("pool.wait.time");
+        registry.counter(MetricName.build("pool").tagged("tenant", "a"));
+        registry.meter("pool-2");
+        registry.counter("pools.active");
+    }
+
+    private static class GaugeMeter extends Meter implements Gauge<Long> {
+        @Override
+        public Long getValue() {
+            return getCount();
+        }
+    }
+
     @Test
     public void hasASetOfRegisteredMetricNames() {
         registry.register("gauge", gauge);
@@ -0,0 +1,90 @@
+package com.codahale.metrics;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class MovingAveragesTickerTest {
+    // ticked by hand in the tests, the scheduled ticks never happen
+    private final MovingAveragesTicker ticker = new MovingAveragesTicker(1, TimeUnit.HOURS);
+    private final ManualClock clock = new ManualClock();
+
+    @After
+    public void tearDown() {
+        ticker.close();
+    }
+
+    @Test
+    public void markingAndReadingDoNotTick() {
+        final MovingAverages movingAverages = mock(MovingAverages.class);
+        final Meter meter = new Meter(movingAverages, clock, ticker);
+
+        meter.mark(3);
+        meter.getOneMinuteRate();
+        meter.getFiveMinuteRate();
+        meter.getFifteenMinuteRate();
+
+        verify(movingAverages).update(3);
+        verify(movingAverages, times(0)).tickIfNecessary();
+
+        ticker.tick();
+
+        verify(movingAverages).tickIfNecessary();
+    }
+
+    @Test
+    public void ratesAreAdvancedByTheTicker() {
+        final Meter meter = new Meter(new ExponentialMovingAverages(clock), clock, ticker);
+
+        meter.mark(300);
+        clock.addSeconds(6);
+
+        assertThat(meter.getOneMinuteRate()).isZero();
+
+        ticker.tick();
+
+        assertThat(meter.getCount()).isEqualTo(300);
+        assertThat(meter.getOneMinuteRate()).isEqualTo(60.0, offset(0.001));
+    }
+
+    @Test
+    public void keepsTickingWhenOneMovingAveragesFails() {
+        final MovingAverages failing = mock(MovingAverages.class);
+        final MovingAverages healthy = mock(MovingAverages.class);
+        doThrow(new IllegalStateException("boom")).when(failing).tickIfNecessary();
+        ticker.register(failing);
+        ticker.register(healthy);
+
+        ticker.tick();
+
+        verify(healthy).tickIfNecessary();
+    }
+
+    @Test
+    public void registryCreatesMetersAndTimersUsingTheTicker() {
+        final MetricRegistry registry = new MetricRegistry();
+        registry.setMovingAveragesTicker(ticker);
+
+        final Meter meter = registry.meter("meter");
+        final Timer timer = registry.timer("timer");
+        meter.mark();
+        timer.update(1, TimeUnit.SECONDS);
+
+        assertThat(registry.meter("meter")).isSameAs(meter);
+        assertThat(registry.timer("timer")).isSameAs(timer);
+        assertThat(timer.getCount()).isEqualTo(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveIntervals() {
+        new MovingAveragesTicker(0, TimeUnit.SECONDS).close();
+    }
+}
@@ -502,4 +502,33 @@ public class NoopMetricRegistryTest {
 
         assertThat(called).isTrue();
     }
+
+    @Test
+    public void timingEventsWithoutAContextDoesNothing() {
+        final Timer timer = registry.timer("thing");
+
+        assertThat(timer.stopNanos(timer.startNanos())).isZero();
+        try (Timer.ReusableContext context = timer.newReusableContext()) {
+            assertThat(context.start().stop()).isZero();
+        }
+        assertThat(timer.getCount()).isZero();
+    }
+
+    @Test
+    public void resettingMetricsDoesNothing() {
+        final Counter counter = registry.counter("counter");
+        final Histogram histogram = registry.histogram("histogram");
+        final Meter meter = registry.meter("meter");
+        final Timer timer = registry.timer("timer");
+
+        counter.reset();
+        histogram.reset();
+        meter.reset();
+        timer.reset();
+
+        assertThat(counter.getCount()).isZero();
+        assertThat(histogram.getSnapshot().size()).isZero();
+        assertThat(meter.getCount()).isZero();
+        assertThat(timer.getCount()).isZero();
+    }
 }
@@ -24,6 +24,8 @@ public class RatioGaugeTest {
 
         assertThat(regular.getValue())
                 .isEqualTo(0.5);
+        assertThat(regular.getDoubleValue())
+                .isEqualTo(0.5);
     }
 
     @Test
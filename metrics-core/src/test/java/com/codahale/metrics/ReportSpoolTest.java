@@ -0,0 +1,188 @@
+package com.codahale.metrics;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ReportSpoolTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final ManualClock clock = new ManualClock();
+    private final List<String> replayed = new ArrayList<>();
+
+    @Test
+    public void replaysRecordsInOrderAtTheDrainRate() throws Exception {
+        final ReportSpool spool = spool(folder.getRoot().toPath(), 1024, 4);
+        for (int i = 0; i < 5; i++) {
+            assertThat(spool.append(record("report" + i)))
+                    .isTrue();
+        }
+
+        assertThat(spool.drain(this::replay))
+                .isEqualTo(2);
+        assertThat(spool.drain(this::replay))
+                .isZero();
+
+        clock.addSeconds(1);
+        assertThat(spool.drain(this::replay))
+                .isEqualTo(2);
+
+        clock.addSeconds(10);
+        assertThat(spool.drain(this::replay))
+                .isEqualTo(1);
+        assertThat(replayed)
+                .containsExactly("report0", "report1", "report2", "report3", "report4");
+        assertThat(spool.isEmpty())
+                .isTrue();
+    }
+
+    @Test
+    public void replaysTheRecordsWhichBuiltUpSinceTheLastDrain() throws Exception {
+        final ReportSpool spool = ReportSpool.builder(folder.getRoot().toPath())
+                .segmentSize(1024)
+                .drainRate(2)
+                .maxBurst(30)
+                .clock(clock)
+                .build();
+        for (int i = 0; i < 50; i++) {
+            spool.append(record("report" + i));
+        }
+        assertThat(spool.drain(this::replay))
+                .isEqualTo(2);
+
+        // drained once per report, every ten seconds
+        clock.addSeconds(10);
+        assertThat(spool.drain(this::replay))
+                .isEqualTo(20);
+
+        clock.addSeconds(60);
+        assertThat(spool.drain(this::replay))
+                .isEqualTo(28);
+        assertThat(spool.isEmpty())
+                .isTrue();
+    }
+
+    @Test
+    public void keepsTheRecordsWhichCouldNotBeReplayed() throws Exception {
+        final ReportSpool spool = spool(folder.getRoot().toPath(), 1024, 4);
+        spool.append(record("report0"));
+        spool.append(record("report1"));
+
+        assertThatThrownBy(() -> spool.drain(record -> {
+            throw new IOException("still down");
+        })).hasMessage("still down");
+
+        clock.addSeconds(1);
+        spool.drain(this::replay);
+        assertThat(replayed)
+                .containsExactly("report0", "report1");
+    }
+
+    @Test
+    public void dropsTheOldestSegmentsWhenFull() throws Exception {
+        // room for two 40 byte records per segment
+        final ReportSpool spool = spool(folder.getRoot().toPath(), 12 + 2 * 44, 2);
+        for (int i = 0; i < 6; i++) {
+            spool.append(record(String.format("%-40s", "report" + i)));
+        }
+
+        assertThat(spool.getDroppedSegments())
+                .isEqualTo(1);
+        assertThat(spool.append(new byte[1024]))
+                .isFalse();
+
+        drainAll(spool);
+        assertThat(replayed)
+                .extracting(String::trim)
+                .containsExactly("report2", "report3", "report4", "report5");
+    }
+
+    @Test
+    public void survivesARestart() throws Exception {
+        final Path directory = folder.getRoot().toPath().resolve("spool");
+        final ReportSpool spool = spool(directory, 64, 8);
+        for (int i = 0; i < 6; i++) {
+            spool.append(record("report" + i));
+        }
+        spool.drain(this::replay);
+        spool.close();
+
+        final ReportSpool reopened = spool(directory, 64, 8);
+        drainAll(reopened);
+        reopened.append(record("report6"));
+        drainAll(reopened);
+
+        assertThat(replayed)
+                .containsExactly("report0", "report1", "report2", "report3", "report4", "report5", "report6");
+    }
+
+    @Test
+    public void dropsCorruptSegmentsWhenReopened() throws Exception {
+        final Path directory = folder.getRoot().toPath().resolve("spool");
+        final ReportSpool spool = spool(directory, 64, 8);
+        for (int i = 0; i < 6; i++) {
+            spool.append(record("report" + i));
+        }
+        spool.close();
+
+        final List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            stream.forEach(segments::add);
+        }
+        Collections.sort(segments);
+        try (FileChannel channel = FileChannel.open(segments.get(0), StandardOpenOption.WRITE)) {
+            // the length of the first record
+            channel.write((ByteBuffer) ByteBuffer.allocate(4).putInt(Integer.MAX_VALUE).flip(), 12);
+        }
+
+        final ReportSpool reopened = spool(directory, 64, 8);
+        drainAll(reopened);
+
+        assertThat(reopened.getDroppedSegments())
+                .isEqualTo(1);
+        assertThat(replayed)
+                .isNotEmpty()
+                .doesNotContain("report0")
+                .endsWith("report5");
+    }
+
+    private ReportSpool spool(Path directory, int segmentSize, int maxSegments) throws IOException {
+        return ReportSpool.builder(directory)
+                .segmentSize(segmentSize)
+                .maxSegments(maxSegments)
+                .drainRate(2)
+                .clock(clock)
+                .build();
+    }
+
+    private void drainAll(ReportSpool spool) throws IOException {
+        while (!spool.isEmpty()) {
+            clock.addSeconds(1);
+            spool.drain(this::replay);
+        }
+    }
+
+    private void replay(byte[] record) {
+        replayed.add(new String(record, UTF_8));
+    }
+
+    private static byte[] record(String s) {
+        return s.getBytes(UTF_8);
+    }
+}
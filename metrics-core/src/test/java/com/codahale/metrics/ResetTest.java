@@ -0,0 +1,118 @@
+package com.codahale.metrics;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+public class ResetTest {
+    private final ManualClock clock = new ManualClock();
+
+    @Test
+    public void reservoirsDiscardTheirValues() {
+        final List<Reservoir> reservoirs = Arrays.asList(
+                new UniformReservoir(100),
+                new SlidingWindowReservoir(100),
+                new LockFreeSlidingWindowReservoir(100),
+                new ExponentiallyDecayingReservoir(100, 0.015, clock),
+                LockFreeExponentiallyDecayingReservoir.builder().size(100).clock(clock).build(),
+                ExponentiallyDecayingArrayReservoir.builder().size(100).clock(clock).build(),
+                new SlidingTimeWindowReservoir(1, TimeUnit.MINUTES, clock),
+                new SlidingTimeWindowArrayReservoir(1, TimeUnit.MINUTES, clock),
+                new LogLinearBucketReservoir(),
+                new StripedReservoir(4, () -> new UniformReservoir(100)),
+                AdaptiveReservoir.builder().clock(clock).build());
+
+        for (Reservoir reservoir : reservoirs) {
+            for (int i = 1; i <= 200; i++) {
+                reservoir.update(i);
+            }
+            reservoir.reset();
+
+            assertThat(reservoir.size())
+                    .as(reservoir.getClass().getSimpleName())
+                    .isZero();
+            assertThat(reservoir.getSnapshot().size())
+                    .as(reservoir.getClass().getSimpleName())
+                    .isZero();
+
+            reservoir.update(1_000);
+
+            assertThat(reservoir.getSnapshot().size())
+                    .as(reservoir.getClass().getSimpleName())
+                    .isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void promotedAdaptiveReservoirsStayPromoted() {
+        final AdaptiveReservoir reservoir = (AdaptiveReservoir) AdaptiveReservoir.builder()
+                .promoteAfter(10, Duration.ofMinutes(1))
+                .reservoir(() -> new SlidingWindowReservoir(100))
+                .clock(clock)
+                .build();
+        for (int i = 0; i < 20; i++) {
+            reservoir.update(i);
+        }
+        reservoir.reset();
+
+        assertThat(reservoir.isPromoted())
+                .isTrue();
+        assertThat(reservoir.size())
+                .isZero();
+    }
+
+    @Test
+    public void movingAveragesDiscardTheirEvents() {
+        final List<MovingAverages> averages = Arrays.asList(
+                new ExponentialMovingAverages(clock),
+                new SlidingTimeWindowMovingAverages(clock),
+                new CompactSlidingTimeWindowMovingAverages(clock));
+
+        for (MovingAverages movingAverages : averages) {
+            movingAverages.update(100);
+            clock.addSeconds(10);
+            movingAverages.tickIfNecessary();
+            movingAverages.update(100);
+
+            movingAverages.reset();
+            clock.addSeconds(10);
+            movingAverages.tickIfNecessary();
+
+            assertThat(movingAverages.getM1Rate())
+                    .as(movingAverages.getClass().getSimpleName())
+                    .isEqualTo(0.0, offset(0.001));
+            assertThat(movingAverages.getM15Rate())
+                    .as(movingAverages.getClass().getSimpleName())
+                    .isEqualTo(0.0, offset(0.001));
+        }
+    }
+
+    @Test
+    public void customReservoirsCantBeResetByDefault() {
+        final Reservoir reservoir = new Reservoir() {
+            @Override
+            public int size() {
+                return 0;
+            }
+
+            @Override
+            public void update(long value) {
+            }
+
+            @Override
+            public Snapshot getSnapshot() {
+                return new UniformSnapshot(new long[0]);
+            }
+        };
+
+        assertThatThrownBy(new Histogram(reservoir)::reset)
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+}
@@ -5,11 +5,14 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -17,6 +20,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
@@ -252,6 +256,62 @@ public class ScheduledReporterTest {
         );
     }
 
+    @Test
+    @SuppressWarnings("rawtypes")
+    public void reportsFrozenCopiesComputedOnTheSnapshotPool() {
+        final MetricRegistry metrics = new MetricRegistry();
+        for (int i = 0; i < 100; i++) {
+            metrics.histogram("histogram-" + i).update(i);
+            metrics.meter("meter-" + i).mark(i);
+            metrics.timer("timer-" + i).update(i, TimeUnit.MILLISECONDS);
+        }
+        final List<SortedMap<String, ? extends Metric>> reported = new ArrayList<>();
+        final ScheduledReporter parallel = new DummyReporter(metrics, "parallel", MetricFilter.ALL,
+                TimeUnit.SECONDS, TimeUnit.MILLISECONDS, customExecutor, false) {
+            @Override
+            public void report(SortedMap<String, Gauge> gauges, SortedMap<String, Counter> counters,
+                               SortedMap<String, Histogram> histograms, SortedMap<String, Meter> meters,
+                               SortedMap<String, Timer> timers) {
+                reported.add(histograms);
+                reported.add(meters);
+                reported.add(timers);
+            }
+        };
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            parallel.setSnapshotPool(pool);
+            parallel.report();
+        } finally {
+            pool.shutdown();
+        }
+
+        final Histogram histogram = (Histogram) reported.get(0).get("histogram-42");
+        final Meter meter = (Meter) reported.get(1).get("meter-42");
+        final Timer timer = (Timer) reported.get(2).get("timer-42");
+
+        assertEquals(100, reported.get(0).size());
+        assertEquals(metrics.getHistograms().keySet(), reported.get(0).keySet());
+        assertFalse(histogram == metrics.histogram("histogram-42"));
+        assertEquals(1, histogram.getCount());
+        assertEquals(42, histogram.getSnapshot().getMax());
+        assertEquals(42, meter.getCount());
+        assertEquals(metrics.meter("meter-42").getOneMinuteRate(), meter.getOneMinuteRate(), 0.001);
+        assertEquals(1, timer.getCount());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(42), timer.getSnapshot().getMax());
+    }
+
+    @Test
+    @SuppressWarnings("rawtypes")
+    public void frozenCopiesCantBeUpdated() {
+        final Histogram histogram = (Histogram) FrozenMetrics.freeze(new Histogram(new UniformReservoir()));
+        final Meter meter = (Meter) FrozenMetrics.freeze(new Meter());
+        final Timer timer = (Timer) FrozenMetrics.freeze(new Timer());
+
+        assertThrows(UnsupportedOperationException.class, () -> histogram.update(1));
+        assertThrows(UnsupportedOperationException.class, meter::mark);
+        assertThrows(UnsupportedOperationException.class, () -> timer.update(1, TimeUnit.SECONDS));
+    }
+
     private <T> SortedMap<String, T> map(String name, T value) {
         final SortedMap<String, T> map = new TreeMap<>();
         map.put(name, value);
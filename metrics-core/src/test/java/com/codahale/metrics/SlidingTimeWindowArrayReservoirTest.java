@@ -29,6 +29,26 @@ public class SlidingTimeWindowArrayReservoirTest {
                 .containsOnly(1, 2);
     }
 
+    @Test
+    public void storesBulkMeasurementsWithDuplicateTicks() {
+        final Clock clock = mock(Clock.class);
+        final SlidingTimeWindowArrayReservoir reservoir = new SlidingTimeWindowArrayReservoir(10, NANOSECONDS, clock);
+
+        when(clock.getTick()).thenReturn(20L);
+
+        reservoir.update(1);
+        reservoir.update(new long[]{2, 3, 4}, 0, 3);
+        reservoir.update(5);
+
+        assertThat(reservoir.getSnapshot().getValues())
+                .containsOnly(1, 2, 3, 4, 5);
+
+        when(clock.getTick()).thenReturn(40L);
+
+        assertThat(reservoir.getSnapshot().getValues())
+                .isEmpty();
+    }
+
     @Test
     public void boundsMeasurementsToATimeWindow() {
         final Clock clock = mock(Clock.class);
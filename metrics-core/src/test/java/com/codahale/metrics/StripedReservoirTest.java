@@ -0,0 +1,139 @@
+package com.codahale.metrics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+public class StripedReservoirTest {
+
+    @Test
+    public void roundsStripesUpToAPowerOfTwo() {
+        assertThat(new StripedReservoir(1, UniformReservoir::new).getStripes()).isEqualTo(1);
+        assertThat(new StripedReservoir(3, UniformReservoir::new).getStripes()).isEqualTo(4);
+        assertThat(new StripedReservoir(8, UniformReservoir::new).getStripes()).isEqualTo(8);
+    }
+
+    @Test
+    public void rejectsNonPositiveStripes() {
+        assertThatThrownBy(() -> new StripedReservoir(0, UniformReservoir::new))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void sizeIsBoundedByTheStripeReservoirs() {
+        final StripedReservoir reservoir = new StripedReservoir(1, () -> new UniformReservoir(100));
+        for (int i = 0; i < 1000; i++) {
+            reservoir.update(i);
+        }
+
+        final Snapshot snapshot = reservoir.getSnapshot();
+
+        assertThat(reservoir.size()).isEqualTo(100);
+        assertThat(snapshot.size()).isEqualTo(100);
+        for (long value : snapshot.getValues()) {
+            assertThat(value).isBetween(0L, 999L);
+        }
+    }
+
+    @Test
+    public void mergesUpdatesFromAllThreads() throws Exception {
+        final StripedReservoir reservoir = new StripedReservoir(4, () -> new SlidingWindowReservoir(1000));
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final int offset = t * 100;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    reservoir.update(offset + i);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        final Snapshot snapshot = reservoir.getSnapshot();
+
+        assertThat(snapshot.size()).isEqualTo(800);
+        assertThat(snapshot.getMin()).isZero();
+        assertThat(snapshot.getMax()).isEqualTo(799);
+        assertThat(snapshot.getMean()).isEqualTo(399.5, offset(0.0001));
+    }
+
+    @Test
+    public void weighsUniformStripesByTheirTraffic() throws Exception {
+        final List<Reservoir> created = new ArrayList<>();
+        final StripedReservoir reservoir = stripedAcrossTwoThreads(() -> {
+            final Reservoir stripe = new UniformReservoir(10);
+            created.add(stripe);
+            return stripe;
+        }, created);
+
+        // the busy stripe saw 1000 times more updates than the quiet one
+        assertThat(reservoir.getSnapshot().getMean()).isEqualTo(999.0, offset(0.01));
+    }
+
+    @Test
+    public void doesNotWeighWindowedStripesByTheirPastTraffic() throws Exception {
+        final List<Reservoir> created = new ArrayList<>();
+        final StripedReservoir reservoir = stripedAcrossTwoThreads(() -> {
+            final Reservoir stripe = new SlidingWindowReservoir(10);
+            created.add(stripe);
+            return stripe;
+        }, created);
+
+        final Snapshot snapshot = reservoir.getSnapshot();
+
+        // both windows hold 10 samples, however busy their stripes were before
+        assertThat(snapshot.getMean()).isEqualTo(500.5, offset(0.0001));
+        assertThat(snapshot.getValue(0.25)).isEqualTo(1.0);
+        assertThat(snapshot.getValue(0.75)).isEqualTo(1000.0);
+    }
+
+    /**
+     * Updates one stripe 10,000 times with 1000, and then another one 10 times with 1.
+     */
+    private static StripedReservoir stripedAcrossTwoThreads(Supplier<Reservoir> supplier,
+                                                            List<Reservoir> created) throws Exception {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            created.clear();
+            final StripedReservoir reservoir = new StripedReservoir(2, supplier);
+            run(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    reservoir.update(1000);
+                }
+            });
+            run(() -> {
+                for (int i = 0; i < 10; i++) {
+                    reservoir.update(1);
+                }
+            });
+            if (created.get(0).size() > 0 && created.get(1).size() > 0) {
+                return reservoir;
+            }
+        }
+        throw new AssertionError("both threads always landed on the same stripe");
+    }
+
+    private static void run(Runnable runnable) throws InterruptedException {
+        final Thread thread = new Thread(runnable);
+        thread.start();
+        thread.join();
+    }
+
+    @Test
+    public void emptySnapshot() {
+        final Snapshot snapshot = new StripedReservoir(UniformReservoir::new).getSnapshot();
+
+        assertThat(snapshot.size()).isZero();
+        assertThat(snapshot.getMedian()).isZero();
+    }
+}
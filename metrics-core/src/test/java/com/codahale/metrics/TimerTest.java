@@ -9,6 +9,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.offset;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -158,4 +159,71 @@ public class TimerTest {
         verify(reservoir).update(50000000);
     }
 
+    @Test
+    public void timesWithStartAndStopNanos() {
+        final long start = timer.startNanos();
+
+        assertThat(timer.stopNanos(start))
+                .isEqualTo(50000000);
+        assertThat(timer.getCount())
+                .isEqualTo(1);
+
+        verify(reservoir).update(50000000);
+    }
+
+    @Test
+    public void reusableContextsCanBeRestarted() {
+        final Timer.ReusableContext context = timer.newReusableContext();
+
+        context.start();
+        assertThat(context.stop())
+                .isEqualTo(50000000);
+
+        try (Timer.ReusableContext ignored = context.start()) {
+            assertThat(timer.getCount())
+                    .isEqualTo(1);
+        }
+
+        assertThat(timer.getCount())
+                .isEqualTo(2);
+
+        verify(reservoir, times(2)).update(50000000);
+    }
+
+    @Test
+    public void updatesTheCountAndTheReservoirOnBulkUpdates() {
+        final long[] durations = {10, 20, 30, 40};
+
+        timer.update(durations, 1, 2, TimeUnit.NANOSECONDS);
+
+        assertThat(timer.getCount())
+                .isEqualTo(2);
+
+        verify(reservoir).update(durations, 1, 2);
+    }
+
+    @Test
+    public void convertsAndIgnoresNegativeDurationsOnBulkUpdates() {
+        final Timer timer = new Timer(new UniformReservoir(), clock);
+
+        timer.update(new long[]{1, -1, 2}, 0, 3, TimeUnit.MILLISECONDS);
+
+        assertThat(timer.getCount())
+                .isEqualTo(2);
+
+        assertThat(timer.getSnapshot().getValues())
+                .containsOnly(1_000_000, 2_000_000);
+    }
+
+    @Test
+    public void resetsTheMeterAndTheHistogram() {
+        timer.update(1, TimeUnit.SECONDS);
+        timer.reset();
+
+        assertThat(timer.getCount())
+                .isZero();
+        assertThat(timer.getOneMinuteRate())
+                .isEqualTo(0.0, offset(0.001));
+        verify(reservoir).reset();
+    }
 }
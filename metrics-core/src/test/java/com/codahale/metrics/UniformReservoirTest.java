@@ -28,4 +28,26 @@ public class UniformReservoirTest {
         }
     }
 
+    @Test
+    public void aReservoirOf100OutOf1000BulkElements() {
+        final UniformReservoir reservoir = new UniformReservoir(100);
+        final long[] values = new long[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+        reservoir.update(values, 0, 50);
+        reservoir.update(values, 50, 950);
+
+        assertThat(reservoir.size())
+                .isEqualTo(100);
+
+        final Snapshot snapshot = reservoir.getSnapshot();
+
+        assertThat(snapshot.getValues())
+                .hasSize(100);
+        assertThat(snapshot.getMin())
+                .isGreaterThanOrEqualTo(0);
+        assertThat(snapshot.getMax())
+                .isLessThan(1000);
+    }
 }
@@ -7,6 +7,7 @@ import org.mockito.ArgumentMatchers;
 import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.offset;
@@ -226,4 +227,47 @@ public class WeightedSnapshotTest {
         assertThat(weightedSnapshot.getMean()).isEqualTo(0);
     }
 
+    @Test
+    public void primitiveArraysProduceTheSameSnapshot() {
+        final Snapshot other = new WeightedSnapshot(new long[]{5, 1, 2, 3, 4}, new double[]{1, 2, 3, 2, 2});
+
+        assertThat(other.getValues())
+                .containsExactly(snapshot.getValues());
+        assertThat(other.getMedian())
+                .isEqualTo(snapshot.getMedian());
+        assertThat(other.get75thPercentile())
+                .isEqualTo(snapshot.get75thPercentile());
+        assertThat(other.getMean())
+                .isEqualTo(snapshot.getMean(), offset(0.0001));
+        assertThat(other.getStdDev())
+                .isEqualTo(snapshot.getStdDev(), offset(0.0001));
+    }
+
+    @Test
+    public void primitiveArraysKeepWeightsWithTheirValues() {
+        final long[] values = new long[1000];
+        final double[] weights = new double[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = ThreadLocalRandom.current().nextLong(100);
+            // a weight can be derived from its value, so misplaced weights change the mean
+            weights[i] = values[i] + 1;
+        }
+
+        // the arrays are sorted in place, so they are paired up first
+        final Snapshot fromSamples = new WeightedSnapshot(weightedArray(values, weights));
+        final Snapshot fromArrays = new WeightedSnapshot(values, weights);
+
+        assertThat(fromArrays.getValues())
+                .isSorted()
+                .containsExactly(fromSamples.getValues());
+        assertThat(fromArrays.getMean())
+                .isEqualTo(fromSamples.getMean(), offset(0.0001));
+        assertThat(fromArrays.get95thPercentile())
+                .isEqualTo(fromSamples.get95thPercentile());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void primitiveArraysMustHaveTheSameLength() {
+        new WeightedSnapshot(new long[]{1, 2}, new double[]{1});
+    }
 }
@@ -0,0 +1,184 @@
+package com.codahale.metrics.graphite;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes batches of metrics as length-prefixed frames of binary pickle (protocol 2), which Carbon
+ * unpickles into a list of {@code (name, (timestamp, value))} tuples.
+ * <p>
+ * Names are written as {@code BINUNICODE}, timestamps as {@code LONG1}, and plain decimal values as
+ * {@code BINFLOAT}; other values are written as {@code BINUNICODE}, which Carbon converts with
+ * {@code float()} like it does with the text protocol, so that values which Java parses but Python
+ * doesn't, such as {@code 1d} or hexadecimal floats, are still rejected by Carbon rather than sent. Frames are encoded into a buffer which is
+ * reused, and only grown, from one batch to the next, so a pickler isn't thread-safe.
+ */
+class BinaryPickler {
+    private static final int HEADER_LENGTH = 4;
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    /**
+     * The pickle opcodes of protocol 2 which are needed for a list of tuples.
+     */
+    private static final byte
+            PROTO = (byte) 0x80,
+            EMPTY_LIST = ']',
+            MARK = '(',
+            BINUNICODE = 'X',
+            LONG1 = (byte) 0x8a,
+            BINFLOAT = 'G',
+            TUPLE2 = (byte) 0x86,
+            APPENDS = 'e',
+            STOP = '.';
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+    /**
+     * Encodes a frame made of the big-endian length of the pickle, followed by the pickle itself, at
+     * the beginning of {@link #bytes()}.
+     *
+     * @return the length of the frame
+     */
+    int frame(List<PickledGraphite.MetricTuple> metrics) {
+        buffer.clear();
+        buffer.position(HEADER_LENGTH);
+        ensure(4);
+        buffer.put(PROTO).put((byte) 2).put(EMPTY_LIST).put(MARK);
+        for (PickledGraphite.MetricTuple tuple : metrics) {
+            putUnicode(tuple.name);
+            putLong(tuple.timestamp);
+            putValue(tuple.value);
+            ensure(2);
+            // the (timestamp, value) tuple, and then the (name, (timestamp, value)) one
+            buffer.put(TUPLE2).put(TUPLE2);
+        }
+        ensure(2);
+        buffer.put(APPENDS).put(STOP);
+        buffer.putInt(0, buffer.position() - HEADER_LENGTH);
+        return buffer.position();
+    }
+
+    /**
+     * Returns the bytes the last frame was encoded into, which are reused by the next one.
+     */
+    byte[] bytes() {
+        return bytes;
+    }
+
+    private void putValue(String value) {
+        if (isPlainDecimal(value)) {
+            ensure(9);
+            // BINFLOAT is the only big-endian operand of the protocol
+            buffer.put(BINFLOAT).putDouble(Double.parseDouble(value));
+        } else {
+            putUnicode(value);
+        }
+    }
+
+    /**
+     * Returns whether a value is an optionally signed decimal number, with an optional fraction and
+     * exponent, which Python's {@code float()} and Java's {@link Double#parseDouble(String)} both
+     * parse to the same double.
+     */
+    static boolean isPlainDecimal(String value) {
+        final int length = value.length();
+        int i = 0;
+        if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            i++;
+        }
+        final int integerDigits = digits(value, i);
+        i += integerDigits;
+        int fractionDigits = 0;
+        if (i < length && value.charAt(i) == '.') {
+            i++;
+            fractionDigits = digits(value, i);
+            i += fractionDigits;
+        }
+        if (integerDigits + fractionDigits == 0) {
+            return false;
+        }
+        if (i < length && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+                i++;
+            }
+            final int exponentDigits = digits(value, i);
+            if (exponentDigits == 0) {
+                return false;
+            }
+            i += exponentDigits;
+        }
+        return i == length;
+    }
+
+    private static int digits(String value, int start) {
+        int i = start;
+        while (i < value.length() && value.charAt(i) >= '0' && value.charAt(i) <= '9') {
+            i++;
+        }
+        return i - start;
+    }
+
+    private void putLong(long value) {
+        // LONG1 is followed by the length and the little-endian two's complement bytes of the value
+        int length = 0;
+        if (value != 0) {
+            length = 1;
+            while (length < 8 && (value >> (8 * length - 1)) != 0 && (value >> (8 * length - 1)) != -1) {
+                length++;
+            }
+        }
+        ensure(2 + length);
+        buffer.put(LONG1).put((byte) length);
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) (value >> (8 * i)));
+        }
+    }
+
+    private void putUnicode(String s) {
+        // at most 3 bytes per UTF-16 char, since a surrogate pair takes 4 bytes for 2 chars
+        final int length = s.length();
+        ensure(5 + 3 * length);
+        buffer.put(BINUNICODE);
+        final int lengthPosition = buffer.position();
+        buffer.position(lengthPosition + 4);
+        for (int i = 0; i < length; i++) {
+            final char c = s.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xc0 | (c >> 6)))
+                        .put((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                buffer.put((byte) (0xf0 | (codePoint >> 18)))
+                        .put((byte) (0x80 | ((codePoint >> 12) & 0x3f)))
+                        .put((byte) (0x80 | ((codePoint >> 6) & 0x3f)))
+                        .put((byte) (0x80 | (codePoint & 0x3f)));
+            } else if (Character.isSurrogate(c)) {
+                // like String.getBytes, a lone surrogate can't be encoded
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xe0 | (c >> 12)))
+                        .put((byte) (0x80 | ((c >> 6) & 0x3f)))
+                        .put((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(lengthPosition, buffer.position() - lengthPosition - 4)
+                .order(ByteOrder.BIG_ENDIAN);
+    }
+
+    private void ensure(int needed) {
+        if (buffer.remaining() < needed) {
+            final byte[] grown = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, buffer.position() + needed));
+            final int position = buffer.position();
+            this.bytes = grown;
+            this.buffer = ByteBuffer.wrap(grown);
+            buffer.position(position);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.codahale.metrics.graphite;
+
+import java.util.Locale;
+
+/**
+ * Formats doubles with two decimals, exactly like {@code String.format(Locale.US, "%2.2f", value)},
+ * but without creating a {@link java.util.Formatter}, its regular expressions and its intermediate
+ * strings for each value.
+ * <p>
+ * The digits are written into a reused {@link StringBuilder}, so a formatter isn't thread-safe.
+ * The rare values which are too large, or too close to halfway between two hundredths for a double
+ * to tell how {@link java.util.Formatter} would round them, are handed to it instead.
+ */
+class FixedPointFormatter {
+    // below this magnitude, a hundredth is accurate to well within the tolerance below
+    private static final double MAX_FAST_VALUE = 1e9;
+    private static final double TIE_TOLERANCE = 1e-4;
+
+    private final StringBuilder builder = new StringBuilder(24);
+
+    String format(double value) {
+        final double magnitude = Math.abs(value);
+        if (!(magnitude < MAX_FAST_VALUE)) {
+            // NaN, infinities and large values
+            return slowFormat(value);
+        }
+        final double hundredths = magnitude * 100;
+        final double fraction = hundredths - Math.floor(hundredths);
+        if (Math.abs(fraction - 0.5) < TIE_TOLERANCE) {
+            // Formatter rounds the shortest decimal representation half up, which needs it
+            return slowFormat(value);
+        }
+        final long rounded = (long) (hundredths + 0.5);
+        final long cents = rounded % 100;
+
+        builder.setLength(0);
+        // like Formatter, keep the sign of negative values which round to zero
+        if (Double.doubleToRawLongBits(value) < 0) {
+            builder.append('-');
+        }
+        builder.append(rounded / 100)
+                .append('.')
+                .append((char) ('0' + cents / 10))
+                .append((char) ('0' + cents % 10));
+        return builder.toString();
+    }
+
+    static String slowFormat(double value) {
+        return String.format(Locale.US, "%2.2f", value);
+    }
+}
@@ -2,13 +2,17 @@ package com.codahale.metrics.graphite;
 
 import com.codahale.metrics.Clock;
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.DoubleGauge;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
+import com.codahale.metrics.LongGauge;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.Metered;
 import com.codahale.metrics.MetricAttribute;
 import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricRegistryListener;
+import com.codahale.metrics.ReportSpool;
 import com.codahale.metrics.ScheduledReporter;
 import com.codahale.metrics.Snapshot;
 import com.codahale.metrics.Timer;
@@ -17,12 +21,16 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Collections;
-import java.util.Locale;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.DoubleFunction;
 
 import static com.codahale.metrics.MetricAttribute.COUNT;
@@ -74,6 +82,7 @@ public class GraphiteReporter extends ScheduledReporter {
         private Set<MetricAttribute> disabledMetricAttributes;
         private boolean addMetricAttributesAsTags;
         private DoubleFunction<String> floatingPointFormatter;
+        private ReportSpool spool;
 
         private Builder(MetricRegistry registry) {
             this.registry = registry;
@@ -87,6 +96,7 @@ public class GraphiteReporter extends ScheduledReporter {
             this.disabledMetricAttributes = Collections.emptySet();
             this.addMetricAttributesAsTags = false;
             this.floatingPointFormatter = DEFAULT_FP_FORMATTER;
+            this.spool = null;
         }
 
         /**
@@ -211,6 +221,18 @@ public class GraphiteReporter extends ScheduledReporter {
             return this;
         }
 
+        /**
+         * Spool the reports which fail to be sent, and send them again once Graphite is reachable.
+         * See {@link GraphiteReporter#setSpool(ReportSpool)}.
+         *
+         * @param spool a {@link ReportSpool}
+         * @return {@code this}
+         */
+        public Builder spoolTo(ReportSpool spool) {
+            this.spool = spool;
+            return this;
+        }
+
         /**
          * Builds a {@link GraphiteReporter} with the given properties, sending metrics using the
          * given {@link GraphiteSender}.
@@ -232,7 +254,7 @@ public class GraphiteReporter extends ScheduledReporter {
          * @return a {@link GraphiteReporter}
          */
         public GraphiteReporter build(GraphiteSender graphite) {
-            return new GraphiteReporter(registry,
+            final GraphiteReporter reporter = new GraphiteReporter(registry,
                     graphite,
                     clock,
                     prefix,
@@ -244,18 +266,71 @@ public class GraphiteReporter extends ScheduledReporter {
                     disabledMetricAttributes,
                     addMetricAttributesAsTags,
                     floatingPointFormatter);
+            reporter.setSpool(spool);
+            return reporter;
         }
     }
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GraphiteReporter.class);
     // the Carbon plaintext format is pretty underspecified, but it seems like it just wants US-formatted digits
-    private static final DoubleFunction<String> DEFAULT_FP_FORMATTER = fp -> String.format(Locale.US, "%2.2f", fp);
+    private static final DoubleFunction<String> DEFAULT_FP_FORMATTER = FixedPointFormatter::slowFormat;
+    // spooled reports are split into records of this size, so they fit in a segment and drain gradually
+    private static final int MAX_SPOOL_CHUNK_SIZE = 64 * 1024;
+    // names which are reported but never removed from the registry stop being cached past this many
+    private static final int MAX_CACHED_NAMES = 100_000;
+    // the name of a metric itself, then the names of each of its attributes
+    private static final int NAME_SLOTS = MetricAttribute.values().length + 1;
+    private static final Map<MetricAttribute, Integer> ATTRIBUTE_SLOTS = new EnumMap<>(MetricAttribute.class);
+
+    static {
+        for (MetricAttribute attribute : MetricAttribute.values()) {
+            ATTRIBUTE_SLOTS.put(attribute, ATTRIBUTE_SLOTS.size() + 1);
+        }
+    }
 
     private final GraphiteSender graphite;
+    // a persistent sender keeps its connection open between reports, and is only closed when stopped
+    private final boolean persistent;
     private final Clock clock;
     private final String prefix;
     private final boolean addMetricAttributesAsTags;
     private final DoubleFunction<String> floatingPointFormatter;
+    // replaces the default formatter, which it formats exactly like
+    private final FixedPointFormatter fixedPointFormatter;
+    private final MetricRegistry registry;
+    private volatile ReportSpool spool;
+    // keeps the lines of a report while it is sent to the spool, in case sending it fails
+    private final SpoolRecorder recorder;
+    // the prefixed names of each metric and of its attributes, only cached while names are forgotten
+    private final ConcurrentMap<String, String[]> names = new ConcurrentHashMap<>();
+    private final AtomicInteger cachedNames = new AtomicInteger();
+    private volatile boolean listening;
+    private final MetricRegistryListener namesListener = new MetricRegistryListener.Base() {
+        @Override
+        public void onGaugeRemoved(String name) {
+            forget(name);
+        }
+
+        @Override
+        public void onCounterRemoved(String name) {
+            forget(name);
+        }
+
+        @Override
+        public void onHistogramRemoved(String name) {
+            forget(name);
+        }
+
+        @Override
+        public void onMeterRemoved(String name) {
+            forget(name);
+        }
+
+        @Override
+        public void onTimerRemoved(String name) {
+            forget(name);
+        }
+    };
   
   
     /**
@@ -354,10 +429,28 @@ public class GraphiteReporter extends ScheduledReporter {
         super(registry, "graphite-reporter", filter, rateUnit, durationUnit, executor, shutdownExecutorOnStop,
                 disabledMetricAttributes);
         this.graphite = graphite;
+        this.persistent = graphite instanceof PersistentGraphite;
         this.clock = clock;
         this.prefix = prefix;
         this.addMetricAttributesAsTags = addMetricAttributesAsTags;
         this.floatingPointFormatter = floatingPointFormatter;
+        this.fixedPointFormatter = floatingPointFormatter == DEFAULT_FP_FORMATTER ? new FixedPointFormatter() : null;
+        this.registry = registry;
+        this.recorder = new SpoolRecorder(graphite);
+    }
+
+    /**
+     * Schedules the reports, and starts forgetting the cached names of the metrics which are removed
+     * from the registry until the reporter is stopped. Every way of starting the reporter goes through
+     * here.
+     */
+    @Override
+    protected ScheduledFuture<?> getScheduledFuture(long initialDelay, long period, TimeUnit unit, Runnable runnable,
+                                                    ScheduledExecutorService executor) {
+        final ScheduledFuture<?> future = super.getScheduledFuture(initialDelay, period, unit, runnable, executor);
+        registry.addListener(namesListener);
+        listening = true;
+        return future;
     }
 
     @Override
@@ -368,45 +461,134 @@ public class GraphiteReporter extends ScheduledReporter {
                        SortedMap<String, Meter> meters,
                        SortedMap<String, Timer> timers) {
         final long timestamp = clock.getTime() / 1000;
+        final ReportSpool spool = this.spool;
+        if (spool == null) {
+            report(graphite, gauges, counters, histograms, meters, timers, timestamp, null);
+        } else {
+            // the recorder is reused, so reports with a spool are sent one at a time
+            synchronized (recorder) {
+                try {
+                    report(recorder, gauges, counters, histograms, meters, timers, timestamp, spool);
+                } finally {
+                    recorder.reset();
+                }
+            }
+        }
+    }
 
+    @SuppressWarnings("rawtypes")
+    private void report(GraphiteSender sender,
+                        SortedMap<String, Gauge> gauges,
+                        SortedMap<String, Counter> counters,
+                        SortedMap<String, Histogram> histograms,
+                        SortedMap<String, Meter> meters,
+                        SortedMap<String, Timer> timers,
+                        long timestamp,
+                        ReportSpool spool) {
         // oh it'd be lovely to use Java 7 here
         try {
-            graphite.connect();
-
-            for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
-                reportGauge(entry.getKey(), entry.getValue(), timestamp);
+            if (!persistent || !graphite.isConnected()) {
+                sender.connect();
             }
-
-            for (Map.Entry<String, Counter> entry : counters.entrySet()) {
-                reportCounter(entry.getKey(), entry.getValue(), timestamp);
+            reportTo(sender, gauges, counters, histograms, meters, timers, timestamp);
+            sender.flush();
+            if (spool != null) {
+                recorder.checkFailure();
+                replaySpool(spool);
             }
-
-            for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
-                reportHistogram(entry.getKey(), entry.getValue(), timestamp);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to report to Graphite", graphite, e);
+            if (spool != null) {
+                spool(spool, recorder);
             }
-
-            for (Map.Entry<String, Meter> entry : meters.entrySet()) {
-                reportMetered(entry.getKey(), entry.getValue(), timestamp);
+        } finally {
+            if (!persistent) {
+                try {
+                    graphite.close();
+                } catch (IOException e1) {
+                    LOGGER.warn("Error closing Graphite", graphite, e1);
+                }
             }
+        }
+    }
+
+    /**
+     * Spools the reports which fail to be sent, and sends them again once Graphite is reachable. The lines
+     * of a report are kept while it is sent, and only serialized if sending it fails, into records of up
+     * to 64 KiB, which are replayed after each successful report, no faster than the spool's drain rate. Reports which failed halfway may be
+     * sent twice, which Carbon tolerates since it keeps the last value of a timestamp.
+     *
+     * @param spool the spool of failed reports, or {@code null} to drop them
+     */
+    public void setSpool(ReportSpool spool) {
+        this.spool = spool;
+    }
 
-            for (Map.Entry<String, Timer> entry : timers.entrySet()) {
-                reportTimer(entry.getKey(), entry.getValue(), timestamp);
+    @SuppressWarnings("rawtypes")
+    private void reportTo(GraphiteSender sender,
+                          SortedMap<String, Gauge> gauges,
+                          SortedMap<String, Counter> counters,
+                          SortedMap<String, Histogram> histograms,
+                          SortedMap<String, Meter> meters,
+                          SortedMap<String, Timer> timers,
+                          long timestamp) throws IOException {
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            reportGauge(sender, entry.getKey(), entry.getValue(), timestamp);
+        }
+
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            reportCounter(sender, entry.getKey(), entry.getValue(), timestamp);
+        }
+
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            reportHistogram(sender, entry.getKey(), entry.getValue(), timestamp);
+        }
+
+        for (Map.Entry<String, Meter> entry : meters.entrySet()) {
+            reportMetered(sender, entry.getKey(), entry.getValue(), timestamp);
+        }
+
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            reportTimer(sender, entry.getKey(), entry.getValue(), timestamp);
+        }
+    }
+
+    /**
+     * Appends a report which couldn't be sent to the spool, in as many records as it takes.
+     */
+    private static void spool(ReportSpool spool, SpoolRecorder recorder) {
+        try {
+            for (byte[] record : recorder.toRecords(Math.min(spool.getMaxRecordSize(), MAX_SPOOL_CHUNK_SIZE))) {
+                if (!spool.append(record)) {
+                    LOGGER.warn("Unable to spool a metric larger than a spool segment");
+                }
             }
-            graphite.flush();
         } catch (IOException e) {
-            LOGGER.warn("Unable to report to Graphite", graphite, e);
-        } finally {
-            try {
-                graphite.close();
-            } catch (IOException e1) {
-                LOGGER.warn("Error closing Graphite", graphite, e1);
-            }
+            LOGGER.warn("Unable to spool the report", e);
+        }
+    }
+
+    /**
+     * Sends the spooled reports again, as many records as the spool's drain rate allows.
+     */
+    private void replaySpool(ReportSpool spool) {
+        try {
+            spool.drain(record -> {
+                SpoolRecorder.replay(record, graphite);
+                graphite.flush();
+            });
+        } catch (IOException e) {
+            LOGGER.warn("Unable to replay the spooled reports to Graphite", graphite, e);
         }
     }
 
     @Override
     public void stop() {
         try {
+            registry.removeListener(namesListener);
+            listening = false;
+            names.clear();
+            cachedNames.set(0);
             super.stop();
         } finally {
             try {
@@ -417,66 +599,73 @@ public class GraphiteReporter extends ScheduledReporter {
         }
     }
 
-    private void reportTimer(String name, Timer timer, long timestamp) throws IOException {
+    private void reportTimer(GraphiteSender sender, String name, Timer timer, long timestamp) throws IOException {
         final Snapshot snapshot = timer.getSnapshot();
-        sendIfEnabled(MAX, name, convertDuration(snapshot.getMax()), timestamp);
-        sendIfEnabled(MEAN, name, convertDuration(snapshot.getMean()), timestamp);
-        sendIfEnabled(MIN, name, convertDuration(snapshot.getMin()), timestamp);
-        sendIfEnabled(STDDEV, name, convertDuration(snapshot.getStdDev()), timestamp);
-        sendIfEnabled(P50, name, convertDuration(snapshot.getMedian()), timestamp);
-        sendIfEnabled(P75, name, convertDuration(snapshot.get75thPercentile()), timestamp);
-        sendIfEnabled(P95, name, convertDuration(snapshot.get95thPercentile()), timestamp);
-        sendIfEnabled(P98, name, convertDuration(snapshot.get98thPercentile()), timestamp);
-        sendIfEnabled(P99, name, convertDuration(snapshot.get99thPercentile()), timestamp);
-        sendIfEnabled(P999, name, convertDuration(snapshot.get999thPercentile()), timestamp);
-        reportMetered(name, timer, timestamp);
+        sendIfEnabled(sender, MAX, name, convertDuration(snapshot.getMax()), timestamp);
+        sendIfEnabled(sender, MEAN, name, convertDuration(snapshot.getMean()), timestamp);
+        sendIfEnabled(sender, MIN, name, convertDuration(snapshot.getMin()), timestamp);
+        sendIfEnabled(sender, STDDEV, name, convertDuration(snapshot.getStdDev()), timestamp);
+        sendIfEnabled(sender, P50, name, convertDuration(snapshot.getMedian()), timestamp);
+        sendIfEnabled(sender, P75, name, convertDuration(snapshot.get75thPercentile()), timestamp);
+        sendIfEnabled(sender, P95, name, convertDuration(snapshot.get95thPercentile()), timestamp);
+        sendIfEnabled(sender, P98, name, convertDuration(snapshot.get98thPercentile()), timestamp);
+        sendIfEnabled(sender, P99, name, convertDuration(snapshot.get99thPercentile()), timestamp);
+        sendIfEnabled(sender, P999, name, convertDuration(snapshot.get999thPercentile()), timestamp);
+        reportMetered(sender, name, timer, timestamp);
     }
 
-    private void reportMetered(String name, Metered meter, long timestamp) throws IOException {
-        sendIfEnabled(COUNT, name, meter.getCount(), timestamp);
-        sendIfEnabled(M1_RATE, name, convertRate(meter.getOneMinuteRate()), timestamp);
-        sendIfEnabled(M5_RATE, name, convertRate(meter.getFiveMinuteRate()), timestamp);
-        sendIfEnabled(M15_RATE, name, convertRate(meter.getFifteenMinuteRate()), timestamp);
-        sendIfEnabled(MEAN_RATE, name, convertRate(meter.getMeanRate()), timestamp);
+    private void reportMetered(GraphiteSender sender, String name, Metered meter, long timestamp) throws IOException {
+        sendIfEnabled(sender, COUNT, name, meter.getCount(), timestamp);
+        sendIfEnabled(sender, M1_RATE, name, convertRate(meter.getOneMinuteRate()), timestamp);
+        sendIfEnabled(sender, M5_RATE, name, convertRate(meter.getFiveMinuteRate()), timestamp);
+        sendIfEnabled(sender, M15_RATE, name, convertRate(meter.getFifteenMinuteRate()), timestamp);
+        sendIfEnabled(sender, MEAN_RATE, name, convertRate(meter.getMeanRate()), timestamp);
     }
 
-    private void reportHistogram(String name, Histogram histogram, long timestamp) throws IOException {
+    private void reportHistogram(GraphiteSender sender, String name, Histogram histogram, long timestamp) throws IOException {
         final Snapshot snapshot = histogram.getSnapshot();
-        sendIfEnabled(COUNT, name, histogram.getCount(), timestamp);
-        sendIfEnabled(MAX, name, snapshot.getMax(), timestamp);
-        sendIfEnabled(MEAN, name, snapshot.getMean(), timestamp);
-        sendIfEnabled(MIN, name, snapshot.getMin(), timestamp);
-        sendIfEnabled(STDDEV, name, snapshot.getStdDev(), timestamp);
-        sendIfEnabled(P50, name, snapshot.getMedian(), timestamp);
-        sendIfEnabled(P75, name, snapshot.get75thPercentile(), timestamp);
-        sendIfEnabled(P95, name, snapshot.get95thPercentile(), timestamp);
-        sendIfEnabled(P98, name, snapshot.get98thPercentile(), timestamp);
-        sendIfEnabled(P99, name, snapshot.get99thPercentile(), timestamp);
-        sendIfEnabled(P999, name, snapshot.get999thPercentile(), timestamp);
+        sendIfEnabled(sender, COUNT, name, histogram.getCount(), timestamp);
+        sendIfEnabled(sender, MAX, name, snapshot.getMax(), timestamp);
+        sendIfEnabled(sender, MEAN, name, snapshot.getMean(), timestamp);
+        sendIfEnabled(sender, MIN, name, snapshot.getMin(), timestamp);
+        sendIfEnabled(sender, STDDEV, name, snapshot.getStdDev(), timestamp);
+        sendIfEnabled(sender, P50, name, snapshot.getMedian(), timestamp);
+        sendIfEnabled(sender, P75, name, snapshot.get75thPercentile(), timestamp);
+        sendIfEnabled(sender, P95, name, snapshot.get95thPercentile(), timestamp);
+        sendIfEnabled(sender, P98, name, snapshot.get98thPercentile(), timestamp);
+        sendIfEnabled(sender, P99, name, snapshot.get99thPercentile(), timestamp);
+        sendIfEnabled(sender, P999, name, snapshot.get999thPercentile(), timestamp);
     }
 
-    private void sendIfEnabled(MetricAttribute type, String name, double value, long timestamp) throws IOException {
+    private void sendIfEnabled(GraphiteSender sender, MetricAttribute type, String name, double value, long timestamp) throws IOException {
         if (getDisabledMetricAttributes().contains(type)) {
             return;
         }
-        graphite.send(prefix(appendMetricAttribute(name, type.getCode())), format(value), timestamp);
+        sender.send(name(name, type), format(value), timestamp);
     }
 
-    private void sendIfEnabled(MetricAttribute type, String name, long value, long timestamp) throws IOException {
+    private void sendIfEnabled(GraphiteSender sender, MetricAttribute type, String name, long value, long timestamp) throws IOException {
         if (getDisabledMetricAttributes().contains(type)) {
             return;
         }
-        graphite.send(prefix(appendMetricAttribute(name, type.getCode())), format(value), timestamp);
+        sender.send(name(name, type), format(value), timestamp);
     }
 
-    private void reportCounter(String name, Counter counter, long timestamp) throws IOException {
-        graphite.send(prefix(appendMetricAttribute(name, COUNT.getCode())), format(counter.getCount()), timestamp);
+    private void reportCounter(GraphiteSender sender, String name, Counter counter, long timestamp) throws IOException {
+        sender.send(name(name, COUNT), format(counter.getCount()), timestamp);
     }
 
-    private void reportGauge(String name, Gauge<?> gauge, long timestamp) throws IOException {
-        final String value = format(gauge.getValue());
+    private void reportGauge(GraphiteSender sender, String name, Gauge<?> gauge, long timestamp) throws IOException {
+        final String value;
+        if (gauge instanceof LongGauge) {
+            value = format(((LongGauge) gauge).getLongValue());
+        } else if (gauge instanceof DoubleGauge) {
+            value = format(((DoubleGauge) gauge).getDoubleValue());
+        } else {
+            value = format(gauge.getValue());
+        }
         if (value != null) {
-            graphite.send(prefix(name), value, timestamp);
+            sender.send(name(name, null), value, timestamp);
         }
     }
 
@@ -501,6 +690,40 @@ public class GraphiteReporter extends ScheduledReporter {
         return null;
     }
 
+    /**
+     * Returns the prefixed name of a metric, or of one of its attributes. While the reporter is
+     * started, it is only rendered the first time it is reported, and forgotten once the metric is
+     * removed from the registry.
+     */
+    private String name(String name, MetricAttribute attribute) {
+        final int slot = attribute == null ? 0 : ATTRIBUTE_SLOTS.get(attribute);
+        String[] rendered = names.get(name);
+        if (rendered != null && rendered[slot] != null) {
+            return rendered[slot];
+        }
+        final String result = attribute == null ? prefix(name) : prefix(appendMetricAttribute(name, attribute.getCode()));
+        if (listening && cachedNames.get() < MAX_CACHED_NAMES) {
+            if (rendered == null) {
+                rendered = names.computeIfAbsent(name, key -> new String[NAME_SLOTS]);
+            }
+            // rendering the same name twice is harmless, so racing reports need no lock
+            rendered[slot] = result;
+            cachedNames.incrementAndGet();
+        }
+        return result;
+    }
+
+    private void forget(String name) {
+        final String[] rendered = names.remove(name);
+        if (rendered != null) {
+            for (String cached : rendered) {
+                if (cached != null) {
+                    cachedNames.decrementAndGet();
+                }
+            }
+        }
+    }
+
     private String prefix(String name) {
         return MetricRegistry.name(prefix, name);
     }
@@ -517,6 +740,9 @@ public class GraphiteReporter extends ScheduledReporter {
     }
 
     protected String format(double v) {
+        if (fixedPointFormatter != null) {
+            return fixedPointFormatter.format(v);
+        }
         return floatingPointFormatter.apply(v);
     }
 }
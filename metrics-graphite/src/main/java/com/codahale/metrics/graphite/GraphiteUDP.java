@@ -10,12 +10,22 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * A client to a Carbon server using unconnected UDP
+ * <p>
+ * By default, each line is sent in its own datagram. Given a maximum payload size, lines are instead
+ * packed into datagrams of up to that many bytes, which are sent when the next line doesn't fit, or
+ * when the client is flushed. Lines are encoded straight into the datagram's buffer, which is reused.
+ * A line is never split across datagrams, and a line longer than the maximum payload size is sent on
+ * its own.
  */
 public class GraphiteUDP implements GraphiteSender {
+    private static final int MAX_LONG_DIGITS = 20;
 
     private final String hostname;
     private final int port;
     private InetSocketAddress address;
+    // the lines waiting to be sent together, or null if each line is sent on its own
+    private final ByteBuffer packet;
+    private final byte[] digits = new byte[MAX_LONG_DIGITS];
 
     private DatagramChannel datagramChannel = null;
     private int failures;
@@ -30,6 +40,22 @@ public class GraphiteUDP implements GraphiteSender {
         this.hostname = hostname;
         this.port = port;
         this.address = null;
+        this.packet = null;
+    }
+
+    /**
+     * Creates a new client which sends data to given address using UDP, packing lines into datagrams
+     * of up to the given payload size, such as 1432 bytes for an Ethernet MTU of 1500.
+     *
+     * @param hostname       The hostname of the Carbon server
+     * @param port           The port of the Carbon server
+     * @param maxPayloadSize the maximum number of bytes sent in one datagram
+     */
+    public GraphiteUDP(String hostname, int port, int maxPayloadSize) {
+        this.hostname = hostname;
+        this.port = port;
+        this.address = null;
+        this.packet = ByteBuffer.allocate(checkPayloadSize(maxPayloadSize));
     }
 
     /**
@@ -41,6 +67,28 @@ public class GraphiteUDP implements GraphiteSender {
         this.hostname = null;
         this.port = -1;
         this.address = address;
+        this.packet = null;
+    }
+
+    /**
+     * Creates a new client which sends data to given address using UDP, packing lines into datagrams
+     * of up to the given payload size, such as 1432 bytes for an Ethernet MTU of 1500.
+     *
+     * @param address        the address of the Carbon server
+     * @param maxPayloadSize the maximum number of bytes sent in one datagram
+     */
+    public GraphiteUDP(InetSocketAddress address, int maxPayloadSize) {
+        this.hostname = null;
+        this.port = -1;
+        this.address = address;
+        this.packet = ByteBuffer.allocate(checkPayloadSize(maxPayloadSize));
+    }
+
+    private static int checkPayloadSize(int maxPayloadSize) {
+        if (maxPayloadSize <= 0) {
+            throw new IllegalArgumentException("maxPayloadSize must be positive: " + maxPayloadSize);
+        }
+        return maxPayloadSize;
     }
 
     @Override
@@ -65,16 +113,126 @@ public class GraphiteUDP implements GraphiteSender {
     @Override
     public void send(String name, String value, long timestamp) throws IOException {
         try {
-            String str = sanitize(name) + ' ' + sanitize(value) + ' ' + Long.toString(timestamp) + '\n';
-            ByteBuffer byteBuffer = ByteBuffer.wrap(str.getBytes(UTF_8));
-            datagramChannel.send(byteBuffer, address);
-            this.failures = 0;
+            final String sanitizedName = sanitize(name);
+            final String sanitizedValue = sanitize(value);
+            if (packet == null) {
+                datagramChannel.send(ByteBuffer.wrap(line(sanitizedName, sanitizedValue, timestamp)), address);
+                this.failures = 0;
+            } else if (!put(sanitizedName, sanitizedValue, timestamp)) {
+                sendPacket();
+                if (!put(sanitizedName, sanitizedValue, timestamp)) {
+                    // longer than a whole datagram, so it is sent on its own
+                    datagramChannel.send(ByteBuffer.wrap(line(sanitizedName, sanitizedValue, timestamp)), address);
+                    this.failures = 0;
+                }
+            }
         } catch (IOException e) {
             failures++;
             throw e;
         }
     }
 
+    private static byte[] line(String name, String value, long timestamp) {
+        return (name + ' ' + value + ' ' + timestamp + '\n').getBytes(UTF_8);
+    }
+
+    /**
+     * Encodes a line at the end of the packet, unless it doesn't fit in what is left of it.
+     */
+    private boolean put(String name, String value, long timestamp) {
+        final int start = packet.position();
+        if (putUtf8(name) && put((byte) ' ') && putUtf8(value) && put((byte) ' ')
+                && putLong(timestamp) && put((byte) '\n')) {
+            return true;
+        }
+        packet.position(start);
+        return false;
+    }
+
+    private boolean put(byte b) {
+        if (!packet.hasRemaining()) {
+            return false;
+        }
+        packet.put(b);
+        return true;
+    }
+
+    private boolean putUtf8(String s) {
+        final int length = s.length();
+        for (int i = 0; i < length; i++) {
+            final char c = s.charAt(i);
+            if (c < 0x80) {
+                if (!packet.hasRemaining()) {
+                    return false;
+                }
+                packet.put((byte) c);
+            } else if (c < 0x800) {
+                if (packet.remaining() < 2) {
+                    return false;
+                }
+                packet.put((byte) (0xc0 | (c >> 6)))
+                        .put((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                if (packet.remaining() < 4) {
+                    return false;
+                }
+                final int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                packet.put((byte) (0xf0 | (codePoint >> 18)))
+                        .put((byte) (0x80 | ((codePoint >> 12) & 0x3f)))
+                        .put((byte) (0x80 | ((codePoint >> 6) & 0x3f)))
+                        .put((byte) (0x80 | (codePoint & 0x3f)));
+            } else if (Character.isSurrogate(c)) {
+                // like String.getBytes, a lone surrogate can't be encoded
+                if (!packet.hasRemaining()) {
+                    return false;
+                }
+                packet.put((byte) '?');
+            } else {
+                if (packet.remaining() < 3) {
+                    return false;
+                }
+                packet.put((byte) (0xe0 | (c >> 12)))
+                        .put((byte) (0x80 | ((c >> 6) & 0x3f)))
+                        .put((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+        return true;
+    }
+
+    private boolean putLong(long value) {
+        // written backwards into a scratch array, so that Long.MIN_VALUE needs no special case
+        int i = digits.length;
+        long remaining = value;
+        do {
+            digits[--i] = (byte) ('0' + Math.abs(remaining % 10));
+            remaining /= 10;
+        } while (remaining != 0);
+        if (value < 0) {
+            digits[--i] = '-';
+        }
+        if (packet.remaining() < digits.length - i) {
+            return false;
+        }
+        packet.put(digits, i, digits.length - i);
+        return true;
+    }
+
+    /**
+     * Sends the lines packed so far, if any. Only a datagram which was sent resets the failures, not
+     * the lines which were merely packed.
+     */
+    private void sendPacket() throws IOException {
+        if (packet.position() > 0) {
+            packet.flip();
+            try {
+                datagramChannel.send(packet, address);
+            } finally {
+                packet.clear();
+            }
+            this.failures = 0;
+        }
+    }
+
     @Override
     public int getFailures() {
         return failures;
@@ -82,16 +240,27 @@ public class GraphiteUDP implements GraphiteSender {
 
     @Override
     public void flush() throws IOException {
-        // Nothing to do
+        if (packet != null && datagramChannel != null) {
+            try {
+                sendPacket();
+            } catch (IOException e) {
+                failures++;
+                throw e;
+            }
+        }
     }
 
     @Override
     public void close() throws IOException {
         if (datagramChannel != null) {
             try {
-                datagramChannel.close();
+                flush();
             } finally {
-                datagramChannel = null;
+                try {
+                    datagramChannel.close();
+                } finally {
+                    datagramChannel = null;
+                }
             }
         }
     }
@@ -0,0 +1,489 @@
+package com.codahale.metrics.graphite;
+
+import com.codahale.metrics.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A client to a Carbon server via TCP, which keeps its connection open between reports.
+ * <p>
+ * Unlike {@link Graphite}, which opens a new socket for every report, this client connects once and
+ * reuses its connection until it fails, after which it waits longer and longer (up to
+ * {@link Builder#backoff(Duration, Duration)}) before each new attempt to reconnect. The connection is
+ * non-blocking: connecting and writing give up after a timeout, instead of stalling the reporter
+ * when the server is slow or unreachable.
+ * <p>
+ * Lines are encoded straight into a direct {@link ByteBuffer}, which is written to the channel
+ * without being copied, and the sanitized bytes of each metric name are cached, since names rarely
+ * change between reports.
+ * <p>
+ * A {@link GraphiteReporter} only connects this client when it isn't connected, and only closes it
+ * when the reporter is stopped. Like {@link Graphite}, this client isn't thread-safe.
+ */
+public class PersistentGraphite implements GraphiteSender {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PersistentGraphite.class);
+
+    private static final byte SPACE = ' ';
+    private static final byte NEWLINE = '\n';
+    // the longest decimal long, "-9223372036854775808"
+    private static final int MAX_LONG_DIGITS = 20;
+    private static final String ASCII = " -.0123456789:=_ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    /**
+     * Returns a new {@link Builder} for a client to the given address.
+     *
+     * @param hostname the hostname of the Carbon server, which is resolved again on each connection
+     * @param port     the port of the Carbon server
+     * @return a {@link Builder} instance for a {@link PersistentGraphite}
+     */
+    public static Builder builder(String hostname, int port) {
+        if (hostname == null || hostname.isEmpty()) {
+            throw new IllegalArgumentException("hostname must not be null or empty");
+        }
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("port must be a valid IP port (0-65535)");
+        }
+        return new Builder(hostname, port, null);
+    }
+
+    /**
+     * Returns a new {@link Builder} for a client to the given address.
+     *
+     * @param address the address of the Carbon server
+     * @return a {@link Builder} instance for a {@link PersistentGraphite}
+     */
+    public static Builder builder(InetSocketAddress address) {
+        return new Builder(null, -1, requireNonNull(address, "address must not be null"));
+    }
+
+    private final String hostname;
+    private final int port;
+    private final InetSocketAddress address;
+    private final Charset charset;
+    private final boolean asciiCompatible;
+    private final long connectTimeoutMillis;
+    private final long writeTimeoutMillis;
+    private final long minBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Clock clock;
+    private final ByteBuffer buffer;
+    private final Map<String, byte[]> names;
+    private final byte[] digits = new byte[MAX_LONG_DIGITS];
+    // Carbon never writes anything back, so reading is only a way of noticing that it hung up
+    private final ByteBuffer probe = ByteBuffer.allocate(64);
+
+    private SocketChannel channel;
+    private Selector selector;
+    private long backoffMillis;
+    private long nextAttemptTime;
+    private int failures;
+
+    private PersistentGraphite(Builder builder) {
+        this.hostname = builder.hostname;
+        this.port = builder.port;
+        this.address = builder.address;
+        this.charset = builder.charset;
+        this.asciiCompatible = Arrays.equals(ASCII.getBytes(charset), ASCII.getBytes(US_ASCII));
+        this.connectTimeoutMillis = builder.connectTimeout.toMillis();
+        this.writeTimeoutMillis = builder.writeTimeout.toMillis();
+        this.minBackoffMillis = builder.minBackoff.toMillis();
+        this.maxBackoffMillis = builder.maxBackoff.toMillis();
+        this.clock = builder.clock;
+        this.buffer = ByteBuffer.allocateDirect(builder.bufferSize);
+        final int maxCachedNames = builder.maxCachedNames;
+        this.names = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > maxCachedNames;
+            }
+        };
+    }
+
+    /**
+     * Connects to the server, unless the last attempt failed too recently.
+     *
+     * @throws IllegalStateException if the client is already connected
+     * @throws IOException           if there is an error connecting, or if the client is waiting
+     *                               before its next attempt to reconnect
+     */
+    @Override
+    public void connect() throws IllegalStateException, IOException {
+        if (isConnected()) {
+            throw new IllegalStateException("Already connected");
+        }
+        final long now = clock.getTime();
+        if (now < nextAttemptTime) {
+            throw new IOException("Not reconnecting to Graphite for another " + (nextAttemptTime - now) + " ms");
+        }
+        try {
+            open();
+            this.backoffMillis = 0;
+            this.nextAttemptTime = 0;
+        } catch (IOException e) {
+            disconnect(e);
+            throw e;
+        }
+    }
+
+    private void open() throws IOException {
+        InetSocketAddress address = this.address;
+        // as in Graphite, a hostname is resolved again on each connection
+        if (address == null) {
+            address = new InetSocketAddress(hostname, port);
+        }
+        if (address.getAddress() == null) {
+            throw new UnknownHostException(address.getHostName());
+        }
+
+        this.channel = SocketChannel.open();
+        this.selector = Selector.open();
+        channel.configureBlocking(false);
+        final SelectionKey key = channel.register(selector, SelectionKey.OP_CONNECT);
+        if (!channel.connect(address)) {
+            if (selector.select(connectTimeoutMillis) == 0) {
+                throw new SocketTimeoutException("Timed out connecting to " + address);
+            }
+            selector.selectedKeys().clear();
+            channel.finishConnect();
+        }
+        key.interestOps(SelectionKey.OP_WRITE);
+        buffer.clear();
+    }
+
+    /**
+     * Returns whether the connection is open, and hasn't been closed by the server (or a relay in
+     * between) since it was last used, in which case it is dropped, so it can be reconnected without
+     * losing the next lines to a dead socket.
+     */
+    @Override
+    public boolean isConnected() {
+        if (!isOpen()) {
+            return false;
+        }
+        try {
+            int read;
+            do {
+                probe.clear();
+                read = channel.read(probe);
+            } while (read > 0);
+            if (read == 0) {
+                return true;
+            }
+            LOGGER.debug("Graphite closed the connection");
+        } catch (IOException e) {
+            LOGGER.debug("Graphite reset the connection", e);
+        }
+        closeChannel();
+        return false;
+    }
+
+    private boolean isOpen() {
+        return channel != null && channel.isOpen() && channel.isConnected();
+    }
+
+    @Override
+    public void send(String name, String value, long timestamp) throws IOException {
+        if (!isOpen()) {
+            throw new IOException("Not connected to Graphite");
+        }
+        try {
+            byte[] encodedName = names.get(name);
+            if (encodedName == null) {
+                encodedName = sanitize(name).getBytes(charset);
+                names.put(name, encodedName);
+            }
+            put(encodedName);
+            put(SPACE);
+            putValue(value);
+            put(SPACE);
+            putLong(timestamp);
+            put(NEWLINE);
+            this.failures = 0;
+        } catch (IOException e) {
+            failures++;
+            disconnect(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int getFailures() {
+        return failures;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (isOpen() && buffer.position() > 0) {
+            try {
+                drain();
+            } catch (IOException e) {
+                failures++;
+                disconnect(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Writes whatever is still buffered and closes the connection.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } catch (IOException e) {
+            LOGGER.debug("Error flushing to Graphite", e);
+        } finally {
+            closeChannel();
+        }
+    }
+
+    protected String sanitize(String s) {
+        return GraphiteSanitize.sanitize(s);
+    }
+
+    /**
+     * Drops a failed connection, and waits twice as long as last time before reconnecting.
+     */
+    private void disconnect(IOException cause) {
+        LOGGER.debug("Disconnecting from Graphite", cause);
+        closeChannel();
+        this.backoffMillis = backoffMillis == 0 ? minBackoffMillis : Math.min(backoffMillis * 2, maxBackoffMillis);
+        this.nextAttemptTime = clock.getTime() + backoffMillis;
+    }
+
+    private void closeChannel() {
+        buffer.clear();
+        try {
+            if (selector != null) {
+                selector.close();
+            }
+        } catch (IOException ex) {
+            LOGGER.debug("Error closing selector", ex);
+        } finally {
+            this.selector = null;
+        }
+
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException ex) {
+            LOGGER.debug("Error closing channel", ex);
+        } finally {
+            this.channel = null;
+        }
+    }
+
+    private void putValue(String value) throws IOException {
+        // values are almost always plain numbers, which need neither sanitizing nor encoding
+        final int length = value.length();
+        boolean plain = asciiCompatible && length > 0;
+        for (int i = 0; i < length && plain; i++) {
+            final char c = value.charAt(i);
+            plain = c > ' ' && c < 0x7f;
+        }
+        if (!plain) {
+            put(sanitize(value).getBytes(charset));
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            put((byte) value.charAt(i));
+        }
+    }
+
+    private void putLong(long value) throws IOException {
+        if (!asciiCompatible) {
+            put(Long.toString(value).getBytes(charset));
+            return;
+        }
+        int i = digits.length;
+        long remaining = value;
+        do {
+            digits[--i] = (byte) ('0' + Math.abs(remaining % 10));
+            remaining /= 10;
+        } while (remaining != 0);
+        if (value < 0) {
+            digits[--i] = '-';
+        }
+        put(digits, i, digits.length - i);
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put(b);
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        put(bytes, 0, bytes.length);
+    }
+
+    private void put(byte[] bytes, int offset, int length) throws IOException {
+        while (length > buffer.remaining()) {
+            final int chunk = buffer.remaining();
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+            drain();
+        }
+        buffer.put(bytes, offset, length);
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            if (channel.write(buffer) == 0) {
+                // the socket's send buffer is full, wait until the server has read some of it
+                if (selector.select(writeTimeoutMillis) == 0) {
+                    throw new SocketTimeoutException("Timed out writing to Graphite");
+                }
+                selector.selectedKeys().clear();
+            }
+        }
+        buffer.clear();
+    }
+
+    /**
+     * A builder for {@link PersistentGraphite} instances. Defaults to UTF-8, a 64 KiB buffer, timeouts
+     * of 5 seconds, a reconnection backoff from 1 second to 1 minute and up to 100,000 cached names.
+     */
+    public static class Builder {
+        private final String hostname;
+        private final int port;
+        private final InetSocketAddress address;
+        private Charset charset = UTF_8;
+        private int bufferSize = 64 * 1024;
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        private Duration writeTimeout = Duration.ofSeconds(5);
+        private Duration minBackoff = Duration.ofSeconds(1);
+        private Duration maxBackoff = Duration.ofMinutes(1);
+        private int maxCachedNames = 100_000;
+        private Clock clock = Clock.defaultClock();
+
+        private Builder(String hostname, int port, InetSocketAddress address) {
+            this.hostname = hostname;
+            this.port = port;
+            this.address = address;
+        }
+
+        /**
+         * Use the given character set to encode lines.
+         *
+         * @param charset the character set used by the server
+         * @return {@code this}
+         */
+        public Builder charset(Charset charset) {
+            this.charset = requireNonNull(charset, "charset must not be null");
+            return this;
+        }
+
+        /**
+         * Buffer up to the given number of bytes before writing them to the server.
+         *
+         * @param bufferSize the size of the direct buffer lines are encoded into
+         * @return {@code this}
+         */
+        public Builder bufferSize(int bufferSize) {
+            if (bufferSize <= 0) {
+                throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+            }
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Give up connecting, or writing to a server which doesn't read, after the given timeouts.
+         *
+         * @param connectTimeout the connection timeout
+         * @param writeTimeout   the time to wait for the server to read what was written
+         * @return {@code this}
+         */
+        public Builder timeouts(Duration connectTimeout, Duration writeTimeout) {
+            this.connectTimeout = positive(connectTimeout, "connectTimeout");
+            this.writeTimeout = positive(writeTimeout, "writeTimeout");
+            return this;
+        }
+
+        /**
+         * Wait {@code minBackoff} before reconnecting after a failure, and twice as long after each
+         * further failure, up to {@code maxBackoff}.
+         *
+         * @param minBackoff the delay before reconnecting after a first failure
+         * @param maxBackoff the longest delay before reconnecting
+         * @return {@code this}
+         */
+        public Builder backoff(Duration minBackoff, Duration maxBackoff) {
+            this.minBackoff = positive(minBackoff, "minBackoff");
+            this.maxBackoff = positive(maxBackoff, "maxBackoff");
+            if (maxBackoff.compareTo(minBackoff) < 0) {
+                throw new IllegalArgumentException("maxBackoff must not be less than minBackoff");
+            }
+            return this;
+        }
+
+        /**
+         * Cache the sanitized bytes of up to the given number of metric names, evicting the least
+         * recently sent ones.
+         *
+         * @param maxCachedNames the maximum number of cached names
+         * @return {@code this}
+         */
+        public Builder maxCachedNames(int maxCachedNames) {
+            if (maxCachedNames < 0) {
+                throw new IllegalArgumentException("maxCachedNames must not be negative: " + maxCachedNames);
+            }
+            this.maxCachedNames = maxCachedNames;
+            return this;
+        }
+
+        /**
+         * Use the given {@link Clock} to time reconnection attempts.
+         *
+         * @param clock a {@link Clock} instance
+         * @return {@code this}
+         */
+        public Builder clock(Clock clock) {
+            this.clock = requireNonNull(clock, "clock must not be null");
+            return this;
+        }
+
+        /**
+         * Builds a {@link PersistentGraphite} with the given properties.
+         *
+         * @return a {@link PersistentGraphite}, which isn't connected yet
+         */
+        public PersistentGraphite build() {
+            return new PersistentGraphite(this);
+        }
+
+        private static Duration positive(Duration duration, String name) {
+            requireNonNull(duration, name + " must not be null");
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException(name + " must be positive: " + duration);
+            }
+            return duration;
+        }
+    }
+}
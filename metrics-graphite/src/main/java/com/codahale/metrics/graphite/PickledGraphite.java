@@ -23,6 +23,9 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * A client to a Carbon server that sends all metrics after they have been pickled in configurable sized batches
+ * <p>
+ * Batches are pickled with the text protocol 0 by default. With the binary protocol 2, they are encoded
+ * into a reused buffer instead, which is smaller and faster to both encode and unpickle.
  */
 public class PickledGraphite implements GraphiteSender {
 
@@ -54,8 +57,12 @@ public class PickledGraphite implements GraphiteSender {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PickledGraphite.class);
     private final static int DEFAULT_BATCH_SIZE = 100;
+    private final static int DEFAULT_PROTOCOL = 0;
+    private final static int BINARY_PROTOCOL = 2;
 
     private int batchSize;
+    // encodes the batches if the binary protocol is used, or null
+    private final BinaryPickler binaryPickler;
     // graphite expects a python-pickled list of nested tuples.
     private List<MetricTuple> metrics = new ArrayList<>();
 
@@ -109,12 +116,28 @@ public class PickledGraphite implements GraphiteSender {
      * @param batchSize     how many metrics are bundled into a single pickle request to graphite
      */
     public PickledGraphite(InetSocketAddress address, SocketFactory socketFactory, Charset charset, int batchSize) {
+        this(address, socketFactory, charset, batchSize, DEFAULT_PROTOCOL);
+    }
+
+    /**
+     * Creates a new client which connects to the given address and socket factory using the given character set
+     * and pickle protocol.
+     *
+     * @param address       the address of the Carbon server
+     * @param socketFactory the socket factory
+     * @param charset       the character set used by the server, for the text protocol 0
+     * @param batchSize     how many metrics are bundled into a single pickle request to graphite
+     * @param protocol      the pickle protocol, either 0 (text) or 2 (binary, always in UTF-8)
+     */
+    public PickledGraphite(InetSocketAddress address, SocketFactory socketFactory, Charset charset, int batchSize,
+                           int protocol) {
         this.address = address;
         this.hostname = null;
         this.port = -1;
         this.socketFactory = socketFactory;
         this.charset = charset;
         this.batchSize = batchSize;
+        this.binaryPickler = pickler(protocol);
     }
 
     /**
@@ -161,12 +184,38 @@ public class PickledGraphite implements GraphiteSender {
      * @param batchSize     how many metrics are bundled into a single pickle request to graphite
      */
     public PickledGraphite(String hostname, int port, SocketFactory socketFactory, Charset charset, int batchSize) {
+        this(hostname, port, socketFactory, charset, batchSize, DEFAULT_PROTOCOL);
+    }
+
+    /**
+     * Creates a new client which connects to the given address and socket factory using the given character set
+     * and pickle protocol.
+     *
+     * @param hostname      the hostname of the Carbon server
+     * @param port          the port of the Carbon server
+     * @param socketFactory the socket factory
+     * @param charset       the character set used by the server, for the text protocol 0
+     * @param batchSize     how many metrics are bundled into a single pickle request to graphite
+     * @param protocol      the pickle protocol, either 0 (text) or 2 (binary, always in UTF-8)
+     */
+    public PickledGraphite(String hostname, int port, SocketFactory socketFactory, Charset charset, int batchSize,
+                           int protocol) {
         this.address = null;
         this.hostname = hostname;
         this.port = port;
         this.socketFactory = socketFactory;
         this.charset = charset;
         this.batchSize = batchSize;
+        this.binaryPickler = pickler(protocol);
+    }
+
+    private static BinaryPickler pickler(int protocol) {
+        if (protocol == DEFAULT_PROTOCOL) {
+            return null;
+        } else if (protocol == BINARY_PROTOCOL) {
+            return new BinaryPickler();
+        }
+        throw new IllegalArgumentException("protocol must be 0 or 2: " + protocol);
     }
 
     @Override
@@ -250,13 +299,18 @@ public class PickledGraphite implements GraphiteSender {
     private void writeMetrics() throws IOException {
         if (metrics.size() > 0) {
             try {
-                byte[] payload = pickleMetrics(metrics);
-                byte[] header = ByteBuffer.allocate(4).putInt(payload.length).array();
-
                 @SuppressWarnings("resource")
                 OutputStream outputStream = socket.getOutputStream();
-                outputStream.write(header);
-                outputStream.write(payload);
+                if (binaryPickler != null) {
+                    // the header and the payload are written together
+                    int length = binaryPickler.frame(metrics);
+                    outputStream.write(binaryPickler.bytes(), 0, length);
+                } else {
+                    byte[] payload = pickleMetrics(metrics);
+                    byte[] header = ByteBuffer.allocate(4).putInt(payload.length).array();
+                    outputStream.write(header);
+                    outputStream.write(payload);
+                }
                 outputStream.flush();
 
                 if (LOGGER.isDebugEnabled()) {
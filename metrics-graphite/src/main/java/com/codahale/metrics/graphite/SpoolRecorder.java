@@ -0,0 +1,148 @@
+package com.codahale.metrics.graphite;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A {@link GraphiteSender} which keeps the lines of a report while it sends them to another sender,
+ * so that the report can be appended to a {@link com.codahale.metrics.ReportSpool} if sending it fails,
+ * and sent again later by {@link #replay(byte[], GraphiteSender)}.
+ * <p>
+ * Lines are only serialized by {@link #toRecords(int)}, once sending failed, so a report which is sent
+ * costs no more than holding on to its lines until {@link #reset()}. Once the other sender failed, the
+ * rest of the report is only kept, and the failure is thrown by {@link #checkFailure()} once the whole
+ * report has been kept. A recorder is reused from one report to the next, by a single thread at a time.
+ */
+class SpoolRecorder implements GraphiteSender {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final GraphiteSender delegate;
+    private String[] names = new String[INITIAL_CAPACITY];
+    private String[] values = new String[INITIAL_CAPACITY];
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private int size;
+    private IOException failure;
+
+    SpoolRecorder(GraphiteSender delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void connect() throws IOException {
+        if (failure == null) {
+            try {
+                delegate.connect();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+
+    @Override
+    public void send(String name, String value, long timestamp) throws IOException {
+        record(name, value, timestamp);
+        if (failure == null) {
+            try {
+                delegate.send(name, value, timestamp);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+
+    private void record(String name, String value, long timestamp) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+        }
+        names[size] = name;
+        values[size] = value;
+        timestamps[size] = timestamp;
+        size++;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (failure == null) {
+            try {
+                delegate.flush();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return delegate.isConnected();
+    }
+
+    @Override
+    public int getFailures() {
+        return delegate.getFailures();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    /**
+     * Throws the first failure of the other sender, if any.
+     */
+    void checkFailure() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Serializes the kept report, as records of at most the given size, unless a single line is
+     * larger than that.
+     */
+    List<byte[]> toRecords(int maxRecordSize) throws IOException {
+        final List<byte[]> records = new ArrayList<>();
+        final ByteArrayOutputStream record = new ByteArrayOutputStream();
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(line);
+        for (int i = 0; i < size; i++) {
+            output.writeUTF(names[i]);
+            output.writeUTF(values[i]);
+            output.writeLong(timestamps[i]);
+            if (record.size() > 0 && record.size() + line.size() > maxRecordSize) {
+                records.add(record.toByteArray());
+                record.reset();
+            }
+            line.writeTo(record);
+            line.reset();
+        }
+        if (record.size() > 0) {
+            records.add(record.toByteArray());
+        }
+        return records;
+    }
+
+    /**
+     * Forgets the kept report and the failure, before the next report.
+     */
+    void reset() {
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        failure = null;
+    }
+
+    static void replay(byte[] record, GraphiteSender sender) throws IOException {
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(record));
+        while (input.available() > 0) {
+            sender.send(input.readUTF(), input.readUTF(), input.readLong());
+        }
+    }
+}
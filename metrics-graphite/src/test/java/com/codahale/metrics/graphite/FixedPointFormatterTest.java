@@ -0,0 +1,41 @@
+package com.codahale.metrics.graphite;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FixedPointFormatterTest {
+    private final FixedPointFormatter formatter = new FixedPointFormatter();
+
+    @Test
+    public void formatsLikeFormatter() {
+        final double[] values = {
+                0, -0.0, 1, -1, 0.5, 0.001, -0.001, 0.004999, 0.005, -0.005, 0.125, 1.005, 2.675, 99.995,
+                1.1, 12.345, 1234567.891, 999_999_999.994, 1e9, 1e10, 1e20, 1e-20, Double.MIN_VALUE,
+                Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY
+        };
+        for (double value : values) {
+            assertFormatsLikeFormatter(value);
+        }
+    }
+
+    @Test
+    public void formatsRandomValuesLikeFormatter() {
+        final Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            final double magnitude = Math.pow(10, random.nextInt(14) - 4);
+            assertFormatsLikeFormatter((random.nextDouble() - 0.5) * magnitude);
+            // values which are exactly halfway between two hundredths in decimal
+            assertFormatsLikeFormatter((random.nextInt(2_000_000) - 1_000_000) / 1000.0 + 0.005);
+        }
+    }
+
+    private void assertFormatsLikeFormatter(double value) {
+        assertThat(formatter.format(value))
+                .as("%s", value)
+                .isEqualTo(String.format(Locale.US, "%2.2f", value));
+    }
+}
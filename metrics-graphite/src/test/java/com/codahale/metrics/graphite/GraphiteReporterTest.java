@@ -2,18 +2,24 @@ package com.codahale.metrics.graphite;
 
 import com.codahale.metrics.Clock;
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.DoubleGauge;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
+import com.codahale.metrics.LongGauge;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricAttribute;
 import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.ReportSpool;
 import com.codahale.metrics.Snapshot;
 import com.codahale.metrics.Timer;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.InOrder;
 
+import java.io.IOException;
 import java.net.UnknownHostException;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
@@ -24,16 +30,25 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 public class GraphiteReporterTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
     private final long timestamp = 1000198;
     private final Clock clock = mock(Clock.class);
     private final Graphite graphite = mock(Graphite.class);
@@ -181,6 +196,32 @@ public class GraphiteReporterTest {
         verifyNoMoreInteractions(graphite);
     }
 
+    @Test
+    public void reportsPrimitiveGaugeValues() throws Exception {
+        reporter.report(map("gauge", (LongGauge) () -> 1L),
+            map(),
+            map(),
+            map(),
+            map());
+        reporter.report(map("gauge", (DoubleGauge) () -> 1.1),
+            map(),
+            map(),
+            map(),
+            map());
+
+        final InOrder inOrder = inOrder(graphite);
+        inOrder.verify(graphite).connect();
+        inOrder.verify(graphite).send("prefix.gauge", "1", timestamp);
+        inOrder.verify(graphite).flush();
+        inOrder.verify(graphite).close();
+        inOrder.verify(graphite).connect();
+        inOrder.verify(graphite).send("prefix.gauge", "1.10", timestamp);
+        inOrder.verify(graphite).flush();
+        inOrder.verify(graphite).close();
+
+        verifyNoMoreInteractions(graphite);
+    }
+
     @Test
     public void reportsDoubleGaugeValuesWithCustomFormat() throws Exception {
         try (final GraphiteReporter graphiteReporter = getReporterWithCustomFormat()) {
@@ -539,6 +580,170 @@ public class GraphiteReporterTest {
                 .build(graphite);
     }
 
+    @Test
+    public void onlyListensToTheRegistryWhileStarted() throws Exception {
+        final GraphiteReporter graphiteReporter = GraphiteReporter.forRegistry(registry)
+            .withClock(clock)
+            .build(graphite);
+        verify(registry, never()).addListener(any());
+
+        graphiteReporter.start(1, TimeUnit.HOURS);
+        verify(registry).addListener(any());
+
+        graphiteReporter.stop();
+        verify(registry).removeListener(any());
+    }
+
+    @Test
+    public void reusesTheNamesItCachedWhileStarted() throws Exception {
+        final Meter meter = mock(Meter.class);
+        when(meter.getCount()).thenReturn(1L);
+
+        reporter.start(1, TimeUnit.HOURS);
+        try {
+            reporter.report(map(), map(), map(), map("meter", meter), map());
+            reporter.report(map(), map(), map(), map("meter", meter), map());
+        } finally {
+            reporter.stop();
+        }
+
+        verify(graphite, times(2)).send("prefix.meter.count", "1", timestamp);
+        verify(graphite, times(2)).send("prefix.meter.m1_rate", "0.00", timestamp);
+        verify(graphite, times(2)).send("prefix.meter.mean_rate", "0.00", timestamp);
+    }
+
+    @Test
+    public void rendersNamesOfMetricsMissingFromTheRegistry() throws Exception {
+        final Counter counter = mock(Counter.class);
+        when(counter.getCount()).thenReturn(100L);
+
+        for (int i = 0; i < 3; i++) {
+            reporter.report(map(), map("counter" + i, counter), map(), map(), map());
+            reporter.report(map(), map("counter" + i, counter), map(), map(), map());
+        }
+
+        for (int i = 0; i < 3; i++) {
+            verify(graphite, times(2)).send("prefix.counter" + i + ".count", "100", timestamp);
+        }
+    }
+
+    @Test
+    public void spoolsFailedReportsAndReplaysThemOnceGraphiteIsBack() throws Exception {
+        final ReportSpool spool = ReportSpool.builder(folder.getRoot().toPath()).build();
+        reporter.setSpool(spool);
+        final Counter counter = mock(Counter.class);
+        when(counter.getCount()).thenReturn(100L, 200L);
+        when(clock.getTime()).thenReturn(timestamp * 1000, (timestamp + 60) * 1000);
+        doThrow(new UnknownHostException("UNKNOWN-HOST")).doNothing().when(graphite).connect();
+
+        reporter.report(map(), map("counter", counter), map(), map(), map());
+        reporter.report(map(), map("counter", counter), map(), map(), map());
+
+        final InOrder inOrder = inOrder(graphite);
+        inOrder.verify(graphite).connect();
+        inOrder.verify(graphite).close();
+        inOrder.verify(graphite).connect();
+        inOrder.verify(graphite).send("prefix.counter.count", "200", timestamp + 60);
+        inOrder.verify(graphite).flush();
+        inOrder.verify(graphite).send("prefix.counter.count", "100", timestamp);
+        inOrder.verify(graphite).flush();
+        inOrder.verify(graphite).close();
+
+        verifyNoMoreInteractions(graphite);
+        assertThat(spool.isEmpty())
+            .isTrue();
+    }
+
+    @Test
+    public void spoolsTheReportAsItWasSent() throws Exception {
+        final ReportSpool spool = ReportSpool.builder(folder.getRoot().toPath()).build();
+        reporter.setSpool(spool);
+        final Counter counter = mock(Counter.class);
+        when(counter.getCount()).thenReturn(100L, 200L, 300L);
+        when(clock.getTime()).thenReturn(timestamp * 1000, (timestamp + 60) * 1000);
+        doThrow(new IOException("broken pipe")).doNothing().when(graphite).flush();
+
+        reporter.report(map(), map("counter", counter), map(), map(), map());
+        reporter.report(map(), map("counter", counter), map(), map(), map());
+
+        // the failed report is spooled with the values which were sent, not re-read ones
+        verify(graphite, times(2)).send("prefix.counter.count", "100", timestamp);
+        verify(graphite).send("prefix.counter.count", "200", timestamp + 60);
+        verify(graphite, never()).send("prefix.counter.count", "300", timestamp);
+        assertThat(spool.isEmpty())
+            .isTrue();
+    }
+
+    @Test
+    public void spoolsLargeReportsInSeveralRecords() throws Exception {
+        final ReportSpool spool = ReportSpool.builder(folder.getRoot().toPath())
+            .segmentSize(256)
+            .drainRate(100)
+            .build();
+        reporter.setSpool(spool);
+        final SortedMap<String, Counter> counters = new TreeMap<>();
+        for (int i = 0; i < 50; i++) {
+            final Counter counter = mock(Counter.class);
+            when(counter.getCount()).thenReturn((long) i);
+            counters.put("counter" + i, counter);
+        }
+        doThrow(new UnknownHostException("UNKNOWN-HOST")).doNothing().when(graphite).connect();
+
+        reporter.report(map(), counters, map(), map(), map());
+        reporter.report(map(), counters, map(), map(), map());
+
+        for (int i = 0; i < 50; i++) {
+            verify(graphite, times(2)).send("prefix.counter" + i + ".count", Integer.toString(i), timestamp);
+        }
+        assertThat(spool.getDroppedSegments())
+            .isZero();
+        assertThat(spool.isEmpty())
+            .isTrue();
+    }
+
+    @Test
+    public void drainsTheSpoolAtItsRateWhenReportingLessThanOncePerSecond() throws Exception {
+        final AtomicLong seconds = new AtomicLong();
+        final Clock spoolClock = new Clock() {
+            @Override
+            public long getTick() {
+                return TimeUnit.SECONDS.toNanos(seconds.get());
+            }
+        };
+        final ReportSpool spool = ReportSpool.builder(folder.getRoot().toPath())
+            .drainRate(1)
+            .clock(spoolClock)
+            .build();
+        reporter.setSpool(spool);
+        final Counter counter = mock(Counter.class);
+        when(counter.getCount()).thenReturn(100L);
+        final AtomicInteger failures = new AtomicInteger(30);
+        doAnswer(invocation -> {
+            if (failures.getAndDecrement() > 0) {
+                throw new UnknownHostException("UNKNOWN-HOST");
+            }
+            return null;
+        }).when(graphite).connect();
+
+        for (int i = 0; i < 30; i++) {
+            reporter.report(map(), map("counter", counter), map(), map(), map());
+        }
+
+        // reporting every ten seconds replays ten reports each time
+        seconds.addAndGet(10);
+        reporter.report(map(), map("counter", counter), map(), map(), map());
+        seconds.addAndGet(10);
+        reporter.report(map(), map("counter", counter), map(), map(), map());
+        assertThat(spool.isEmpty())
+            .isFalse();
+
+        seconds.addAndGet(10);
+        reporter.report(map(), map("counter", counter), map(), map(), map());
+        assertThat(spool.isEmpty())
+            .isTrue();
+        verify(graphite, times(33)).send("prefix.counter.count", "100", timestamp);
+    }
+
     private <T> SortedMap<String, T> map() {
         return new TreeMap<>();
     }
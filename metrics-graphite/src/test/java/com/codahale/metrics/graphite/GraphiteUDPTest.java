@@ -3,12 +3,21 @@ package com.codahale.metrics.graphite;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
 import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class GraphiteUDPTest {
 
@@ -40,4 +49,140 @@ public class GraphiteUDPTest {
                 new InetSocketAddress(host, port));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void packsValuesUntilFlushed() throws Exception {
+        graphiteUDP = new GraphiteUDP(host, port, 1432);
+        DatagramChannel mockDatagramChannel = Mockito.mock(DatagramChannel.class);
+        graphiteUDP.setDatagramChannel(mockDatagramChannel);
+        graphiteUDP.setAddress(new InetSocketAddress(host, port));
+        // the packet is reused once sent, so its content is copied as it is sent
+        final List<String> datagrams = new ArrayList<>();
+        when(mockDatagramChannel.send(any(ByteBuffer.class), any(InetSocketAddress.class))).thenAnswer(invocation -> {
+            datagrams.add(UTF_8.decode(invocation.<ByteBuffer>getArgument(0)).toString());
+            return 0;
+        });
+
+        graphiteUDP.send("name woo", "value", 100);
+        graphiteUDP.send("name", "value2", 101);
+        assertThat(datagrams)
+                .isEmpty();
+
+        graphiteUDP.flush();
+        assertThat(datagrams)
+                .containsExactly("name-woo value 100\nname value2 101\n");
+    }
+
+    @Test
+    public void onlyResetsFailuresOnceAPacketIsSent() throws Exception {
+        graphiteUDP = new GraphiteUDP(host, port, 1432);
+        DatagramChannel mockDatagramChannel = Mockito.mock(DatagramChannel.class);
+        graphiteUDP.setDatagramChannel(mockDatagramChannel);
+        graphiteUDP.setAddress(new InetSocketAddress(host, port));
+        when(mockDatagramChannel.send(any(ByteBuffer.class), any(InetSocketAddress.class)))
+                .thenThrow(new IOException("unreachable"))
+                .thenReturn(0);
+
+        graphiteUDP.send("name", "value", 100);
+        assertThatThrownBy(graphiteUDP::flush)
+                .isInstanceOf(IOException.class);
+        assertThat(graphiteUDP.getFailures())
+                .isEqualTo(1);
+
+        graphiteUDP.send("name", "value", 101);
+        assertThat(graphiteUDP.getFailures())
+                .isEqualTo(1);
+
+        graphiteUDP.flush();
+        assertThat(graphiteUDP.getFailures())
+                .isZero();
+    }
+
+    @Test
+    public void packsLinesAsTheyWouldBeEncodedAlone() throws Exception {
+        graphiteUDP = new GraphiteUDP(host, port, 64);
+        DatagramChannel mockDatagramChannel = Mockito.mock(DatagramChannel.class);
+        graphiteUDP.setDatagramChannel(mockDatagramChannel);
+        graphiteUDP.setAddress(new InetSocketAddress(host, port));
+        final List<String> datagrams = new ArrayList<>();
+        when(mockDatagramChannel.send(any(ByteBuffer.class), any(InetSocketAddress.class))).thenAnswer(invocation -> {
+            datagrams.add(UTF_8.decode(invocation.<ByteBuffer>getArgument(0)).toString());
+            return 0;
+        });
+        final StringBuilder longName = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            longName.append("segment").append(i).append('.');
+        }
+
+        graphiteUDP.send("ünïcode \u20ac \uD83D\uDE00", "1.5", -1234567890L);
+        graphiteUDP.send("name", "value", Long.MIN_VALUE);
+        graphiteUDP.send(longName.toString(), "2", 0);
+        graphiteUDP.send("name", "3", 1);
+        graphiteUDP.flush();
+
+        assertThat(datagrams)
+                .containsExactly(
+                        "ünïcode-\u20ac-\uD83D\uDE00 1.5 -1234567890\n",
+                        "name value " + Long.MIN_VALUE + "\n",
+                        longName + " 2 0\n",
+                        "name 3 1\n");
+    }
+
+    @Test
+    public void neverSplitsLinesAcrossDatagrams() throws Exception {
+        final int maxPayloadSize = 100;
+        try (DatagramChannel receiver = DatagramChannel.open()) {
+            receiver.setOption(StandardSocketOptions.SO_RCVBUF, 1024 * 1024);
+            receiver.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            receiver.configureBlocking(false);
+            final List<String> lines = new ArrayList<>();
+            final StringBuilder received = new StringBuilder();
+            final List<String> datagrams = new ArrayList<>();
+
+            graphiteUDP = new GraphiteUDP((InetSocketAddress) receiver.getLocalAddress(), maxPayloadSize);
+            graphiteUDP.connect();
+            for (int i = 0; i < 200; i++) {
+                // from a few bytes to a line longer than a datagram
+                final StringBuilder name = new StringBuilder("metric");
+                for (int j = 0; j < i % 23; j++) {
+                    name.append(".segment").append(j);
+                }
+                graphiteUDP.send(name.toString(), Integer.toString(i), 1000 + i);
+                lines.add(name + " " + i + " " + (1000 + i) + "\n");
+            }
+            graphiteUDP.close();
+            receive(receiver, datagrams);
+
+            for (String datagram : datagrams) {
+                final int length = datagram.getBytes(UTF_8).length;
+                if (length > maxPayloadSize) {
+                    // only a line which doesn't fit in a datagram is sent alone
+                    assertThat(datagram.indexOf('\n'))
+                            .isEqualTo(datagram.length() - 1);
+                }
+                assertThat(datagram)
+                        .endsWith("\n");
+                received.append(datagram);
+            }
+            assertThat(received.toString())
+                    .isEqualTo(String.join("", lines));
+            assertThat(datagrams.size())
+                    .isLessThan(lines.size());
+        }
+    }
+
+    private static void receive(DatagramChannel receiver, List<String> datagrams) throws Exception {
+        final ByteBuffer buffer = ByteBuffer.allocate(65536);
+        // until no datagram arrives for a while
+        long deadline = System.currentTimeMillis() + 500;
+        while (System.currentTimeMillis() < deadline) {
+            buffer.clear();
+            if (receiver.receive(buffer) == null) {
+                Thread.sleep(1);
+                continue;
+            }
+            deadline = System.currentTimeMillis() + 500;
+            buffer.flip();
+            datagrams.add(UTF_8.decode(buffer).toString());
+        }
+    }
+}
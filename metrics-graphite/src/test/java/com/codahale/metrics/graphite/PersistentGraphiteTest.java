@@ -0,0 +1,217 @@
+package com.codahale.metrics.graphite;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PersistentGraphiteTest {
+    private final AtomicLong time = new AtomicLong();
+    private final Clock clock = new Clock() {
+        @Override
+        public long getTick() {
+            return TimeUnit.MILLISECONDS.toNanos(time.get());
+        }
+
+        @Override
+        public long getTime() {
+            return time.get();
+        }
+    };
+
+    private ServerSocket server;
+    private InetSocketAddress address;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        server.setSoTimeout(5_000);
+        address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void sendsSanitizedLines() throws Exception {
+        try (PersistentGraphite graphite = PersistentGraphite.builder(address).build()) {
+            graphite.connect();
+            try (Socket socket = server.accept();
+                 BufferedReader reader = reader(socket)) {
+                graphite.send("name to sanitize", "  1.5  ", -1234567890L);
+                graphite.send("name", "value with spaces", 0);
+                graphite.send("name", "ünïcode", Long.MIN_VALUE);
+                graphite.flush();
+
+                assertThat(reader.readLine())
+                        .isEqualTo("name-to-sanitize 1.5 -1234567890");
+                assertThat(reader.readLine())
+                        .isEqualTo("name value-with-spaces 0");
+                assertThat(reader.readLine())
+                        .isEqualTo("name ünïcode " + Long.MIN_VALUE);
+            }
+        }
+    }
+
+    @Test
+    public void writesLinesLongerThanItsBuffer() throws Exception {
+        final StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            name.append("segment").append(i).append('.');
+        }
+        name.append("value");
+
+        try (PersistentGraphite graphite = PersistentGraphite.builder(address).bufferSize(16).build()) {
+            graphite.connect();
+            try (Socket socket = server.accept();
+                 BufferedReader reader = reader(socket)) {
+                graphite.send(name.toString(), "12345678901234567890", 1_000_000_000L);
+                graphite.send(name.toString(), "2", 1_000_000_001L);
+                graphite.flush();
+
+                assertThat(reader.readLine())
+                        .isEqualTo(name + " 12345678901234567890 1000000000");
+                assertThat(reader.readLine())
+                        .isEqualTo(name + " 2 1000000001");
+            }
+        }
+    }
+
+    @Test
+    public void keepsItsConnectionOpenBetweenReports() throws Exception {
+        final MetricRegistry registry = new MetricRegistry();
+        registry.counter("counter").inc(3);
+        final PersistentGraphite graphite = PersistentGraphite.builder(address).build();
+        final GraphiteReporter reporter = GraphiteReporter.forRegistry(registry)
+                .withClock(clock)
+                .filter(MetricFilter.ALL)
+                .build(graphite);
+        time.set(10_000);
+
+        try {
+            reporter.report();
+            try (Socket socket = server.accept();
+                 BufferedReader reader = reader(socket)) {
+                assertThat(graphite.isConnected())
+                        .isTrue();
+                reporter.report();
+
+                assertThat(reader.readLine())
+                        .isEqualTo("counter.count 3 10");
+                assertThat(reader.readLine())
+                        .isEqualTo("counter.count 3 10");
+            }
+        } finally {
+            reporter.stop();
+        }
+
+        assertThat(graphite.isConnected())
+                .isFalse();
+    }
+
+    @Test
+    public void reconnectsWhenTheServerClosedTheConnectionBetweenReports() throws Exception {
+        final MetricRegistry registry = new MetricRegistry();
+        registry.counter("counter").inc(3);
+        final PersistentGraphite graphite = PersistentGraphite.builder(address).build();
+        final GraphiteReporter reporter = GraphiteReporter.forRegistry(registry)
+                .withClock(clock)
+                .filter(MetricFilter.ALL)
+                .build(graphite);
+        time.set(10_000);
+
+        try {
+            reporter.report();
+            try (Socket socket = server.accept();
+                 BufferedReader reader = reader(socket)) {
+                assertThat(reader.readLine())
+                        .isEqualTo("counter.count 3 10");
+            }
+            // give the server's FIN time to reach the client
+            Thread.sleep(100);
+
+            time.set(20_000);
+            reporter.report();
+            try (Socket socket = server.accept();
+                 BufferedReader reader = reader(socket)) {
+                assertThat(reader.readLine())
+                        .isEqualTo("counter.count 3 20");
+            }
+        } finally {
+            reporter.stop();
+        }
+    }
+
+    @Test
+    public void backsOffBeforeReconnecting() throws Exception {
+        final PersistentGraphite graphite = PersistentGraphite.builder(address)
+                .backoff(Duration.ofSeconds(1), Duration.ofSeconds(3))
+                .clock(clock)
+                .build();
+        server.close();
+
+        assertThatThrownBy(graphite::connect)
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(graphite::connect)
+                .hasMessage("Not reconnecting to Graphite for another 1000 ms");
+
+        time.addAndGet(1_000);
+        assertThatThrownBy(graphite::connect)
+                .isInstanceOf(IOException.class)
+                .hasMessageNotContaining("Not reconnecting");
+        assertThatThrownBy(graphite::connect)
+                .hasMessage("Not reconnecting to Graphite for another 2000 ms");
+
+        time.addAndGet(2_000);
+        assertThatThrownBy(graphite::connect)
+                .isInstanceOf(IOException.class)
+                .hasMessageNotContaining("Not reconnecting");
+        assertThatThrownBy(graphite::connect)
+                .hasMessage("Not reconnecting to Graphite for another 3000 ms");
+
+        server = new ServerSocket(address.getPort(), 50, address.getAddress());
+        time.addAndGet(3_000);
+        graphite.connect();
+        graphite.close();
+        time.addAndGet(1);
+
+        // a successful connection resets the backoff
+        server.close();
+        assertThatThrownBy(graphite::connect)
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(graphite::connect)
+                .hasMessage("Not reconnecting to Graphite for another 1000 ms");
+    }
+
+    @Test
+    public void refusesToSendWhenNotConnected() {
+        final PersistentGraphite graphite = PersistentGraphite.builder(address).build();
+
+        assertThatThrownBy(() -> graphite.send("name", "1", 1))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static BufferedReader reader(Socket socket) throws IOException {
+        socket.setSoTimeout(5_000);
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+    }
+}
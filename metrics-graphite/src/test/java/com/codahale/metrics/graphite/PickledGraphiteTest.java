@@ -3,6 +3,7 @@ package com.codahale.metrics.graphite;
 import org.junit.Before;
 import org.junit.Test;
 import org.python.core.PyList;
+import org.python.core.PyString;
 import org.python.core.PyTuple;
 
 import javax.net.SocketFactory;
@@ -21,6 +22,7 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Fail.failBecauseExceptionWasNotThrown;
@@ -36,6 +38,8 @@ public class PickledGraphiteTest {
     private final SocketFactory socketFactory = mock(SocketFactory.class);
     private final InetSocketAddress address = new InetSocketAddress("example.com", 1234);
     private final PickledGraphite graphite = new PickledGraphite(address, socketFactory, UTF_8, 2);
+    private final PickledGraphite binaryGraphite = new PickledGraphite(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), 1234), socketFactory, UTF_8, 2, 2);
 
     private final Socket socket = mock(Socket.class);
     private final ByteArrayOutputStream output = spy(ByteArrayOutputStream.class);
@@ -149,18 +153,81 @@ public class PickledGraphiteTest {
         }
     }
 
+    @Test
+    public void writesBinaryPickles() throws Exception {
+        binaryGraphite.connect();
+        binaryGraphite.send("name woo", "1.5", 100);
+        binaryGraphite.send("näme \uD83D\uDE00", "-2", 1_500_000_000L);
+        binaryGraphite.send("name", "value woo", -1);
+        binaryGraphite.send("name", "NaN", 0);
+        binaryGraphite.send("name", "12", 1L << 40);
+        binaryGraphite.close();
+
+        assertThat(unpickleOutput(true))
+            .isEqualTo("name-woo 1.5 100\n"
+                + "näme-\uD83D\uDE00 -2.0 1500000000\n"
+                + "name value-woo -1\n"
+                + "name NaN 0\n"
+                + "name 12.0 1099511627776\n");
+    }
+
+    @Test
+    public void onlyPicklesPlainDecimalsAsFloats() throws Exception {
+        binaryGraphite.connect();
+        binaryGraphite.send("name", "+1.5e3", 1);
+        binaryGraphite.send("name", ".5", 2);
+        binaryGraphite.send("name", "1d", 3);
+        binaryGraphite.send("name", "0x1p3", 4);
+        binaryGraphite.send("name", "1e", 5);
+        binaryGraphite.close();
+
+        // values which Java parses but Python doesn't are left for Carbon to reject
+        assertThat(unpickleOutput(true))
+            .isEqualTo("name 1500.0 1\n"
+                + "name 0.5 2\n"
+                + "name 1d 3\n"
+                + "name 0x1p3 4\n"
+                + "name 1e 5\n");
+    }
+
+    @Test
+    public void growsItsBinaryBuffer() throws Exception {
+        final PickledGraphite graphite = new PickledGraphite(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 1234), socketFactory, UTF_8, 1000, 2);
+        final StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            name.append("segment").append(i).append('.');
+        }
+        final StringBuilder expected = new StringBuilder();
+
+        graphite.connect();
+        for (int i = 0; i < 1500; i++) {
+            graphite.send(name.toString() + i, Integer.toString(i), i);
+            expected.append(name).append(i).append(' ').append((double) i).append(' ').append(i).append('\n');
+        }
+        graphite.close();
+
+        assertThat(unpickleOutput(true))
+            .isEqualTo(expected.toString());
+    }
+
     private String unpickleOutput() throws Exception {
+        return unpickleOutput(false);
+    }
+
+    private String unpickleOutput(boolean binary) throws Exception {
         StringBuilder results = new StringBuilder();
 
         // the charset is important. if the GraphitePickleReporter and this test
-        // don't agree, the header is not always correctly unpacked.
-        String payload = output.toString("UTF-8");
+        // don't agree, the header is not always correctly unpacked. binary pickles
+        // are passed byte for byte.
+        String payload = output.toString(binary ? ISO_8859_1.name() : "UTF-8");
 
         PyList result = new PyList();
         int nextIndex = 0;
         while (nextIndex < payload.length()) {
             Bindings bindings = new SimpleBindings();
-            bindings.put("payload", payload.substring(nextIndex));
+            bindings.put("payload", binary ? new PyString(payload.substring(nextIndex)) : payload.substring(nextIndex));
             unpickleScript.eval(bindings);
             result.addAll(result.size(), (PyList) bindings.get("metrics"));
             nextIndex += ((BigInteger) bindings.get("batchLength")).intValue();
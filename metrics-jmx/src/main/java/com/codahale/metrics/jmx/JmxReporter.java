@@ -1,8 +1,10 @@
 package com.codahale.metrics.jmx;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.DoubleGauge;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
+import com.codahale.metrics.LongGauge;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.Metered;
 import com.codahale.metrics.MetricFilter;
@@ -207,6 +209,56 @@ public class JmxReporter implements Reporter, Closeable {
         }
     }
 
+    @SuppressWarnings("UnusedDeclaration")
+    public interface JmxLongGaugeMBean extends MetricMBean {
+        long getValue();
+        long getNumber();
+    }
+
+    private static class JmxLongGauge extends AbstractBean implements JmxLongGaugeMBean {
+        private final LongGauge metric;
+
+        private JmxLongGauge(LongGauge metric, ObjectName objectName) {
+            super(objectName);
+            this.metric = metric;
+        }
+
+        @Override
+        public long getValue() {
+            return metric.getLongValue();
+        }
+
+        @Override
+        public long getNumber() {
+            return metric.getLongValue();
+        }
+    }
+
+    @SuppressWarnings("UnusedDeclaration")
+    public interface JmxDoubleGaugeMBean extends MetricMBean {
+        double getValue();
+        double getNumber();
+    }
+
+    private static class JmxDoubleGauge extends AbstractBean implements JmxDoubleGaugeMBean {
+        private final DoubleGauge metric;
+
+        private JmxDoubleGauge(DoubleGauge metric, ObjectName objectName) {
+            super(objectName);
+            this.metric = metric;
+        }
+
+        @Override
+        public double getValue() {
+            return metric.getDoubleValue();
+        }
+
+        @Override
+        public double getNumber() {
+            return metric.getDoubleValue();
+        }
+    }
+
     @SuppressWarnings("UnusedDeclaration")
     public interface JmxCounterMBean extends MetricMBean {
         long getCount();
@@ -544,7 +596,13 @@ public class JmxReporter implements Reporter, Closeable {
             try {
                 if (filter.matches(name, gauge)) {
                     final ObjectName objectName = createName("gauges", name);
-                    registerMBean(new JmxGauge(gauge, objectName), objectName);
+                    if (gauge instanceof LongGauge) {
+                        registerMBean(new JmxLongGauge((LongGauge) gauge, objectName), objectName);
+                    } else if (gauge instanceof DoubleGauge) {
+                        registerMBean(new JmxDoubleGauge((DoubleGauge) gauge, objectName), objectName);
+                    } else {
+                        registerMBean(new JmxGauge(gauge, objectName), objectName);
+                    }
                 }
             } catch (InstanceAlreadyExistsException e) {
                 LOGGER.debug("Unable to register gauge", e);
@@ -107,6 +107,8 @@ public class JmxReporterTest {
         when(timer.getSnapshot()).thenReturn(tSnapshot);
 
         registry.register("gauge", gauge);
+        registry.registerLongGauge("long.gauge", () -> 2L);
+        registry.registerDoubleGauge("double.gauge", () -> 0.5);
         registry.register("test.counter", counter);
         registry.register("test.histogram", histogram);
         registry.register("test.meter", meter);
@@ -151,6 +153,15 @@ public class JmxReporterTest {
                 .contains(entry("Value", 1), entry("Number", 1));
     }
 
+    @Test
+    public void registersMBeansForPrimitiveGauges() throws Exception {
+        assertThat(values(getAttributes("gauges", "long.gauge", "Value", "Number")))
+                .contains(entry("Value", 2L), entry("Number", 2L));
+
+        assertThat(values(getAttributes("gauges", "double.gauge", "Value", "Number")))
+                .contains(entry("Value", 0.5), entry("Number", 0.5));
+    }
+
     @Test
     public void registersMBeansForCounters() throws Exception {
         final AttributeList attributes = getAttributes("counters", "test.counter", "Count");
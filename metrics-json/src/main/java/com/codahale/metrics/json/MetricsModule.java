@@ -1,8 +1,10 @@
 package com.codahale.metrics.json;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.DoubleGauge;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
+import com.codahale.metrics.LongGauge;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
@@ -37,10 +39,14 @@ public class MetricsModule extends Module {
                               JsonGenerator json,
                               SerializerProvider provider) throws IOException {
             json.writeStartObject();
-            final Object value;
             try {
-                value = gauge.getValue();
-                json.writeObjectField("value", value);
+                if (gauge instanceof LongGauge) {
+                    json.writeNumberField("value", ((LongGauge) gauge).getLongValue());
+                } else if (gauge instanceof DoubleGauge) {
+                    json.writeNumberField("value", ((DoubleGauge) gauge).getDoubleValue());
+                } else {
+                    json.writeObjectField("value", gauge.getValue());
+                }
             } catch (RuntimeException e) {
                 json.writeObjectField("error", e.toString());
             }
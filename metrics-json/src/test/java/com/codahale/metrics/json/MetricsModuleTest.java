@@ -1,8 +1,10 @@
 package com.codahale.metrics.json;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.DoubleGauge;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
+import com.codahale.metrics.LongGauge;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
@@ -29,6 +31,27 @@ public class MetricsModuleTest {
                 .isEqualTo("{\"value\":100}");
     }
 
+    @Test
+    public void serializesPrimitiveGauges() throws Exception {
+        final LongGauge longGauge = () -> 100L;
+        final DoubleGauge doubleGauge = () -> 0.25;
+
+        assertThat(mapper.writeValueAsString(longGauge))
+                .isEqualTo("{\"value\":100}");
+        assertThat(mapper.writeValueAsString(doubleGauge))
+                .isEqualTo("{\"value\":0.25}");
+    }
+
+    @Test
+    public void serializesPrimitiveGaugesThatThrowExceptions() throws Exception {
+        final LongGauge gauge = () -> {
+            throw new IllegalArgumentException("poops");
+        };
+
+        assertThat(mapper.writeValueAsString(gauge))
+                .isEqualTo("{\"error\":\"java.lang.IllegalArgumentException: poops\"}");
+    }
+
     @Test
     public void serializesGaugesThatThrowExceptions() throws Exception {
         final Gauge<Integer> gauge = () -> {
@@ -1,6 +1,6 @@
 package com.codahale.metrics.jvm;
 
-import com.codahale.metrics.Gauge;
+import com.codahale.metrics.LongGauge;
 import com.codahale.metrics.Metric;
 import com.codahale.metrics.MetricSet;
 
@@ -27,8 +27,8 @@ public class ClassLoadingGaugeSet implements MetricSet {
     @Override
     public Map<String, Metric> getMetrics() {
         final Map<String, Metric> gauges = new HashMap<>();
-        gauges.put("loaded", (Gauge<Long>) mxBean::getTotalLoadedClassCount);
-        gauges.put("unloaded", (Gauge<Long>) mxBean::getUnloadedClassCount);
+        gauges.put("loaded", (LongGauge) mxBean::getTotalLoadedClassCount);
+        gauges.put("unloaded", (LongGauge) mxBean::getUnloadedClassCount);
 
         return gauges;
     }
@@ -1,6 +1,6 @@
 package com.codahale.metrics.jvm;
 
-import com.codahale.metrics.Gauge;
+import com.codahale.metrics.LongGauge;
 import com.codahale.metrics.Metric;
 import com.codahale.metrics.MetricSet;
 
@@ -45,8 +45,8 @@ public class GarbageCollectorMetricSet implements MetricSet {
         final Map<String, Metric> gauges = new HashMap<>();
         for (final GarbageCollectorMXBean gc : garbageCollectors) {
             final String name = WHITESPACE.matcher(gc.getName()).replaceAll("-");
-            gauges.put(name(name, "count"), (Gauge<Long>) gc::getCollectionCount);
-            gauges.put(name(name, "time"), (Gauge<Long>) gc::getCollectionTime);
+            gauges.put(name(name, "count"), (LongGauge) gc::getCollectionCount);
+            gauges.put(name(name, "time"), (LongGauge) gc::getCollectionTime);
         }
         return Collections.unmodifiableMap(gauges);
     }
@@ -1,6 +1,7 @@
 package com.codahale.metrics.jvm;
 
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.LongGauge;
 import com.codahale.metrics.Metric;
 import com.codahale.metrics.MetricSet;
 
@@ -44,7 +45,7 @@ public class JvmAttributeGaugeSet implements MetricSet {
                 runtime.getVmName(),
                 runtime.getVmVersion(),
                 runtime.getSpecVersion()));
-        gauges.put("uptime", (Gauge<Long>) runtime::getUptime);
+        gauges.put("uptime", (LongGauge) runtime::getUptime);
 
         return Collections.unmodifiableMap(gauges);
     }
@@ -1,6 +1,6 @@
 package com.codahale.metrics.jvm;
 
-import com.codahale.metrics.Gauge;
+import com.codahale.metrics.LongGauge;
 import com.codahale.metrics.Metric;
 import com.codahale.metrics.MetricSet;
 import com.codahale.metrics.RatioGauge;
@@ -43,19 +43,19 @@ public class MemoryUsageGaugeSet implements MetricSet {
     public Map<String, Metric> getMetrics() {
         final Map<String, Metric> gauges = new HashMap<>();
 
-        gauges.put("total.init", (Gauge<Long>) () -> mxBean.getHeapMemoryUsage().getInit() +
+        gauges.put("total.init", (LongGauge) () -> mxBean.getHeapMemoryUsage().getInit() +
                 mxBean.getNonHeapMemoryUsage().getInit());
-        gauges.put("total.used", (Gauge<Long>) () -> mxBean.getHeapMemoryUsage().getUsed() +
+        gauges.put("total.used", (LongGauge) () -> mxBean.getHeapMemoryUsage().getUsed() +
                 mxBean.getNonHeapMemoryUsage().getUsed());
-        gauges.put("total.max", (Gauge<Long>) () -> mxBean.getNonHeapMemoryUsage().getMax() == -1 ?
+        gauges.put("total.max", (LongGauge) () -> mxBean.getNonHeapMemoryUsage().getMax() == -1 ?
                 -1 : mxBean.getHeapMemoryUsage().getMax() + mxBean.getNonHeapMemoryUsage().getMax());
-        gauges.put("total.committed", (Gauge<Long>) () -> mxBean.getHeapMemoryUsage().getCommitted() +
+        gauges.put("total.committed", (LongGauge) () -> mxBean.getHeapMemoryUsage().getCommitted() +
                 mxBean.getNonHeapMemoryUsage().getCommitted());
 
-        gauges.put("heap.init", (Gauge<Long>) () -> mxBean.getHeapMemoryUsage().getInit());
-        gauges.put("heap.used", (Gauge<Long>) () -> mxBean.getHeapMemoryUsage().getUsed());
-        gauges.put("heap.max", (Gauge<Long>) () -> mxBean.getHeapMemoryUsage().getMax());
-        gauges.put("heap.committed", (Gauge<Long>) () -> mxBean.getHeapMemoryUsage().getCommitted());
+        gauges.put("heap.init", (LongGauge) () -> mxBean.getHeapMemoryUsage().getInit());
+        gauges.put("heap.used", (LongGauge) () -> mxBean.getHeapMemoryUsage().getUsed());
+        gauges.put("heap.max", (LongGauge) () -> mxBean.getHeapMemoryUsage().getMax());
+        gauges.put("heap.committed", (LongGauge) () -> mxBean.getHeapMemoryUsage().getCommitted());
         gauges.put("heap.usage", new RatioGauge() {
             @Override
             protected Ratio getRatio() {
@@ -64,10 +64,10 @@ public class MemoryUsageGaugeSet implements MetricSet {
             }
         });
 
-        gauges.put("non-heap.init", (Gauge<Long>) () -> mxBean.getNonHeapMemoryUsage().getInit());
-        gauges.put("non-heap.used", (Gauge<Long>) () -> mxBean.getNonHeapMemoryUsage().getUsed());
-        gauges.put("non-heap.max", (Gauge<Long>) () -> mxBean.getNonHeapMemoryUsage().getMax());
-        gauges.put("non-heap.committed", (Gauge<Long>) () -> mxBean.getNonHeapMemoryUsage().getCommitted());
+        gauges.put("non-heap.init", (LongGauge) () -> mxBean.getNonHeapMemoryUsage().getInit());
+        gauges.put("non-heap.used", (LongGauge) () -> mxBean.getNonHeapMemoryUsage().getUsed());
+        gauges.put("non-heap.max", (LongGauge) () -> mxBean.getNonHeapMemoryUsage().getMax());
+        gauges.put("non-heap.committed", (LongGauge) () -> mxBean.getNonHeapMemoryUsage().getCommitted());
         gauges.put("non-heap.usage", new RatioGauge() {
             @Override
             protected Ratio getRatio() {
@@ -88,17 +88,17 @@ public class MemoryUsageGaugeSet implements MetricSet {
                 }
             });
 
-            gauges.put(name(poolName, "max"), (Gauge<Long>) () -> pool.getUsage().getMax());
-            gauges.put(name(poolName, "used"), (Gauge<Long>) () -> pool.getUsage().getUsed());
-            gauges.put(name(poolName, "committed"), (Gauge<Long>) () -> pool.getUsage().getCommitted());
+            gauges.put(name(poolName, "max"), (LongGauge) () -> pool.getUsage().getMax());
+            gauges.put(name(poolName, "used"), (LongGauge) () -> pool.getUsage().getUsed());
+            gauges.put(name(poolName, "committed"), (LongGauge) () -> pool.getUsage().getCommitted());
 
             // Only register GC usage metrics if the memory pool supports usage statistics.
             if (pool.getCollectionUsage() != null) {
-                gauges.put(name(poolName, "used-after-gc"), (Gauge<Long>) () ->
+                gauges.put(name(poolName, "used-after-gc"), (LongGauge) () ->
                         pool.getCollectionUsage().getUsed());
             }
 
-            gauges.put(name(poolName, "init"), (Gauge<Long>) () -> pool.getUsage().getInit());
+            gauges.put(name(poolName, "init"), (LongGauge) () -> pool.getUsage().getInit());
         }
 
         return Collections.unmodifiableMap(gauges);
@@ -0,0 +1,56 @@
+package com.codahale.metrics.jvm;
+
+import com.codahale.metrics.LongGauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * A set of gauges for the estimated heap footprint of the metrics of a {@link MetricRegistry}: the
+ * number of metrics and their estimated retained bytes, in total and for each of the given prefixes.
+ * <p>
+ * The gauges are named {@code total.count} and {@code total.bytes}, and {@code <prefix>.count} and
+ * {@code <prefix>.bytes} for each prefix. Each read walks the metrics it covers, so prefixes keep
+ * reading the gauges cheap on large registries.
+ *
+ * @see Metric#estimateRetainedBytes()
+ * @see MetricRegistry#estimateRetainedBytes(String)
+ */
+public class MetricFootprintGaugeSet implements MetricSet {
+
+    private final MetricRegistry registry;
+    private final List<String> prefixes;
+
+    /**
+     * Creates a new {@link MetricFootprintGaugeSet}.
+     *
+     * @param registry the registry whose metrics are measured
+     * @param prefixes the prefixes, as defined by {@link MetricRegistry#getNamesUnder(String)}, for which
+     *                 to publish separate gauges
+     */
+    public MetricFootprintGaugeSet(MetricRegistry registry, String... prefixes) {
+        this.registry = Objects.requireNonNull(registry, "registry is required");
+        this.prefixes = Arrays.asList(prefixes.clone());
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        final Map<String, Metric> gauges = new HashMap<>();
+        gauges.put("total.count", (LongGauge) () -> registry.getMetrics().size());
+        gauges.put("total.bytes", (LongGauge) registry::estimateRetainedBytes);
+        for (String prefix : prefixes) {
+            gauges.put(name(prefix, "count"), (LongGauge) () -> registry.getNamesUnder(prefix).size());
+            gauges.put(name(prefix, "bytes"), (LongGauge) () -> registry.estimateRetainedBytes(prefix));
+        }
+        return Collections.unmodifiableMap(gauges);
+    }
+}
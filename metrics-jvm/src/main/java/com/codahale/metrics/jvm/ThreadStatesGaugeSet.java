@@ -1,6 +1,7 @@
 package com.codahale.metrics.jvm;
 
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.LongGauge;
 import com.codahale.metrics.Metric;
 import com.codahale.metrics.MetricSet;
 
@@ -56,7 +57,7 @@ public class ThreadStatesGaugeSet implements MetricSet {
         gauges.put("count", (Gauge<Integer>) threads::getThreadCount);
         gauges.put("daemon.count", (Gauge<Integer>) threads::getDaemonThreadCount);
         gauges.put("peak.count", (Gauge<Integer>) threads::getPeakThreadCount);
-        gauges.put("total_started.count", (Gauge<Long>) threads::getTotalStartedThreadCount);
+        gauges.put("total_started.count", (LongGauge) threads::getTotalStartedThreadCount);
         gauges.put("deadlock.count", (Gauge<Integer>) () -> deadlockDetector.getDeadlockedThreads().size());
         gauges.put("deadlocks", (Gauge<Set<String>>) deadlockDetector::getDeadlockedThreads);
 
@@ -0,0 +1,60 @@
+package com.codahale.metrics.jvm;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SuppressWarnings("rawtypes")
+public class MetricFootprintGaugeSetTest {
+
+    private final MetricRegistry registry = new MetricRegistry();
+    private final MetricFootprintGaugeSet gauges = new MetricFootprintGaugeSet(registry, "pool");
+
+    @Before
+    public void setUp() {
+        registry.counter("pool.active");
+        registry.timer("pool.wait");
+        registry.meter("requests");
+    }
+
+    @Test
+    public void hasAGaugeForEachPrefixAndTheTotal() {
+        assertThat(gauges.getMetrics().keySet())
+                .containsOnly("total.count", "total.bytes", "pool.count", "pool.bytes");
+    }
+
+    @Test
+    public void totalGauges() {
+        assertThat(((Gauge) gauges.getMetrics().get("total.count")).getValue())
+                .isEqualTo(3L);
+        assertThat(((Gauge) gauges.getMetrics().get("total.bytes")).getValue())
+                .isEqualTo(registry.estimateRetainedBytes());
+    }
+
+    @Test
+    public void prefixGauges() {
+        final long poolBytes = registry.counter("pool.active").estimateRetainedBytes()
+                + registry.timer("pool.wait").estimateRetainedBytes();
+
+        assertThat(((Gauge) gauges.getMetrics().get("pool.count")).getValue())
+                .isEqualTo(2L);
+        assertThat(((Gauge) gauges.getMetrics().get("pool.bytes")).getValue())
+                .isEqualTo(poolBytes);
+    }
+
+    @Test
+    public void gaugesFollowTheRegistry() {
+        final Gauge total = (Gauge) gauges.getMetrics().get("total.bytes");
+        final long before = (Long) total.getValue();
+
+        registry.histogram("pool.sizes");
+
+        assertThat((Long) total.getValue())
+                .isGreaterThan(before);
+        assertThat(((Gauge) gauges.getMetrics().get("pool.count")).getValue())
+                .isEqualTo(3L);
+    }
+}